@@ -0,0 +1,61 @@
+package com.namejm.query_bot.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application meters, published under {@code querybot.*} next to the JVM, HTTP and connection pool metrics. Every timer
+ * carries an {@code outcome} tag ({@code success} or {@code error}); meters scoped to a registered database carry its id
+ * as {@code db}.
+ */
+@Component
+public class AppMetrics {
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public AppMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static Tags db(Long dbId) {
+        return Tags.of("db", dbId != null ? dbId.toString() : "none");
+    }
+
+    public <T> T time(String name, Tags tags, Supplier<T> work) {
+        long started = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = work.get();
+            success = true;
+            return result;
+        } finally {
+            record(name, tags, success, System.nanoTime() - started);
+        }
+    }
+
+    public <T> T timeChecked(String name, Tags tags, Callable<T> work) throws Exception {
+        long started = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = work.call();
+            success = true;
+            return result;
+        } finally {
+            record(name, tags, success, System.nanoTime() - started);
+        }
+    }
+
+    public void record(String name, Tags tags, boolean success, long nanos) {
+        registry.timer(name, tags.and("outcome", success ? SUCCESS : ERROR)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(String name, Tags tags, double amount) {
+        registry.counter(name, tags).increment(amount);
+    }
+}
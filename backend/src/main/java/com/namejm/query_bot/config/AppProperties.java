@@ -1,6 +1,12 @@
 package com.namejm.query_bot.config;
 
+import com.namejm.query_bot.model.MetadataStore;
+import com.namejm.query_bot.model.RetentionMode;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
@@ -8,7 +14,24 @@ public class AppProperties {
     private final Security security = new Security();
     private final OpenAi openai = new OpenAi();
     private final Metabase metabase = new Metabase();
+    private final QuestionCache questionCache = new QuestionCache();
+    private final LlmScheduler llmScheduler = new LlmScheduler();
+    private final AskExecutor askExecutor = new AskExecutor();
+    private final LlmStub llmStub = new LlmStub();
+    private final SpeculativeExecution speculativeExecution = new SpeculativeExecution();
+    private final Sqlite sqlite = new Sqlite();
+    private final MessageWriter messageWriter = new MessageWriter();
+    private final Retention retention = new Retention();
+    private final Jobs jobs = new Jobs();
+    private final RateLimit rateLimit = new RateLimit();
+    private final ConnectionTest connectionTest = new ConnectionTest();
     private String dataDir = "./data";
+    private MetadataStore metadataStore = MetadataStore.SQLITE;
+    /**
+     * How long registered database settings are served from memory. Other instances' changes become visible after at
+     * most this long; changes made by this instance are visible immediately.
+     */
+    private Duration databaseRegistryTtl = Duration.ofSeconds(30);
 
     public Security getSecurity() {
         return security;
@@ -22,6 +45,50 @@ public class AppProperties {
         return metabase;
     }
 
+    public QuestionCache getQuestionCache() {
+        return questionCache;
+    }
+
+    public LlmScheduler getLlmScheduler() {
+        return llmScheduler;
+    }
+
+    public AskExecutor getAskExecutor() {
+        return askExecutor;
+    }
+
+    public LlmStub getLlmStub() {
+        return llmStub;
+    }
+
+    public SpeculativeExecution getSpeculativeExecution() {
+        return speculativeExecution;
+    }
+
+    public Sqlite getSqlite() {
+        return sqlite;
+    }
+
+    public MessageWriter getMessageWriter() {
+        return messageWriter;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public ConnectionTest getConnectionTest() {
+        return connectionTest;
+    }
+
     public String getDataDir() {
         return dataDir;
     }
@@ -30,6 +97,26 @@ public class AppProperties {
         this.dataDir = dataDir;
     }
 
+    public MetadataStore getMetadataStore() {
+        return metadataStore;
+    }
+
+    public void setMetadataStore(MetadataStore metadataStore) {
+        this.metadataStore = metadataStore;
+    }
+
+    public boolean isSqlite() {
+        return metadataStore == MetadataStore.SQLITE;
+    }
+
+    public Duration getDatabaseRegistryTtl() {
+        return databaseRegistryTtl;
+    }
+
+    public void setDatabaseRegistryTtl(Duration databaseRegistryTtl) {
+        this.databaseRegistryTtl = databaseRegistryTtl;
+    }
+
     public static class Security {
         /**
          * Secret used to sign JWTs. Override in production using the JWT_SECRET environment variable.
@@ -37,6 +124,11 @@ public class AppProperties {
         private String jwtSecret;
         private int accessTokenMinutes = 30;
         private int refreshTokenDays = 7;
+        /**
+         * How long a verified token is trusted without checking it again; zero disables the cache.
+         */
+        private Duration principalCacheTtl = Duration.ofSeconds(60);
+        private int principalCacheSize = 1000;
 
         public String getJwtSecret() {
             return jwtSecret;
@@ -61,11 +153,34 @@ public class AppProperties {
         public void setRefreshTokenDays(int refreshTokenDays) {
             this.refreshTokenDays = refreshTokenDays;
         }
+
+        public Duration getPrincipalCacheTtl() {
+            return principalCacheTtl;
+        }
+
+        public void setPrincipalCacheTtl(Duration principalCacheTtl) {
+            this.principalCacheTtl = principalCacheTtl;
+        }
+
+        public int getPrincipalCacheSize() {
+            return principalCacheSize;
+        }
+
+        public void setPrincipalCacheSize(int principalCacheSize) {
+            this.principalCacheSize = principalCacheSize;
+        }
     }
 
     public static class OpenAi {
         private String apiKey;
         private String model;
+        private String baseUrl = "https://api.openai.com/v1";
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofMinutes(5);
+        /**
+         * When set, every completion is appended to this JSON-lines file so it can be replayed by the stub server.
+         */
+        private String recordTo;
 
         public String getApiKey() {
             return apiKey;
@@ -82,6 +197,38 @@ public class AppProperties {
         public void setModel(String model) {
             this.model = model;
         }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public String getRecordTo() {
+            return recordTo;
+        }
+
+        public void setRecordTo(String recordTo) {
+            this.recordTo = recordTo;
+        }
     }
 
     public static class Metabase {
@@ -91,6 +238,19 @@ public class AppProperties {
         private Long databaseKey;
         private Long collectionKey;
         private String deviceId;
+        /**
+         * How long a card existence result is trusted before it is revalidated in the background.
+         */
+        private Duration cardStateTtl = Duration.ofMinutes(5);
+        /**
+         * Delay between outbox sweeps; new requests also wake the worker immediately.
+         */
+        private Duration outboxPollInterval = Duration.ofSeconds(10);
+        private int outboxBatchSize = 20;
+        /**
+         * Publish attempts before an outbox entry is marked FAILED.
+         */
+        private int outboxMaxAttempts = 5;
 
         public boolean isEnabled() {
             return enabled;
@@ -139,5 +299,597 @@ public class AppProperties {
         public void setDeviceId(String deviceId) {
             this.deviceId = deviceId;
         }
+
+        public Duration getCardStateTtl() {
+            return cardStateTtl;
+        }
+
+        public void setCardStateTtl(Duration cardStateTtl) {
+            this.cardStateTtl = cardStateTtl;
+        }
+
+        public Duration getOutboxPollInterval() {
+            return outboxPollInterval;
+        }
+
+        public void setOutboxPollInterval(Duration outboxPollInterval) {
+            this.outboxPollInterval = outboxPollInterval;
+        }
+
+        public int getOutboxBatchSize() {
+            return outboxBatchSize;
+        }
+
+        public void setOutboxBatchSize(int outboxBatchSize) {
+            this.outboxBatchSize = outboxBatchSize;
+        }
+
+        public int getOutboxMaxAttempts() {
+            return outboxMaxAttempts;
+        }
+
+        public void setOutboxMaxAttempts(int outboxMaxAttempts) {
+            this.outboxMaxAttempts = outboxMaxAttempts;
+        }
+    }
+
+    public static class QuestionCache {
+        private boolean enabled = true;
+        /**
+         * Minimum Jaccard similarity (character bigrams) for a past question's accepted SQL to be reused.
+         */
+        private double similarityThreshold = 0.85;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
+    }
+
+    public static class LlmScheduler {
+        /**
+         * Completions allowed in flight at once across all users.
+         */
+        private int maxConcurrent = 4;
+        private int maxQueueSize = 100;
+        private int maxQueuedPerUser = 10;
+        private Duration maxWait = Duration.ofSeconds(60);
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        public int getMaxQueuedPerUser() {
+            return maxQueuedPerUser;
+        }
+
+        public void setMaxQueuedPerUser(int maxQueuedPerUser) {
+            this.maxQueuedPerUser = maxQueuedPerUser;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    public static class AskExecutor {
+        private int poolSize = 16;
+        private int queueCapacity = 500;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Embedded stand-in for the OpenAI API. When enabled, the LLM client talks to it instead of {@code openai.base-url}.
+     */
+    public static class LlmStub {
+        private boolean enabled = false;
+        /**
+         * 0 picks a free port.
+         */
+        private int port = 0;
+        private String recordings;
+        private Duration latency = Duration.ofMillis(500);
+        private Duration latencyJitter = Duration.ZERO;
+        private double errorRate = 0.0;
+        private int errorStatus = 503;
+        private long seed = 42;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getRecordings() {
+            return recordings;
+        }
+
+        public void setRecordings(String recordings) {
+            this.recordings = recordings;
+        }
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public Duration getLatencyJitter() {
+            return latencyJitter;
+        }
+
+        public void setLatencyJitter(Duration latencyJitter) {
+            this.latencyJitter = latencyJitter;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public int getErrorStatus() {
+            return errorStatus;
+        }
+
+        public void setErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+    }
+
+    public static class SpeculativeExecution {
+        /**
+         * How long a pre-executed result is kept for the next Execute click.
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+        private Duration queryTimeout = Duration.ofSeconds(10);
+        private int poolSize = 2;
+        private int queueCapacity = 20;
+        private int maxEntries = 100;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        public void setQueryTimeout(Duration queryTimeout) {
+            this.queryTimeout = queryTimeout;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Sqlite {
+        /**
+         * Read-only connections; writes always go through a single writer connection.
+         */
+        private int readPoolSize = 4;
+        private Duration busyTimeout = Duration.ofSeconds(5);
+        /**
+         * NORMAL is durable across application crashes in WAL mode; only an OS crash can lose the last commits.
+         */
+        private String synchronous = "NORMAL";
+        private int cacheSizeKb = 16384;
+        private DataSize mmapSize = DataSize.ofMegabytes(256);
+
+        public int getReadPoolSize() {
+            return readPoolSize;
+        }
+
+        public void setReadPoolSize(int readPoolSize) {
+            this.readPoolSize = readPoolSize;
+        }
+
+        public Duration getBusyTimeout() {
+            return busyTimeout;
+        }
+
+        public void setBusyTimeout(Duration busyTimeout) {
+            this.busyTimeout = busyTimeout;
+        }
+
+        public String getSynchronous() {
+            return synchronous;
+        }
+
+        public void setSynchronous(String synchronous) {
+            this.synchronous = synchronous;
+        }
+
+        public int getCacheSizeKb() {
+            return cacheSizeKb;
+        }
+
+        public void setCacheSizeKb(int cacheSizeKb) {
+            this.cacheSizeKb = cacheSizeKb;
+        }
+
+        public DataSize getMmapSize() {
+            return mmapSize;
+        }
+
+        public void setMmapSize(DataSize mmapSize) {
+            this.mmapSize = mmapSize;
+        }
+    }
+
+    public static class MessageWriter {
+        /**
+         * Most turns written in one transaction.
+         */
+        private int batchSize = 100;
+        private int queueCapacity = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class ConnectionTest {
+        /**
+         * Applies to connecting, each socket read and each query of the test.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+        private int maxPreviewTables = 100;
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getMaxPreviewTables() {
+            return maxPreviewTables;
+        }
+
+        public void setMaxPreviewTables(int maxPreviewTables) {
+            this.maxPreviewTables = maxPreviewTables;
+        }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = true;
+        /**
+         * Upper bound on tracked users and client addresses; beyond it, buckets that have refilled completely are dropped.
+         */
+        private int maxBuckets = 10000;
+        /**
+         * Limited endpoints by rule name. The first rule whose method and path pattern match applies.
+         */
+        private Map<String, Rule> rules = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBuckets() {
+            return maxBuckets;
+        }
+
+        public void setMaxBuckets(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        public Map<String, Rule> getRules() {
+            return rules;
+        }
+
+        public void setRules(Map<String, Rule> rules) {
+            this.rules = rules;
+        }
+
+        public static class Rule {
+            /**
+             * HTTP method to match; empty matches any.
+             */
+            private String method;
+            /**
+             * Ant-style path pattern.
+             */
+            private String path;
+            /**
+             * Requests per period for one user. Tokens are refilled continuously, so bursts up to this size are allowed.
+             */
+            private int capacity = 10;
+            /**
+             * Requests per period for one client address, across all users behind it; 0 uses {@code capacity}.
+             */
+            private int ipCapacity;
+            private Duration period = Duration.ofMinutes(1);
+
+            public String getMethod() {
+                return method;
+            }
+
+            public void setMethod(String method) {
+                this.method = method;
+            }
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getIpCapacity() {
+                return ipCapacity;
+            }
+
+            public void setIpCapacity(int ipCapacity) {
+                this.ipCapacity = ipCapacity;
+            }
+
+            public Duration getPeriod() {
+                return period;
+            }
+
+            public void setPeriod(Duration period) {
+                this.period = period;
+            }
+        }
+    }
+
+    public static class Jobs {
+        /**
+         * Identifies this instance in job locks and run history; defaults to the host name plus a random suffix.
+         */
+        private String instanceId;
+        /**
+         * How long a lock is held without renewal. A running job renews it every third of this, so it only matters when
+         * the holder dies.
+         */
+        private Duration lease = Duration.ofMinutes(2);
+        private Duration historyRetention = Duration.ofDays(30);
+        /**
+         * Cron per job name, overriding the job's default; "-" disables the schedule (manual runs still work).
+         */
+        private Map<String, String> schedules = new LinkedHashMap<>();
+
+        public String getInstanceId() {
+            return instanceId;
+        }
+
+        public void setInstanceId(String instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+
+        public Duration getHistoryRetention() {
+            return historyRetention;
+        }
+
+        public void setHistoryRetention(Duration historyRetention) {
+            this.historyRetention = historyRetention;
+        }
+
+        public Map<String, String> getSchedules() {
+            return schedules;
+        }
+
+        public void setSchedules(Map<String, String> schedules) {
+            this.schedules = schedules;
+        }
+    }
+
+    public static class Retention {
+        private String cron = "0 0 4 * * *";
+        /**
+         * DELETE drops expired sessions; ARCHIVE moves them to compressed archive files first.
+         */
+        private RetentionMode mode = RetentionMode.DELETE;
+        /**
+         * Defaults to {@code <dataDir>/archive}. Required in ARCHIVE mode with a shared metadata store, and must then
+         * be storage shared by all instances.
+         */
+        private String archiveDir;
+        /**
+         * Sessions without a question for this long are deleted with their messages.
+         */
+        private Duration sessionRetention = Duration.ofDays(30);
+        /**
+         * Finished Metabase outbox entries are kept this long for status lookups.
+         */
+        private Duration outboxRetention = Duration.ofDays(7);
+        private int chunkSize = 500;
+        /**
+         * Pause between chunks so queued writes get the writer connection.
+         */
+        private Duration chunkPause = Duration.ofMillis(50);
+        /**
+         * Upper bound of pages released by the incremental vacuum per run; 0 disables it.
+         */
+        private int vacuumPages = 5000;
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public RetentionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(RetentionMode mode) {
+            this.mode = mode;
+        }
+
+        public String getArchiveDir() {
+            return archiveDir;
+        }
+
+        public void setArchiveDir(String archiveDir) {
+            this.archiveDir = archiveDir;
+        }
+
+        public Duration getSessionRetention() {
+            return sessionRetention;
+        }
+
+        public void setSessionRetention(Duration sessionRetention) {
+            this.sessionRetention = sessionRetention;
+        }
+
+        public Duration getOutboxRetention() {
+            return outboxRetention;
+        }
+
+        public void setOutboxRetention(Duration outboxRetention) {
+            this.outboxRetention = outboxRetention;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getChunkPause() {
+            return chunkPause;
+        }
+
+        public void setChunkPause(Duration chunkPause) {
+            this.chunkPause = chunkPause;
+        }
+
+        public int getVacuumPages() {
+            return vacuumPages;
+        }
+
+        public void setVacuumPages(int vacuumPages) {
+            this.vacuumPages = vacuumPages;
+        }
     }
 }
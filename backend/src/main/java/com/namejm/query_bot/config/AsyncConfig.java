@@ -0,0 +1,89 @@
+package com.namejm.query_bot.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Runs the ask pipeline so servlet threads are released while a completion is pending. Requests waiting for an LLM
+     * slot are parked in {@code LlmRequestScheduler}, not on this pool, so it only needs to cover the running completions
+     * plus the short prepare/persist steps.
+     */
+    @Bean(name = "askExecutor")
+    public ThreadPoolTaskExecutor askExecutor(AppProperties appProperties) {
+        AppProperties.AskExecutor config = appProperties.getAskExecutor();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ask-");
+        executor.setCorePoolSize(config.getPoolSize());
+        executor.setMaxPoolSize(config.getPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Small pool for speculative pre-execution. When it is saturated new speculations are rejected and skipped; the
+     * user's own Execute click still runs the query.
+     */
+    @Bean(name = "speculativeExecutor")
+    public ThreadPoolTaskExecutor speculativeExecutor(AppProperties appProperties) {
+        AppProperties.SpeculativeExecution config = appProperties.getSpeculativeExecution();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("speculative-");
+        executor.setCorePoolSize(config.getPoolSize());
+        executor.setMaxPoolSize(config.getPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Background Metabase calls (card state revalidation), kept off request threads.
+     */
+    @Bean(name = "metabaseExecutor")
+    public ThreadPoolTaskExecutor metabaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("metabase-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs background jobs for {@code JobService}, so a long job never occupies the scheduler thread that fires the
+     * others and renews their leases.
+     */
+    @Bean(name = "jobExecutor")
+    public ThreadPoolTaskExecutor jobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("job-");
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single worker behind {@code ChatMessageWriter}. Only one drain task is ever queued, so the queue stays tiny.
+     */
+    @Bean(name = "messageWriterExecutor")
+    public ThreadPoolTaskExecutor messageWriterExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("message-writer-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
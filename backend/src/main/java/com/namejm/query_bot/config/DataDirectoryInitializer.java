@@ -25,6 +25,9 @@ public class DataDirectoryInitializer {
             Files.createDirectories(path);
             log.info("Created data directory at {}", path.toAbsolutePath());
         }
+        if (!appProperties.isSqlite()) {
+            return;
+        }
         Path dbFile = path.resolve("querybot.db");
         if (Files.notExists(dbFile)) {
             Files.createFile(dbFile);
@@ -2,48 +2,134 @@ package com.namejm.query_bot.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
+/**
+ * SQLite in WAL mode behind two pools: a single-connection writer (SQLite allows one writer at a time) and a read-only
+ * pool so readers no longer queue behind writes. The exposed {@link DataSource} hands out lazy connections; the
+ * physical connection is taken from the read pool when the transaction is {@code readOnly = true}, otherwise from the
+ * writer.
+ * <p>
+ * Only used with the SQLite store; with {@code app.metadata-store=server} Spring Boot's own pool on
+ * {@code spring.datasource} is used instead.
+ * <p>
+ * Both pools publish {@code hikari.connections.*} metrics; the writer's usage time is how long each write transaction
+ * held the database.
+ */
 @Configuration
+@ConditionalOnProperty(prefix = "app", name = "metadata-store", havingValue = "sqlite", matchIfMissing = true)
 public class DataSourceConfig {
     private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+    // SQLITE_OPEN_READONLY
+    private static final int OPEN_READ_ONLY = 0x01;
 
     @Bean
+    @Primary
     @DependsOn("dataDirectoryInitializer")
-    public DataSource dataSource(AppProperties properties, Environment environment) throws IOException {
-        String explicitUrl = environment.getProperty("spring.datasource.url");
-        String jdbcUrl;
-        if (explicitUrl != null && !explicitUrl.isBlank()) {
-            jdbcUrl = explicitUrl;
-        } else {
-            Path dir = Path.of(properties.getDataDir());
-            if (Files.notExists(dir)) {
-                Files.createDirectories(dir);
-                log.info("Created data directory at {}", dir.toAbsolutePath());
-            }
-            Path dbFile = dir.resolve("querybot.db");
-            if (Files.notExists(dbFile)) {
-                Files.createFile(dbFile);
-                log.info("Created sqlite file at {}", dbFile.toAbsolutePath());
+    public DataSource dataSource(AppProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) throws IOException, SQLException {
+        // The writer opens first so the database is already in WAL mode when read-only connections attach.
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(writeDataSource(properties, environment, meterRegistry));
+        proxy.setReadOnlyDataSource(readDataSource(properties, environment, meterRegistry));
+        return proxy;
+    }
+
+    @Bean(autowireCandidate = false)
+    public HikariDataSource writeDataSource(AppProperties properties, Environment environment,
+                                           ObjectProvider<MeterRegistry> meterRegistry) throws IOException, SQLException {
+        AppProperties.Sqlite sqlite = properties.getSqlite();
+        String jdbcUrl = jdbcUrl(properties, environment);
+        enableIncrementalVacuumIfNew(jdbcUrl);
+        HikariConfig config = baseConfig(jdbcUrl, sqlite, meterRegistry);
+        config.setPoolName("sqlite-writer");
+        config.setMaximumPoolSize(1);
+        // Persistent in the database file; set by the writer so readers never block on the journal.
+        config.addDataSourceProperty("journal_mode", "WAL");
+        return new HikariDataSource(config);
+    }
+
+    @Bean(autowireCandidate = false)
+    public HikariDataSource readDataSource(AppProperties properties, Environment environment,
+                                          ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        AppProperties.Sqlite sqlite = properties.getSqlite();
+        HikariConfig config = baseConfig(jdbcUrl(properties, environment), sqlite, meterRegistry);
+        config.setPoolName("sqlite-reader");
+        config.setMaximumPoolSize(Math.max(1, sqlite.getReadPoolSize()));
+        config.addDataSourceProperty("open_mode", OPEN_READ_ONLY);
+        // sqlite-jdbc cannot switch the flag on an open connection; tell Hikari the connections already are read-only so
+        // it never tries to reset them to read-write.
+        config.setReadOnly(true);
+        log.info("SQLite pools ready: 1 writer, {} readers", config.getMaximumPoolSize());
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Gives a new database file incremental auto_vacuum, so retention can return free pages without rewriting the file.
+     * The mode can only be chosen while the file is empty: before Flyway creates its history table and before the writer
+     * switches to WAL. Existing files are converted by an explicit admin action (see ChatSessionCleanupService).
+     */
+    private void enableIncrementalVacuumIfNew(String jdbcUrl) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet pages = statement.executeQuery("PRAGMA page_count")) {
+                if (!pages.next() || pages.getLong(1) > 0) {
+                    return;
+                }
             }
-            jdbcUrl = "jdbc:sqlite:" + dbFile;
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            log.info("New sqlite database uses incremental auto_vacuum");
         }
+    }
 
+    private HikariConfig baseConfig(String jdbcUrl, AppProperties.Sqlite sqlite, ObjectProvider<MeterRegistry> meterRegistry) {
         HikariConfig config = new HikariConfig();
+        // The pools are not DataSource beans Spring Boot can see, so they are registered with Micrometer here.
+        meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
         config.setDriverClassName("org.sqlite.JDBC");
         config.setJdbcUrl(jdbcUrl);
-        // SQLite allows a single writer; keep pool at 1 and set a small busy timeout to reduce lock errors.
-        config.setMaximumPoolSize(1);
-        config.addDataSourceProperty("busy_timeout", 5000);
-        return new HikariDataSource(config);
+        config.addDataSourceProperty("busy_timeout", sqlite.getBusyTimeout().toMillis());
+        config.addDataSourceProperty("synchronous", sqlite.getSynchronous());
+        // Negative cache_size is in KiB rather than pages.
+        config.addDataSourceProperty("cache_size", -sqlite.getCacheSizeKb());
+        config.addDataSourceProperty("mmap_size", sqlite.getMmapSize().toBytes());
+        return config;
+    }
+
+    private String jdbcUrl(AppProperties properties, Environment environment) throws IOException {
+        String explicitUrl = environment.getProperty("spring.datasource.url");
+        if (explicitUrl != null && !explicitUrl.isBlank()) {
+            return explicitUrl;
+        }
+        Path dir = Path.of(properties.getDataDir());
+        if (Files.notExists(dir)) {
+            Files.createDirectories(dir);
+            log.info("Created data directory at {}", dir.toAbsolutePath());
+        }
+        Path dbFile = dir.resolve("querybot.db");
+        if (Files.notExists(dbFile)) {
+            Files.createFile(dbFile);
+            log.info("Created sqlite file at {}", dbFile.toAbsolutePath());
+        }
+        return "jdbc:sqlite:" + dbFile;
     }
 }
@@ -0,0 +1,52 @@
+package com.namejm.query_bot.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.llm.LlmClient;
+import com.namejm.query_bot.llm.OpenAiLlmClient;
+import com.namejm.query_bot.llm.RecordingLlmClient;
+import com.namejm.query_bot.llm.StubLlmServer;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LlmConfig {
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "app.llm-stub", name = "enabled", havingValue = "true")
+    public StubLlmServer stubLlmServer(AppProperties appProperties, ObjectMapper objectMapper) throws IOException {
+        AppProperties.LlmStub config = appProperties.getLlmStub();
+        StubLlmServer server = new StubLlmServer(
+                objectMapper,
+                config.getPort(),
+                config.getRecordings() != null && !config.getRecordings().isBlank() ? Path.of(config.getRecordings()) : null,
+                config.getLatency(),
+                config.getLatencyJitter(),
+                config.getErrorRate(),
+                config.getErrorStatus(),
+                config.getSeed()
+        );
+        server.start();
+        return server;
+    }
+
+    /**
+     * OpenAI client pointed at the stub server when it is enabled, so load tests exercise the same HTTP path as production.
+     */
+    @Bean
+    public LlmClient llmClient(AppProperties appProperties, ObjectMapper objectMapper, ObjectProvider<StubLlmServer> stubLlmServer) {
+        AppProperties.OpenAi openai = appProperties.getOpenai();
+        StubLlmServer stub = stubLlmServer.getIfAvailable();
+        LlmClient client = stub != null
+                ? new OpenAiLlmClient(stub.baseUrl(), "stub", openai.getModel(), openai.getConnectTimeout(), openai.getReadTimeout())
+                : new OpenAiLlmClient(openai.getBaseUrl(), openai.getApiKey(), openai.getModel(),
+                        openai.getConnectTimeout(), openai.getReadTimeout());
+        if (openai.getRecordTo() != null && !openai.getRecordTo().isBlank()) {
+            client = new RecordingLlmClient(client, Path.of(openai.getRecordTo()), objectMapper);
+        }
+        return client;
+    }
+}
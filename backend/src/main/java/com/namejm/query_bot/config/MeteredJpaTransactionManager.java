@@ -0,0 +1,73 @@
+package com.namejm.query_bot.config;
+
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Records how long each metadata-store transaction stays open, from begin to cleanup, as
+ * {@code querybot.metadata.transactions}. On SQLite a read-write transaction holds the single writer connection for
+ * exactly this long, so the timer shows what other writers queue behind. The outcome is {@code success} when the
+ * transaction committed.
+ * <p>
+ * Transactions on one thread nest only through suspension (REQUIRES_NEW), so a per-thread stack pairs each begin with
+ * its cleanup.
+ */
+public class MeteredJpaTransactionManager extends JpaTransactionManager {
+
+    private final AppMetrics metrics;
+    private final String store;
+    private final ThreadLocal<Deque<Sample>> open = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public MeteredJpaTransactionManager(AppMetrics metrics, String store) {
+        this.metrics = metrics;
+        this.store = store;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        open.get().push(new Sample(System.nanoTime(), definition.isReadOnly()));
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        Sample sample = open.get().peek();
+        if (sample != null) {
+            sample.committed = true;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            Deque<Sample> samples = open.get();
+            Sample sample = samples.poll();
+            if (samples.isEmpty()) {
+                open.remove();
+            }
+            if (sample != null) {
+                metrics.record("querybot.metadata.transactions",
+                        Tags.of("store", store, "read.only", String.valueOf(sample.readOnly)),
+                        sample.committed, System.nanoTime() - sample.startedAt);
+            }
+        }
+    }
+
+    private static final class Sample {
+        private final long startedAt;
+        private final boolean readOnly;
+        private boolean committed;
+
+        private Sample(long startedAt, boolean readOnly) {
+            this.startedAt = startedAt;
+            this.readOnly = readOnly;
+        }
+    }
+}
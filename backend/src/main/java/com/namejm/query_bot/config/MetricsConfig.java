@@ -0,0 +1,24 @@
+package com.namejm.query_bot.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Replaces Spring Boot's JPA transaction manager with one that times every transaction; otherwise configured the
+     * same way.
+     */
+    @Bean
+    public JpaTransactionManager transactionManager(AppMetrics appMetrics, AppProperties appProperties,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new MeteredJpaTransactionManager(appMetrics,
+                appProperties.isSqlite() ? "sqlite" : "server");
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+}
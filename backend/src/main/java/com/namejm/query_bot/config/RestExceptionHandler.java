@@ -1,6 +1,11 @@
 package com.namejm.query_bot.config;
 
+import com.namejm.query_bot.service.JobBusyException;
+import com.namejm.query_bot.service.LlmBusyException;
 import java.util.Map;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -14,6 +19,25 @@ public class RestExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
     }
 
+    @ExceptionHandler(LlmBusyException.class)
+    public ResponseEntity<?> handleLlmBusy(LlmBusyException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("message", ex.getMessage(), "busy", true, "position", ex.getPosition()));
+    }
+
+    @ExceptionHandler(JobBusyException.class)
+    public ResponseEntity<?> handleJobBusy(JobBusyException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<?> handleTaskRejected(TaskRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("message", "요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.", "busy", true));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidation(MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getFieldErrors().stream()
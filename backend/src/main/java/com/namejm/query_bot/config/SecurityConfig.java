@@ -1,19 +1,27 @@
 package com.namejm.query_bot.config;
 
+import com.namejm.query_bot.repository.AdminUserRepository;
 import com.namejm.query_bot.security.JwtAuthenticationFilter;
+import com.namejm.query_bot.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
+import java.util.function.Supplier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -27,16 +35,22 @@ public class SecurityConfig {
     private static final String[] PUBLIC_ENDPOINTS = {
             "/api/init/**",
             "/api/auth/**",
-            "/api/db/test",
             "/actuator/health",
+            // Scraped from inside the deployment; nginx only forwards /api.
+            "/actuator/prometheus",
             "/init/**",
             "/auth/**"
     };
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final AdminUserRepository adminUserRepository;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter,
+                          AdminUserRepository adminUserRepository) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.adminUserRepository = adminUserRepository;
     }
 
     @Bean
@@ -48,13 +62,27 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.POST, "/api/init/setup", "/api/auth/login").permitAll()
                         .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/db/test").access(this::authenticatedOrBeforeSetup)
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Async results are dispatched back through the chain; the original request was already authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // After the JWT filter so limits can be applied per user as well as per address.
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
+    // Onboarding tests the first connection before any admin exists; afterwards it needs a login like everything else.
+    private AuthorizationDecision authenticatedOrBeforeSetup(Supplier<Authentication> authentication,
+                                                             RequestAuthorizationContext context) {
+        Authentication current = authentication.get();
+        boolean authenticated = current != null && current.isAuthenticated()
+                && !(current instanceof AnonymousAuthenticationToken);
+        return new AuthorizationDecision(authenticated || adminUserRepository.count() == 0);
+    }
+
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
         return web -> web.ignoring().requestMatchers(PUBLIC_ENDPOINTS);
@@ -1,11 +1,28 @@
 package com.namejm.query_bot.controller;
 
+import com.namejm.query_bot.dto.ArchivedSessionSummary;
 import com.namejm.query_bot.dto.ChatRequest;
 import com.namejm.query_bot.dto.ChatResponse;
 import com.namejm.query_bot.dto.ChatSessionSummary;
 import com.namejm.query_bot.dto.CreateSessionRequest;
+import com.namejm.query_bot.dto.LlmQueueStatus;
+import com.namejm.query_bot.dto.MessagePage;
+import com.namejm.query_bot.dto.MessageSearchHit;
+import com.namejm.query_bot.dto.RetentionReport;
+import com.namejm.query_bot.dto.SessionPage;
+import com.namejm.query_bot.dto.VacuumConversion;
+import com.namejm.query_bot.service.ChatArchiveService;
+import com.namejm.query_bot.service.ChatSearchService;
 import com.namejm.query_bot.service.ChatService;
+import com.namejm.query_bot.service.ChatSessionCleanupService;
+import com.namejm.query_bot.service.LlmRequestScheduler;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -22,23 +39,77 @@ import org.springframework.web.bind.annotation.RestController;
 public class ChatController {
 
     private final ChatService chatService;
+    private final LlmRequestScheduler llmRequestScheduler;
+    private final ChatSessionCleanupService chatSessionCleanupService;
+    private final ChatArchiveService chatArchiveService;
+    private final ChatSearchService chatSearchService;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, LlmRequestScheduler llmRequestScheduler,
+                          ChatSessionCleanupService chatSessionCleanupService, ChatArchiveService chatArchiveService,
+                          ChatSearchService chatSearchService) {
         this.chatService = chatService;
+        this.llmRequestScheduler = llmRequestScheduler;
+        this.chatSessionCleanupService = chatSessionCleanupService;
+        this.chatArchiveService = chatArchiveService;
+        this.chatSearchService = chatSearchService;
     }
 
     @PostMapping("/ask")
-    public ChatResponse ask(@Valid @RequestBody ChatRequest request) throws Exception {
-        return chatService.ask(request);
+    public CompletableFuture<ChatResponse> ask(@Valid @RequestBody ChatRequest request, Principal principal) {
+        return chatService.ask(request, principal != null ? principal.getName() : null);
+    }
+
+    @GetMapping("/queue")
+    public LlmQueueStatus queue() {
+        return llmRequestScheduler.status();
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<RetentionReport> retention() {
+        return chatSessionCleanupService.lastReport()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/retention/incremental-vacuum")
+    public VacuumConversion enableIncrementalVacuum() {
+        return chatSessionCleanupService.enableIncrementalVacuum();
+    }
+
+    @GetMapping("/search")
+    public List<MessageSearchHit> search(@RequestParam("q") String query,
+                                         @RequestParam(value = "dbId", required = false) Long dbId,
+                                         @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        return chatSearchService.search(query, dbId, from, to, limit);
+    }
+
+    @GetMapping("/archive")
+    public List<ArchivedSessionSummary> archived(@RequestParam("dbId") Long dbId) {
+        return chatArchiveService.list(dbId);
+    }
+
+    @PostMapping("/archive/{archiveId}/restore")
+    public ChatSessionSummary restore(@PathVariable Long archiveId) throws IOException {
+        return chatArchiveService.restore(archiveId);
     }
 
     @GetMapping("/history/{sessionId}")
-    public ResponseEntity<ChatResponse> history(@PathVariable Long sessionId) {
-        return chatService.history(sessionId)
+    public ResponseEntity<ChatResponse> history(@PathVariable Long sessionId,
+                                                @RequestParam(value = "sinceMessageId", required = false) Long sinceMessageId) {
+        return chatService.history(sessionId, sinceMessageId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/history/{sessionId}/page")
+    public MessagePage historyPage(@PathVariable Long sessionId,
+                                   @RequestParam(value = "before", required = false) Long before,
+                                   @RequestParam(value = "size", required = false) Integer size) {
+        return chatService.historyPage(sessionId, before, size);
+    }
+
     @GetMapping("/latest")
     public ResponseEntity<ChatResponse> latest(@RequestParam("dbId") Long dbId) {
         return chatService.latestForDatabase(dbId)
@@ -51,6 +122,13 @@ public class ChatController {
         return ResponseEntity.ok(chatService.sessions(dbId));
     }
 
+    @GetMapping("/sessions/page")
+    public SessionPage sessionsPage(@RequestParam("dbId") Long dbId,
+                                    @RequestParam(value = "before", required = false) Long before,
+                                    @RequestParam(value = "size", required = false) Integer size) {
+        return chatService.sessionsPage(dbId, before, size);
+    }
+
     @PostMapping("/session")
     public ChatSessionSummary create(@Valid @RequestBody CreateSessionRequest request) {
         return chatService.createSession(request.dbId(), request.title());
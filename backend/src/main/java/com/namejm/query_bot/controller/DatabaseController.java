@@ -6,6 +6,7 @@ import com.namejm.query_bot.dto.DbSummary;
 import com.namejm.query_bot.dto.DbTestResponse;
 import com.namejm.query_bot.dto.ExecuteRequest;
 import com.namejm.query_bot.dto.ExecuteResponse;
+import com.namejm.query_bot.dto.SpeculativeExecutionRequest;
 import com.namejm.query_bot.service.DatabaseMetadataService;
 import com.namejm.query_bot.service.DatabaseService;
 import com.namejm.query_bot.service.QueryExecutionService;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -35,15 +37,17 @@ public class DatabaseController {
     }
 
     @PostMapping("/test")
-    public DbTestResponse test(@Valid @RequestBody DbConnectionRequest request) {
-        return metadataService.test(request);
+    public DbTestResponse test(@Valid @RequestBody DbConnectionRequest request,
+                               @RequestParam(value = "preview", required = false) Integer preview) {
+        return metadataService.test(request, preview);
     }
 
     @PostMapping("/register")
     public DbSummary register(@Valid @RequestBody DbConnectionRequest request) throws Exception {
         var schema = databaseService.reloadSchema(request);
         DatabaseConnection saved = databaseService.register(request, schema);
-        return new DbSummary(saved.getId(), saved.getName(), saved.getDbType(), saved.getHost(), saved.getPort(), saved.getDatabaseName(), saved.isSchemaReady());
+        return new DbSummary(saved.getId(), saved.getName(), saved.getDbType(), saved.getHost(), saved.getPort(), saved.getDatabaseName(), saved.isSchemaReady(),
+                saved.isSpeculativeExecution());
     }
 
     @GetMapping("/list")
@@ -65,4 +69,9 @@ public class DatabaseController {
     public DbSummary refresh(@PathVariable Long id) throws Exception {
         return databaseService.refresh(id);
     }
+
+    @PutMapping("/{id}/speculative")
+    public DbSummary speculative(@PathVariable Long id, @Valid @RequestBody SpeculativeExecutionRequest request) {
+        return databaseService.updateSpeculativeExecution(id, request.enabled());
+    }
 }
@@ -53,7 +53,8 @@ public class InitController {
                 savedDb.getHost(),
                 savedDb.getPort(),
                 savedDb.getDatabaseName(),
-                savedDb.isSchemaReady()
+                savedDb.isSchemaReady(),
+                savedDb.isSpeculativeExecution()
         );
         return ResponseEntity.ok(new InitSetupResponse(auth, summary));
     }
@@ -0,0 +1,41 @@
+package com.namejm.query_bot.controller;
+
+import com.namejm.query_bot.dto.JobRunSummary;
+import com.namejm.query_bot.dto.JobSummary;
+import com.namejm.query_bot.service.JobService;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @GetMapping
+    public List<JobSummary> list() {
+        return jobService.list();
+    }
+
+    @GetMapping("/{name}/runs")
+    public List<JobRunSummary> runs(@PathVariable String name,
+                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        return jobService.runs(name, limit);
+    }
+
+    @PostMapping("/{name}/run")
+    public ResponseEntity<JobRunSummary> run(@PathVariable String name) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.trigger(name));
+    }
+}
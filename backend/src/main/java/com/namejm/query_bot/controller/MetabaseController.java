@@ -1,12 +1,15 @@
 package com.namejm.query_bot.controller;
 
+import com.namejm.query_bot.dto.MetabaseJobResponse;
 import com.namejm.query_bot.dto.MetabaseQuestionRequest;
-import com.namejm.query_bot.dto.MetabaseQuestionResponse;
 import com.namejm.query_bot.dto.MetabaseStatusResponse;
+import com.namejm.query_bot.service.MetabaseOutboxService;
 import com.namejm.query_bot.service.MetabaseService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,9 +20,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class MetabaseController {
 
     private final MetabaseService metabaseService;
+    private final MetabaseOutboxService metabaseOutboxService;
 
-    public MetabaseController(MetabaseService metabaseService) {
+    public MetabaseController(MetabaseService metabaseService, MetabaseOutboxService metabaseOutboxService) {
         this.metabaseService = metabaseService;
+        this.metabaseOutboxService = metabaseOutboxService;
     }
 
     @GetMapping("/status")
@@ -28,10 +33,17 @@ public class MetabaseController {
     }
 
     @PostMapping("/card")
-    public ResponseEntity<MetabaseQuestionResponse> create(@Valid @RequestBody MetabaseQuestionRequest request) {
+    public ResponseEntity<MetabaseJobResponse> create(@Valid @RequestBody MetabaseQuestionRequest request) {
         if (!metabaseService.isAvailable()) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(metabaseService.createOrUpdateCard(request));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(metabaseOutboxService.enqueue(request));
+    }
+
+    @GetMapping("/card/jobs/{jobId}")
+    public ResponseEntity<MetabaseJobResponse> job(@PathVariable Long jobId) {
+        return metabaseOutboxService.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -0,0 +1,38 @@
+package com.namejm.query_bot.controller;
+
+import com.namejm.query_bot.dto.SessionUsage;
+import com.namejm.query_bot.dto.UsageSummary;
+import com.namejm.query_bot.service.UsageService;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/usage")
+public class UsageController {
+
+    private final UsageService usageService;
+
+    public UsageController(UsageService usageService) {
+        this.usageService = usageService;
+    }
+
+    @GetMapping("/daily")
+    public List<UsageSummary> daily(@RequestParam(value = "dbId", required = false) Long dbId,
+                                    @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                    @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return usageService.daily(dbId, start, end);
+    }
+
+    @GetMapping("/session/{sessionId}")
+    public SessionUsage session(@PathVariable Long sessionId) {
+        return usageService.forSession(sessionId);
+    }
+}
@@ -0,0 +1,142 @@
+package com.namejm.query_bot.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Lookup entry for a session moved to the archive: where its compressed record lives and enough metadata to list it
+ * without opening the file.
+ */
+@Entity
+@Table(name = "archived_sessions", indexes = {
+        @Index(name = "idx_archived_sessions_db", columnList = "database_connection_id, last_question_at")
+})
+public class ArchivedSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Id the session had while it was in the hot tables; a restored session gets a new one.
+     */
+    @Column(nullable = false)
+    private Long sessionId;
+
+    @Column(name = "database_connection_id", nullable = false)
+    private Long databaseConnectionId;
+
+    @Column(nullable = false)
+    private String title;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_question_at")
+    private LocalDateTime lastQuestionAt;
+
+    @Column(nullable = false)
+    private int messageCount;
+
+    @Column(nullable = false)
+    private String archiveFile;
+
+    @Column(name = "archive_offset", nullable = false)
+    private long archiveOffset;
+
+    @Column(name = "archive_length", nullable = false)
+    private int archiveLength;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @PrePersist
+    public void onCreate() {
+        archivedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getDatabaseConnectionId() {
+        return databaseConnectionId;
+    }
+
+    public void setDatabaseConnectionId(Long databaseConnectionId) {
+        this.databaseConnectionId = databaseConnectionId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastQuestionAt() {
+        return lastQuestionAt;
+    }
+
+    public void setLastQuestionAt(LocalDateTime lastQuestionAt) {
+        this.lastQuestionAt = lastQuestionAt;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(int messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public String getArchiveFile() {
+        return archiveFile;
+    }
+
+    public void setArchiveFile(String archiveFile) {
+        this.archiveFile = archiveFile;
+    }
+
+    public long getArchiveOffset() {
+        return archiveOffset;
+    }
+
+    public void setArchiveOffset(long archiveOffset) {
+        this.archiveOffset = archiveOffset;
+    }
+
+    public int getArchiveLength() {
+        return archiveLength;
+    }
+
+    public void setArchiveLength(int archiveLength) {
+        this.archiveLength = archiveLength;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
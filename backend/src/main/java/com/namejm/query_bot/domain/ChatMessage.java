@@ -6,19 +6,28 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_session_created", columnList = "session_id, created_at")
+})
 public class ChatMessage {
+    // Not IDENTITY, so inserts can be JDBC-batched; see LocalOrSequenceIdGenerator.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "chat_message_id")
+    @GenericGenerator(name = "chat_message_id", type = LocalOrSequenceIdGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "chat_messages_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
     @ManyToOne
@@ -35,15 +44,34 @@ public class ChatMessage {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    // LLM usage for assistant messages; null when the reply did not come from a model call.
+    private Integer promptTokens;
+
+    private Integer completionTokens;
+
+    private Integer cachedTokens;
+
+    private Long latencyMs;
+
     @PrePersist
     public void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Restored archive messages keep their original timestamp.
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 
     public Long getId() {
         return id;
     }
 
+    /**
+     * Forgets the id assigned by an insert that was rolled back, so the message can be persisted again.
+     */
+    public void clearId() {
+        id = null;
+    }
+
     public ChatSession getSession() {
         return session;
     }
@@ -71,4 +99,40 @@ public class ChatMessage {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Integer getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(Integer promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public Integer getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public void setCompletionTokens(Integer completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+
+    public Integer getCachedTokens() {
+        return cachedTokens;
+    }
+
+    public void setCachedTokens(Integer cachedTokens) {
+        this.cachedTokens = cachedTokens;
+    }
+
+    public Long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(Long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
 }
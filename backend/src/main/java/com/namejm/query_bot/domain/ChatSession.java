@@ -2,23 +2,35 @@ package com.namejm.query_bot.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
-@Table(name = "chat_sessions")
+@Table(name = "chat_sessions", indexes = {
+        @Index(name = "idx_chat_sessions_db_created", columnList = "database_connection_id, created_at"),
+        @Index(name = "idx_chat_sessions_last_question", columnList = "last_question_at"),
+        @Index(name = "idx_chat_sessions_system_prompt", columnList = "system_prompt_hash")
+})
 public class ChatSession {
+    // Same generator as ChatMessage so a session and its first messages can be batched.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "chat_session_id")
+    @GenericGenerator(name = "chat_session_id", type = LocalOrSequenceIdGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "chat_sessions_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "database_connection_id")
     private DatabaseConnection databaseConnection;
 
@@ -30,8 +42,11 @@ public class ChatSession {
 
     private LocalDateTime lastQuestionAt;
 
-    @Column(columnDefinition = "TEXT")
-    private String systemPrompt;
+    /**
+     * Hash of the session's prompt in {@link SystemPrompt}.
+     */
+    @Column(length = 64)
+    private String systemPromptHash;
 
     private Long systemPromptDatabaseId;
 
@@ -39,7 +54,9 @@ public class ChatSession {
 
     @PrePersist
     public void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
         if (lastQuestionAt == null) {
             lastQuestionAt = createdAt;
         }
@@ -65,12 +82,12 @@ public class ChatSession {
         this.title = title;
     }
 
-    public String getSystemPrompt() {
-        return systemPrompt;
+    public String getSystemPromptHash() {
+        return systemPromptHash;
     }
 
-    public void setSystemPrompt(String systemPrompt) {
-        this.systemPrompt = systemPrompt;
+    public void setSystemPromptHash(String systemPromptHash) {
+        this.systemPromptHash = systemPromptHash;
     }
 
     public Long getSystemPromptDatabaseId() {
@@ -85,6 +102,10 @@ public class ChatSession {
         return createdAt;
     }
 
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public Long getMetabaseCardId() {
         return metabaseCardId;
     }
@@ -8,12 +8,14 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
+/**
+ * A registered target database. The collected schema lives in {@link DatabaseSchema}.
+ */
 @Entity
 @Table(name = "database_connections")
 public class DatabaseConnection {
@@ -43,14 +45,17 @@ public class DatabaseConnection {
     @Column(nullable = false)
     private String password;
 
-    @Lob
-    private String schemaJson;
-
-    @Column(nullable = false, columnDefinition = "BOOLEAN NOT NULL DEFAULT 0")
+    @Column(nullable = false)
     private boolean schemaReady = false;
 
     private LocalDateTime schemaUpdatedAt;
 
+    /**
+     * Opt-in: run generated SELECTs in the background before the user clicks Execute.
+     */
+    @Column(nullable = false)
+    private boolean speculativeExecution = false;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -125,14 +130,6 @@ public class DatabaseConnection {
         this.password = password;
     }
 
-    public String getSchemaJson() {
-        return schemaJson;
-    }
-
-    public void setSchemaJson(String schemaJson) {
-        this.schemaJson = schemaJson;
-    }
-
     public boolean isSchemaReady() {
         return schemaReady;
     }
@@ -156,4 +153,12 @@ public class DatabaseConnection {
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
+
+    public boolean isSpeculativeExecution() {
+        return speculativeExecution;
+    }
+
+    public void setSpeculativeExecution(boolean speculativeExecution) {
+        this.speculativeExecution = speculativeExecution;
+    }
 }
@@ -0,0 +1,41 @@
+package com.namejm.query_bot.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Collected schema of a {@link DatabaseConnection}, kept out of the connection row so that listing databases or loading a
+ * session does not read the (often multi-megabyte) JSON. Only the chat path that builds prompts reads it.
+ */
+@Entity
+@Table(name = "database_schemas")
+public class DatabaseSchema {
+    @Id
+    @Column(name = "database_connection_id")
+    private Long databaseConnectionId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String schemaJson;
+
+    protected DatabaseSchema() {
+    }
+
+    public DatabaseSchema(Long databaseConnectionId, String schemaJson) {
+        this.databaseConnectionId = databaseConnectionId;
+        this.schemaJson = schemaJson;
+    }
+
+    public Long getDatabaseConnectionId() {
+        return databaseConnectionId;
+    }
+
+    public String getSchemaJson() {
+        return schemaJson;
+    }
+
+    public void setSchemaJson(String schemaJson) {
+        this.schemaJson = schemaJson;
+    }
+}
@@ -0,0 +1,50 @@
+package com.namejm.query_bot.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lock of one background job. The holder owns it until {@code lockedUntil}; a running holder keeps
+ * extending the lease, so an instance that dies mid-run frees the job once the lease expires.
+ */
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    private String lockedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime lockedAt;
+
+    protected JobLock() {
+    }
+
+    public JobLock(String name, LocalDateTime lockedUntil) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public LocalDateTime getLockedAt() {
+        return lockedAt;
+    }
+}
@@ -0,0 +1,122 @@
+package com.namejm.query_bot.domain;
+
+import com.namejm.query_bot.model.JobRunStatus;
+import com.namejm.query_bot.model.JobTrigger;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * One execution of a background job, on whichever instance held the lock.
+ */
+@Entity
+@Table(name = "job_runs", indexes = {
+        @Index(name = "idx_job_runs_job_started", columnList = "job_name, started_at")
+})
+public class JobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String jobName;
+
+    @Column(nullable = false)
+    private String instanceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobTrigger triggerType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobRunStatus status = JobRunStatus.RUNNING;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private Long durationMs;
+
+    /**
+     * Summary returned by the job, or the error message of a failed run.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public JobTrigger getTriggerType() {
+        return triggerType;
+    }
+
+    public void setTriggerType(JobTrigger triggerType) {
+        this.triggerType = triggerType;
+    }
+
+    public JobRunStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobRunStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,45 @@
+package com.namejm.query_bot.domain;
+
+import java.util.Properties;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.IncrementGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Id generator for entities whose inserts are JDBC-batched. On a database with sequences it uses a pooled sequence
+ * ({@code sequence_name}, {@code increment_size} parameters), which is safe with several application instances. On
+ * SQLite, which has no sequences, ids are assigned in-process (max(id) + 1 on first use); that is safe because only one
+ * instance can own a local SQLite file.
+ */
+public class LocalOrSequenceIdGenerator implements IdentifierGenerator {
+    private IdentifierGenerator delegate;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        Dialect dialect = serviceRegistry.getService(JdbcEnvironment.class).getDialect();
+        delegate = dialect.getSequenceSupport().supportsSequences() ? new SequenceStyleGenerator() : new IncrementGenerator();
+        delegate.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        delegate.registerExportables(database);
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        delegate.initialize(context);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return delegate.generate(session, object);
+    }
+}
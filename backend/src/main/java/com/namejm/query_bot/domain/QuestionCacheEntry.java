@@ -0,0 +1,115 @@
+package com.namejm.query_bot.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "question_cache_entries", indexes = {
+        @Index(name = "idx_question_cache_db", columnList = "databaseConnectionId")
+})
+public class QuestionCacheEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long databaseConnectionId;
+
+    /**
+     * {@link DatabaseConnection#getSchemaUpdatedAt()} at the time the answer was generated.
+     */
+    private LocalDateTime schemaVersion;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String question;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String normalizedQuestion;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String answerSql;
+
+    /**
+     * Set once the user successfully executes the answer; only accepted answers are offered for reuse.
+     */
+    @Column(nullable = false)
+    private boolean accepted = false;
+
+    @Column(nullable = false)
+    private int hitCount = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDatabaseConnectionId() {
+        return databaseConnectionId;
+    }
+
+    public void setDatabaseConnectionId(Long databaseConnectionId) {
+        this.databaseConnectionId = databaseConnectionId;
+    }
+
+    public LocalDateTime getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(LocalDateTime schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    public String getNormalizedQuestion() {
+        return normalizedQuestion;
+    }
+
+    public void setNormalizedQuestion(String normalizedQuestion) {
+        this.normalizedQuestion = normalizedQuestion;
+    }
+
+    public String getAnswerSql() {
+        return answerSql;
+    }
+
+    public void setAnswerSql(String answerSql) {
+        this.answerSql = answerSql;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(boolean accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.namejm.query_bot.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A system prompt stored once and shared by every session that uses it, keyed by the SHA-256 of its content. Rows are
+ * immutable; unreferenced ones are removed by the retention cleanup.
+ */
+@Entity
+@Table(name = "system_prompts")
+public class SystemPrompt {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
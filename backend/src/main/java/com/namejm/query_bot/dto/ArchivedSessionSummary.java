@@ -0,0 +1,15 @@
+package com.namejm.query_bot.dto;
+
+import java.time.LocalDateTime;
+
+public record ArchivedSessionSummary(
+        Long archiveId,
+        Long sessionId,
+        Long dbId,
+        String title,
+        LocalDateTime createdAt,
+        LocalDateTime lastQuestionAt,
+        int messageCount,
+        LocalDateTime archivedAt
+) {
+}
@@ -4,6 +4,7 @@ import com.namejm.query_bot.model.MessageRole;
 import java.time.LocalDateTime;
 
 public record ChatMessageDto(
+        Long id,
         MessageRole role,
         String content,
         LocalDateTime createdAt
@@ -7,6 +7,11 @@ public record ChatRequest(
         @NotNull Long dbId,
         Long sessionId,
         @NotBlank String message,
-        String sessionTitle
+        String sessionTitle,
+        Boolean regenerate,
+        /**
+         * When set, the response history only contains messages after this id (if the session is unchanged).
+         */
+        Long sinceMessageId
 ) {
 }
@@ -7,6 +7,8 @@ public record ChatResponse(
         String reply,
         List<ChatMessageDto> history,
         Long metabaseCardId,
-        String metabaseCardUrl
+        String metabaseCardUrl,
+        boolean cachedAnswer,
+        String similarQuestion
 ) {
 }
@@ -9,6 +9,7 @@ public record DbSummary(
         String host,
         Integer port,
         String databaseName,
-        boolean schemaReady
+        boolean schemaReady,
+        boolean speculativeExecution
 ) {
 }
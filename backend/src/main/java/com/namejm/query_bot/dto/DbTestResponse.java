@@ -1,8 +1,20 @@
 package com.namejm.query_bot.dto;
 
+/**
+ * Result of a connection test. {@code schema} is only set when a preview was requested and lists table names without
+ * columns.
+ */
 public record DbTestResponse(
         boolean success,
         String message,
-        SchemaOverview schema
+        SchemaOverview schema,
+        Integer tableCount,
+        Integer columnCount,
+        Integer readableTableCount,
+        long elapsedMs
 ) {
+
+    public static DbTestResponse failed(String message, long elapsedMs) {
+        return new DbTestResponse(false, message, null, null, null, null, elapsedMs);
+    }
 }
@@ -0,0 +1,18 @@
+package com.namejm.query_bot.dto;
+
+import com.namejm.query_bot.model.JobRunStatus;
+import com.namejm.query_bot.model.JobTrigger;
+import java.time.LocalDateTime;
+
+public record JobRunSummary(
+        Long id,
+        String jobName,
+        String instanceId,
+        JobTrigger trigger,
+        JobRunStatus status,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        Long durationMs,
+        String message
+) {
+}
@@ -0,0 +1,13 @@
+package com.namejm.query_bot.dto;
+
+import java.time.LocalDateTime;
+
+public record JobSummary(
+        String name,
+        String cron,
+        boolean locked,
+        String lockedBy,
+        LocalDateTime lockedUntil,
+        JobRunSummary lastRun
+) {
+}
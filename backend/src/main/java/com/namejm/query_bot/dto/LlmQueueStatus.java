@@ -0,0 +1,17 @@
+package com.namejm.query_bot.dto;
+
+import java.util.Map;
+
+public record LlmQueueStatus(
+        int active,
+        int maxConcurrent,
+        int queued,
+        int maxQueueSize,
+        Map<String, Integer> queuedByUser,
+        Map<Long, Integer> queuedByDatabase,
+        long completed,
+        long rejected,
+        long timedOut,
+        long averageWaitMs
+) {
+}
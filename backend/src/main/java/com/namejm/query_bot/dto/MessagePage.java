@@ -0,0 +1,13 @@
+package com.namejm.query_bot.dto;
+
+import java.util.List;
+
+/**
+ * One page of a session's messages in chronological order. Pass {@code nextCursor} as {@code before} to fetch the
+ * older page; it is null when there is nothing older.
+ */
+public record MessagePage(
+        List<ChatMessageDto> messages,
+        Long nextCursor
+) {
+}
@@ -0,0 +1,15 @@
+package com.namejm.query_bot.dto;
+
+import com.namejm.query_bot.model.MessageRole;
+import java.time.LocalDateTime;
+
+public record MessageSearchHit(
+        Long sessionId,
+        String sessionTitle,
+        Long messageId,
+        MessageRole role,
+        String snippet,
+        LocalDateTime createdAt,
+        double score
+) {
+}
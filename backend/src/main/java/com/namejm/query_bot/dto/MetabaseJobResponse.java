@@ -0,0 +1,15 @@
+package com.namejm.query_bot.dto;
+
+import com.namejm.query_bot.model.MetabaseJobStatus;
+
+public record MetabaseJobResponse(
+        Long jobId,
+        Long sessionId,
+        MetabaseJobStatus status,
+        int attempts,
+        Long cardId,
+        String cardName,
+        String url,
+        String error
+) {
+}
@@ -7,6 +7,10 @@ public record MetabaseQuestionRequest(
         @NotNull(message = "세션 ID는 필수입니다.") Long sessionId,
         @NotBlank(message = "쿼리를 입력하세요.") String query,
         String title,
-        String description
+        String description,
+        /**
+         * Optional client key; repeating a request with the same key returns the existing job.
+         */
+        String idempotencyKey
 ) {
 }
@@ -0,0 +1,18 @@
+package com.namejm.query_bot.dto;
+
+import com.namejm.query_bot.model.RetentionMode;
+import java.time.LocalDateTime;
+
+public record RetentionReport(
+        RetentionMode mode,
+        LocalDateTime startedAt,
+        LocalDateTime cutoff,
+        int sessionsDeleted,
+        int messagesDeleted,
+        int outboxEntriesDeleted,
+        int promptsDeleted,
+        int chunks,
+        long pagesFreed,
+        long durationMs
+) {
+}
@@ -0,0 +1,13 @@
+package com.namejm.query_bot.dto;
+
+import java.util.List;
+
+/**
+ * One page of sessions, newest first. Pass {@code nextCursor} as {@code before} to fetch the next page; it is null on
+ * the last page.
+ */
+public record SessionPage(
+        List<ChatSessionSummary> sessions,
+        Long nextCursor
+) {
+}
@@ -0,0 +1,11 @@
+package com.namejm.query_bot.dto;
+
+public record SessionUsage(
+        Long sessionId,
+        long requests,
+        long promptTokens,
+        long completionTokens,
+        long cachedTokens,
+        long totalLatencyMs
+) {
+}
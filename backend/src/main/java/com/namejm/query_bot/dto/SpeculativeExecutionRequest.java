@@ -0,0 +1,8 @@
+package com.namejm.query_bot.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record SpeculativeExecutionRequest(
+        @NotNull Boolean enabled
+) {
+}
@@ -0,0 +1,15 @@
+package com.namejm.query_bot.dto;
+
+import java.time.LocalDate;
+
+public record UsageSummary(
+        Long dbId,
+        LocalDate date,
+        long requests,
+        long promptTokens,
+        long completionTokens,
+        long cachedTokens,
+        long avgLatencyMs,
+        long maxLatencyMs
+) {
+}
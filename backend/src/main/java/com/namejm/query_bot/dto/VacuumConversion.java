@@ -0,0 +1,7 @@
+package com.namejm.query_bot.dto;
+
+public record VacuumConversion(
+        boolean converted,
+        long durationMs
+) {
+}
@@ -0,0 +1,19 @@
+package com.namejm.query_bot.llm;
+
+import java.util.List;
+
+/**
+ * Chat-completion provider used to turn a question into SQL.
+ */
+public interface LlmClient {
+
+    /**
+     * Whether the client has what it needs (e.g. an API key) to call its provider.
+     */
+    boolean isConfigured();
+
+    /**
+     * Sends the conversation, system message first, and returns the first choice.
+     */
+    LlmCompletion complete(List<LlmMessage> messages) throws Exception;
+}
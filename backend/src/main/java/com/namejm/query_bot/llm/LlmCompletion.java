@@ -0,0 +1,10 @@
+package com.namejm.query_bot.llm;
+
+public record LlmCompletion(
+        String content,
+        Integer promptTokens,
+        Integer completionTokens,
+        Integer cachedTokens,
+        Long latencyMs
+) {
+}
@@ -0,0 +1,7 @@
+package com.namejm.query_bot.llm;
+
+public record LlmMessage(
+        String role,
+        String content
+) {
+}
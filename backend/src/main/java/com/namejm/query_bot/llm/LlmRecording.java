@@ -0,0 +1,16 @@
+package com.namejm.query_bot.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One recorded completion, stored as a JSON line. {@code prompt} is the last user message of the request.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LlmRecording(
+        String prompt,
+        String content,
+        Integer promptTokens,
+        Integer completionTokens,
+        Integer cachedTokens
+) {
+}
@@ -0,0 +1,93 @@
+package com.namejm.query_bot.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * OpenAI-compatible {@code /chat/completions} client. Works against any server that speaks the same format, including
+ * {@link StubLlmServer}.
+ */
+public class OpenAiLlmClient implements LlmClient {
+    private static final Logger log = LoggerFactory.getLogger(OpenAiLlmClient.class);
+
+    private final RestClient restClient;
+    private final String apiKey;
+    private final String model;
+
+    public OpenAiLlmClient(String baseUrl, String apiKey, String model, Duration connectTimeout, Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+        this.apiKey = apiKey;
+        this.model = model;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    @Override
+    public LlmCompletion complete(List<LlmMessage> messages) {
+        long startedAt = System.nanoTime();
+        OpenAiResponse response = restClient.post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> headers.setBearerAuth(apiKey))
+                .body(new OpenAiRequest(model, messages))
+                .retrieve()
+                .body(OpenAiResponse.class);
+        long latencyMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        if (response == null || response.choices() == null || response.choices().isEmpty()) {
+            throw new IllegalStateException("AI 응답을 받지 못했습니다.");
+        }
+        Usage usage = response.usage();
+        Integer cachedTokens = usage != null && usage.promptTokensDetails() != null ? usage.promptTokensDetails().cachedTokens() : null;
+        log.debug("Completion latency={}ms promptTokens={} cachedTokens={}",
+                latencyMs, usage != null ? usage.promptTokens() : null, cachedTokens);
+        return new LlmCompletion(
+                response.choices().get(0).message().content(),
+                usage != null ? usage.promptTokens() : null,
+                usage != null ? usage.completionTokens() : null,
+                cachedTokens,
+                latencyMs
+        );
+    }
+
+    public record OpenAiRequest(String model, List<LlmMessage> messages) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record OpenAiResponse(@JsonProperty("choices") List<Choice> choices, @JsonProperty("usage") Usage usage) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(@JsonProperty("message") Message message) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Message(String content, String role) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(@JsonProperty("prompt_tokens") Integer promptTokens,
+                        @JsonProperty("completion_tokens") Integer completionTokens,
+                        @JsonProperty("prompt_tokens_details") PromptTokensDetails promptTokensDetails) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PromptTokensDetails(@JsonProperty("cached_tokens") Integer cachedTokens) {
+    }
+}
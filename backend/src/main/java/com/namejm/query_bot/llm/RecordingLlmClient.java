@@ -0,0 +1,54 @@
+package com.namejm.query_bot.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends every completion to a JSON-lines file that {@link StubLlmServer} can replay later.
+ */
+public class RecordingLlmClient implements LlmClient {
+    private static final Logger log = LoggerFactory.getLogger(RecordingLlmClient.class);
+
+    private final LlmClient delegate;
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public RecordingLlmClient(LlmClient delegate, Path file, ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+
+    @Override
+    public LlmCompletion complete(List<LlmMessage> messages) throws Exception {
+        LlmCompletion completion = delegate.complete(messages);
+        LlmRecording recording = new LlmRecording(
+                StubLlmServer.lastUserPrompt(messages),
+                completion.content(),
+                completion.promptTokens(),
+                completion.completionTokens(),
+                completion.cachedTokens()
+        );
+        try {
+            String line = objectMapper.writeValueAsString(recording) + "\n";
+            synchronized (this) {
+                Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to record completion to {}", file, ex);
+        }
+        return completion;
+    }
+}
@@ -0,0 +1,229 @@
+package com.namejm.query_bot.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embedded OpenAI-compatible server for load and regression tests. It answers {@code POST /v1/chat/completions} by
+ * replaying recordings (as written by {@link RecordingLlmClient}) instead of calling a real model:
+ * <ul>
+ *     <li>a recording whose prompt equals the last user message wins;</li>
+ *     <li>otherwise a recording is picked by hashing the last user message, so the same question always gets the same answer;</li>
+ *     <li>with no recordings, a fixed {@code SELECT 1} answer is returned.</li>
+ * </ul>
+ * Latency (fixed plus jitter) and error responses are injected from a seeded random source, so a run is reproducible
+ * for the same request order.
+ */
+public class StubLlmServer {
+    private static final Logger log = LoggerFactory.getLogger(StubLlmServer.class);
+    private static final LlmRecording DEFAULT_RECORDING = new LlmRecording(null, "SELECT 1", 100, 5, 0);
+
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private final Duration latency;
+    private final Duration latencyJitter;
+    private final double errorRate;
+    private final int errorStatus;
+    private final Random random;
+    private final List<LlmRecording> recordings = new ArrayList<>();
+    private final Map<String, LlmRecording> byPrompt = new HashMap<>();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubLlmServer(ObjectMapper objectMapper, int port, Path recordingsFile, Duration latency, Duration latencyJitter,
+                         double errorRate, int errorStatus, long seed) throws IOException {
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.latency = latency == null ? Duration.ZERO : latency;
+        this.latencyJitter = latencyJitter == null ? Duration.ZERO : latencyJitter;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.random = new Random(seed);
+        if (recordingsFile != null && Files.exists(recordingsFile)) {
+            loadRecordings(recordingsFile);
+        }
+    }
+
+    private void loadRecordings(Path file) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            LlmRecording recording = objectMapper.readValue(line, LlmRecording.class);
+            recordings.add(recording);
+            if (recording.prompt() != null) {
+                byPrompt.put(recording.prompt(), recording);
+            }
+        }
+        log.info("Loaded {} recorded completions from {}", recordings.size(), file);
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+        log.info("Stub LLM server listening on {}", baseUrl());
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        // Interrupt delayed requests first so they can still answer 503 before the connections are closed.
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(0);
+        server = null;
+        log.info("Stub LLM server stopped (served={}, failed={})", served.get(), failed.get());
+    }
+
+    /**
+     * Base URL to hand to {@link OpenAiLlmClient}; resolves the actual port when started with port 0.
+     */
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                serve(exchange);
+            } catch (InterruptedException ex) {
+                // Stopping the server interrupts delayed requests; answer them rather than leave the client waiting.
+                // The flag is restored afterwards, since the exchange's channel refuses writes from an interrupted thread.
+                try {
+                    respond(exchange, 503, Map.of("error", Map.of("message", "Stub server is stopping", "type", "stub_error")));
+                } finally {
+                    Thread.currentThread().interrupt();
+                }
+            } catch (IOException ex) {
+                log.debug("Stub LLM request failed", ex);
+                throw ex;
+            }
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException, InterruptedException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            respond(exchange, 405, Map.of("error", Map.of("message", "Method not allowed")));
+            return;
+        }
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+        long delayMs;
+        boolean fail;
+        synchronized (random) {
+            delayMs = latency.toMillis() + (latencyJitter.isZero() ? 0 : (long) (random.nextDouble() * latencyJitter.toMillis()));
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (delayMs > 0) {
+            Thread.sleep(delayMs);
+        }
+        if (fail) {
+            failed.incrementAndGet();
+            respond(exchange, errorStatus, Map.of("error", Map.of("message", "Injected failure", "type", "stub_error")));
+            return;
+        }
+        LlmRecording recording = select(lastUserMessage(request));
+        served.incrementAndGet();
+        respond(exchange, 200, completion(request, recording));
+    }
+
+    private LlmRecording select(String prompt) {
+        if (prompt != null && byPrompt.containsKey(prompt)) {
+            return byPrompt.get(prompt);
+        }
+        if (recordings.isEmpty()) {
+            return DEFAULT_RECORDING;
+        }
+        int hash = prompt == null ? 0 : prompt.hashCode();
+        return recordings.get(Math.floorMod(hash, recordings.size()));
+    }
+
+    private Map<String, Object> completion(JsonNode request, LlmRecording recording) {
+        int promptTokens = recording.promptTokens() != null ? recording.promptTokens() : 0;
+        int completionTokens = recording.completionTokens() != null ? recording.completionTokens() : 0;
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        usage.put("prompt_tokens_details", Map.of("cached_tokens", recording.cachedTokens() != null ? recording.cachedTokens() : 0));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", "stub-" + served.get());
+        response.put("object", "chat.completion");
+        response.put("model", request.path("model").asText("stub"));
+        response.put("choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", recording.content()),
+                "finish_reason", "stop"
+        )));
+        response.put("usage", usage);
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String lastUserMessage(JsonNode request) {
+        String last = null;
+        for (JsonNode message : request.path("messages")) {
+            if ("user".equals(message.path("role").asText())) {
+                last = message.path("content").asText();
+            }
+        }
+        return last;
+    }
+
+    static String lastUserPrompt(List<LlmMessage> messages) {
+        String last = null;
+        for (LlmMessage message : messages) {
+            if ("user".equals(message.role())) {
+                last = message.content();
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,50 @@
+package com.namejm.query_bot.model;
+
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.dto.DbSummary;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a registered database's connection settings, handed out by the database registry. Does not carry
+ * the collected schema.
+ */
+public record DatabaseSnapshot(
+        Long id,
+        String name,
+        DatabaseType dbType,
+        String host,
+        Integer port,
+        String databaseName,
+        String username,
+        String password,
+        boolean schemaReady,
+        LocalDateTime schemaUpdatedAt,
+        boolean speculativeExecution
+) {
+    public static DatabaseSnapshot of(DatabaseConnection connection) {
+        return new DatabaseSnapshot(
+                connection.getId(),
+                connection.getName(),
+                connection.getDbType(),
+                connection.getHost(),
+                connection.getPort(),
+                connection.getDatabaseName(),
+                connection.getUsername(),
+                connection.getPassword(),
+                connection.isSchemaReady(),
+                connection.getSchemaUpdatedAt(),
+                connection.isSpeculativeExecution()
+        );
+    }
+
+    public DbSummary toSummary() {
+        return new DbSummary(id, name, dbType, host, port, databaseName, schemaReady, speculativeExecution);
+    }
+
+    @Override
+    public String toString() {
+        // Keeps the password out of logs.
+        return "DatabaseSnapshot[id=" + id + ", name=" + name + ", dbType=" + dbType + ", host=" + host + ", port=" + port
+                + ", databaseName=" + databaseName + "]";
+    }
+}
@@ -0,0 +1,7 @@
+package com.namejm.query_bot.model;
+
+public enum JobRunStatus {
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
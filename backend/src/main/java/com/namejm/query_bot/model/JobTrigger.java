@@ -0,0 +1,6 @@
+package com.namejm.query_bot.model;
+
+public enum JobTrigger {
+    SCHEDULED,
+    MANUAL
+}
@@ -0,0 +1,9 @@
+package com.namejm.query_bot.model;
+
+public enum MetabaseJobStatus {
+    PENDING,
+    DONE,
+    FAILED,
+    // A newer request for the same session was published instead.
+    SUPERSEDED
+}
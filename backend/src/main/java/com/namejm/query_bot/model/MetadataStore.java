@@ -0,0 +1,15 @@
+package com.namejm.query_bot.model;
+
+/**
+ * Where the app's own data (sessions, messages, registered databases, admin users) is kept.
+ */
+public enum MetadataStore {
+    /**
+     * Local SQLite file; one backend instance only.
+     */
+    SQLITE,
+    /**
+     * Shared server database (PostgreSQL) configured through {@code spring.datasource}; several instances may run.
+     */
+    SERVER
+}
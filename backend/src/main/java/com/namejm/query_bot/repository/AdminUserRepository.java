@@ -3,7 +3,10 @@ package com.namejm.query_bot.repository;
 import com.namejm.query_bot.domain.AdminUser;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
+// Looked up on every authenticated request; read-only so it is served by the SQLite read pool.
+@Transactional(readOnly = true)
 public interface AdminUserRepository extends JpaRepository<AdminUser, Long> {
     Optional<AdminUser> findByUsername(String username);
     boolean existsByUsername(String username);
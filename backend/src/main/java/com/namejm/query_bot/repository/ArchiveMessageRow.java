@@ -0,0 +1,25 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.model.MessageRole;
+import java.time.LocalDateTime;
+
+/**
+ * Everything the archive keeps of a message.
+ */
+public interface ArchiveMessageRow {
+    Long getSessionId();
+
+    MessageRole getRole();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+
+    Integer getPromptTokens();
+
+    Integer getCompletionTokens();
+
+    Integer getCachedTokens();
+
+    Long getLatencyMs();
+}
@@ -0,0 +1,20 @@
+package com.namejm.query_bot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything the archive keeps of a session, without loading its database connection.
+ */
+public interface ArchiveSessionRow {
+    Long getId();
+
+    Long getDbId();
+
+    String getTitle();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getLastQuestionAt();
+
+    Long getMetabaseCardId();
+}
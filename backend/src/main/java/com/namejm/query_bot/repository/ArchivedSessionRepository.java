@@ -0,0 +1,16 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.ArchivedSession;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ArchivedSessionRepository extends JpaRepository<ArchivedSession, Long> {
+    List<ArchivedSession> findByDatabaseConnectionIdOrderByLastQuestionAtDesc(Long databaseConnectionId);
+
+    @Modifying
+    @Query("delete from ArchivedSession a where a.databaseConnectionId = :databaseConnectionId")
+    int deleteByDatabaseConnectionId(@Param("databaseConnectionId") Long databaseConnectionId);
+}
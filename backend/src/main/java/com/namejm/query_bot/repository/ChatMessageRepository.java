@@ -2,11 +2,74 @@ package com.namejm.query_bot.repository;
 
 import com.namejm.query_bot.domain.ChatMessage;
 import com.namejm.query_bot.domain.ChatSession;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+@Transactional(readOnly = true)
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findBySessionOrderByCreatedAtAsc(ChatSession session);
+    List<ChatMessage> findBySessionAndIdGreaterThanOrderByCreatedAtAsc(ChatSession session, Long id);
+    @Transactional
     void deleteAllBySession(ChatSession session);
-    void deleteAllBySessionIn(List<ChatSession> sessions);
+
+    @Query("""
+            select m.session.id as sessionId, m.role as role, m.content as content, m.createdAt as createdAt,
+                   m.promptTokens as promptTokens, m.completionTokens as completionTokens,
+                   m.cachedTokens as cachedTokens, m.latencyMs as latencyMs
+            from ChatMessage m
+            where m.session.id in :sessionIds
+            order by m.createdAt, m.id
+            """)
+    List<ArchiveMessageRow> findArchiveRows(@Param("sessionIds") Collection<Long> sessionIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChatMessage m where m.session.id in :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    // Only messages of sessions that are still expired; see ChatSessionRepository#lockExpired.
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from ChatMessage m
+            where m.session.id in (
+                select s.id from ChatSession s
+                where s.id in :sessionIds
+                  and (s.lastQuestionAt < :cutoff or (s.lastQuestionAt is null and s.createdAt < :cutoff)))
+            """)
+    int deleteByExpiredSessionIds(@Param("sessionIds") Collection<Long> sessionIds, @Param("cutoff") LocalDateTime cutoff);
+
+    // Keyset pages, newest first: (createdAt, id) strictly before the cursor message. Served by idx_chat_messages_session_created.
+    @Query("""
+            select m.id as id, m.role as role, m.content as content, m.createdAt as createdAt
+            from ChatMessage m
+            where m.session.id = :sessionId
+            order by m.createdAt desc, m.id desc
+            """)
+    List<MessageView> findLatestPage(@Param("sessionId") Long sessionId, Pageable pageable);
+
+    @Query("""
+            select m.id as id, m.role as role, m.content as content, m.createdAt as createdAt
+            from ChatMessage m, ChatMessage c
+            where c.id = :cursor and m.session.id = :sessionId
+              and (m.createdAt < c.createdAt or (m.createdAt = c.createdAt and m.id < c.id))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<MessageView> findPageBefore(@Param("sessionId") Long sessionId, @Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("""
+            select s.databaseConnection.id as dbId, s.id as sessionId, m.createdAt as createdAt,
+                   m.promptTokens as promptTokens, m.completionTokens as completionTokens,
+                   m.cachedTokens as cachedTokens, m.latencyMs as latencyMs
+            from ChatMessage m join m.session s
+            where m.promptTokens is not null and s.id = :sessionId
+            """)
+    List<UsageRow> findUsageBySession(@Param("sessionId") Long sessionId);
 }
@@ -1,18 +1,101 @@
 package com.namejm.query_bot.repository;
 
 import com.namejm.query_bot.domain.ChatSession;
-import com.namejm.query_bot.domain.DatabaseConnection;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+@Transactional(readOnly = true)
 public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
-    List<ChatSession> findByDatabaseConnection(DatabaseConnection databaseConnection);
-    Optional<ChatSession> findFirstByDatabaseConnectionOrderByCreatedAtDesc(DatabaseConnection databaseConnection);
-    List<ChatSession> findByDatabaseConnectionOrderByCreatedAtDesc(DatabaseConnection databaseConnection);
-    List<ChatSession> findByLastQuestionAtBeforeOrLastQuestionAtIsNullAndCreatedAtBefore(
-            LocalDateTime lastQuestionCutoff,
-            LocalDateTime createdAtCutoff
-    );
+    Optional<ChatSession> findFirstByDatabaseConnectionIdOrderByCreatedAtDesc(Long databaseConnectionId);
+
+    @Query("""
+            select s.id as id, s.title as title, s.createdAt as createdAt, s.metabaseCardId as metabaseCardId
+            from ChatSession s
+            where s.databaseConnection.id = :dbId
+            order by s.createdAt desc, s.id desc
+            """)
+    List<SessionView> findViews(@Param("dbId") Long dbId);
+
+    @Query("select s.id from ChatSession s where s.databaseConnection.id = :dbId")
+    List<Long> findIdsByDatabaseId(@Param("dbId") Long dbId);
+
+    // Keyset pages, newest first. Served by idx_chat_sessions_db_created.
+    @Query("""
+            select s.id as id, s.title as title, s.createdAt as createdAt, s.metabaseCardId as metabaseCardId
+            from ChatSession s
+            where s.databaseConnection.id = :dbId
+            order by s.createdAt desc, s.id desc
+            """)
+    List<SessionView> findLatestPage(@Param("dbId") Long dbId, Pageable pageable);
+
+    @Query("""
+            select s.id as id, s.title as title, s.createdAt as createdAt, s.metabaseCardId as metabaseCardId
+            from ChatSession s, ChatSession c
+            where c.id = :cursor and s.databaseConnection.id = :dbId
+              and (s.createdAt < c.createdAt or (s.createdAt = c.createdAt and s.id < c.id))
+            order by s.createdAt desc, s.id desc
+            """)
+    List<SessionView> findPageBefore(@Param("dbId") Long dbId, @Param("cursor") Long cursor, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ChatSession s set s.metabaseCardId = null where s.id = :id")
+    void clearMetabaseCardId(@Param("id") Long id);
+
+    @Query("select distinct s.metabaseCardId from ChatSession s where s.metabaseCardId is not null")
+    List<Long> findReferencedMetabaseCardIds();
+
+    @Transactional
+    @Modifying
+    @Query("update ChatSession s set s.metabaseCardId = null where s.metabaseCardId in :cardIds")
+    void clearMetabaseCardIds(@Param("cardIds") Collection<Long> cardIds);
+
+    // Sessions idle since before the cutoff; sessions that never got a question age from their creation time.
+    @Query("""
+            select s.id from ChatSession s
+            where s.lastQuestionAt < :cutoff or (s.lastQuestionAt is null and s.createdAt < :cutoff)
+            order by s.id
+            """)
+    List<Long> findExpiredIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("""
+            select s.id as id, s.databaseConnection.id as dbId, s.title as title, s.createdAt as createdAt,
+                   s.lastQuestionAt as lastQuestionAt, s.metabaseCardId as metabaseCardId
+            from ChatSession s
+            where s.id in :ids
+            order by s.id
+            """)
+    List<ArchiveSessionRow> findArchiveRows(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChatSession s where s.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Retention re-checks expiry inside its delete transaction: the ids were listed earlier, and a session that got a
+    // question since then must survive. The row lock makes a concurrent question on a server database wait for the delete.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select s from ChatSession s
+            where s.id in :ids and (s.lastQuestionAt < :cutoff or (s.lastQuestionAt is null and s.createdAt < :cutoff))
+            """)
+    List<ChatSession> lockExpired(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from ChatSession s
+            where s.id in :ids and (s.lastQuestionAt < :cutoff or (s.lastQuestionAt is null and s.createdAt < :cutoff))
+            """)
+    int deleteExpiredByIds(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
 }
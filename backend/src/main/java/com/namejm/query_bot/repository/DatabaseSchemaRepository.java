@@ -0,0 +1,14 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.DatabaseSchema;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional(readOnly = true)
+public interface DatabaseSchemaRepository extends JpaRepository<DatabaseSchema, Long> {
+    @Query("select s.schemaJson from DatabaseSchema s where s.databaseConnectionId = :dbId")
+    Optional<String> findSchemaJson(@Param("dbId") Long dbId);
+}
@@ -0,0 +1,27 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.JobLock;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    // A single conditional update, so of several instances racing for an expired lock exactly one sees 1 row updated.
+    @Modifying
+    @Query("""
+            update JobLock l set l.lockedBy = :owner, l.lockedUntil = :until, l.lockedAt = :now
+            where l.name = :name and l.lockedUntil < :now
+            """)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update JobLock l set l.lockedUntil = :until where l.name = :name and l.lockedBy = :owner")
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update JobLock l set l.lockedUntil = :now where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,31 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.JobRun;
+import com.namejm.query_bot.model.JobRunStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+    List<JobRun> findByJobNameOrderByStartedAtDescIdDesc(String jobName, Pageable pageable);
+
+    Optional<JobRun> findFirstByJobNameOrderByStartedAtDescIdDesc(String jobName);
+
+    // Called by the new lock holder: a run still marked RUNNING belonged to an instance whose lease expired.
+    @Modifying
+    @Query("""
+            update JobRun r set r.status = :failed, r.finishedAt = :now, r.message = :message
+            where r.jobName = :jobName and r.status = :running
+            """)
+    int failAbandoned(@Param("jobName") String jobName, @Param("running") JobRunStatus running,
+                      @Param("failed") JobRunStatus failed, @Param("now") LocalDateTime now, @Param("message") String message);
+
+    @Modifying
+    @Query("delete from JobRun r where r.startedAt < :cutoff and r.status <> :running")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("running") JobRunStatus running);
+}
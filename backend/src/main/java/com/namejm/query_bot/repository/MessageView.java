@@ -0,0 +1,17 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.model.MessageRole;
+import java.time.LocalDateTime;
+
+/**
+ * Columns needed to render a message, without loading the session it belongs to.
+ */
+public interface MessageView {
+    Long getId();
+
+    MessageRole getRole();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,52 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.MetabaseOutboxEntry;
+import com.namejm.query_bot.model.MetabaseJobStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface MetabaseOutboxRepository extends JpaRepository<MetabaseOutboxEntry, Long> {
+    Optional<MetabaseOutboxEntry> findByIdempotencyKey(String idempotencyKey);
+
+    Optional<MetabaseOutboxEntry> findFirstBySessionIdAndStatusOrderByIdDesc(Long sessionId, MetabaseJobStatus status);
+
+    List<MetabaseOutboxEntry> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MetabaseJobStatus status, LocalDateTime now,
+                                                                                  Pageable pageable);
+
+    List<MetabaseOutboxEntry> findBySessionIdAndStatusAndIdLessThan(Long sessionId, MetabaseJobStatus status, Long id);
+
+    // Pushes the entry's next attempt past the lease only if it is still due, so exactly one worker (on any instance)
+    // gets to send it.
+    @Modifying
+    @Query("""
+            update MetabaseOutboxEntry e set e.nextAttemptAt = :leaseUntil
+            where e.id = :id and e.status = :pending and e.nextAttemptAt <= :now
+            """)
+    int claim(@Param("id") Long id, @Param("pending") MetabaseJobStatus pending, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("delete from MetabaseOutboxEntry e where e.sessionId in :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    @Modifying
+    @Query("""
+            delete from MetabaseOutboxEntry e
+            where e.sessionId in (
+                select s.id from ChatSession s
+                where s.id in :sessionIds
+                  and (s.lastQuestionAt < :cutoff or (s.lastQuestionAt is null and s.createdAt < :cutoff)))
+            """)
+    int deleteByExpiredSessionIds(@Param("sessionIds") Collection<Long> sessionIds, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from MetabaseOutboxEntry e where e.status <> :pending and e.updatedAt < :cutoff")
+    int deleteFinishedBefore(@Param("pending") MetabaseJobStatus pending, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,24 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.QuestionCacheEntry;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface QuestionCacheEntryRepository extends JpaRepository<QuestionCacheEntry, Long> {
+    List<QuestionCacheEntry> findByDatabaseConnectionId(Long databaseConnectionId);
+
+    @Modifying
+    @Query("update QuestionCacheEntry e set e.hitCount = e.hitCount + 1 where e.id = :id")
+    void incrementHitCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("update QuestionCacheEntry e set e.accepted = true where e.id in :ids")
+    void markAccepted(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("delete from QuestionCacheEntry e where e.databaseConnectionId = :databaseConnectionId")
+    void deleteByDatabaseConnectionId(@Param("databaseConnectionId") Long databaseConnectionId);
+}
@@ -0,0 +1,16 @@
+package com.namejm.query_bot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Session list row; skips the system prompt hash and the database connection.
+ */
+public interface SessionView {
+    Long getId();
+
+    String getTitle();
+
+    LocalDateTime getCreatedAt();
+
+    Long getMetabaseCardId();
+}
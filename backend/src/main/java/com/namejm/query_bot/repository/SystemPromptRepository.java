@@ -0,0 +1,24 @@
+package com.namejm.query_bot.repository;
+
+import com.namejm.query_bot.domain.SystemPrompt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SystemPromptRepository extends JpaRepository<SystemPrompt, String> {
+
+    // Content-addressed: an existing row with the same hash already holds the same content. The hash is the only unique
+    // key, so no conflict target is named; that form is also the one H2's PostgreSQL mode understands.
+    @Modifying
+    @Query(value = "insert into system_prompts (hash, content) values (:hash, :content) on conflict do nothing",
+            nativeQuery = true)
+    void insertIfAbsent(@Param("hash") String hash, @Param("content") String content);
+
+    @Modifying
+    @Query("""
+            delete from SystemPrompt p
+            where p.hash not in (select s.systemPromptHash from ChatSession s where s.systemPromptHash is not null)
+            """)
+    int deleteUnreferenced();
+}
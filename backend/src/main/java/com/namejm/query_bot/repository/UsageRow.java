@@ -0,0 +1,22 @@
+package com.namejm.query_bot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the usage columns of an assistant message, used for cost and latency aggregation.
+ */
+public interface UsageRow {
+    Long getDbId();
+
+    Long getSessionId();
+
+    LocalDateTime getCreatedAt();
+
+    Integer getPromptTokens();
+
+    Integer getCompletionTokens();
+
+    Integer getCachedTokens();
+
+    Long getLatencyMs();
+}
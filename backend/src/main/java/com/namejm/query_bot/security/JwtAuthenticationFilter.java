@@ -1,7 +1,9 @@
 package com.namejm.query_bot.security;
 
+import com.namejm.query_bot.domain.AdminUser;
 import com.namejm.query_bot.repository.AdminUserRepository;
 import com.namejm.query_bot.service.TokenService;
+import com.namejm.query_bot.service.TokenService.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,17 +24,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final List<String> EXCLUDED_PATHS = List.of(
             "/api/auth/**",
             "/api/init/**",
-            "/api/db/test",
-            "/actuator/health"
+            "/actuator/health",
+            "/actuator/prometheus"
     );
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     private final TokenService tokenService;
     private final AdminUserRepository adminUserRepository;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(TokenService tokenService, AdminUserRepository adminUserRepository) {
+    public JwtAuthenticationFilter(TokenService tokenService, AdminUserRepository adminUserRepository,
+                                   PrincipalCache principalCache) {
         this.tokenService = tokenService;
         this.adminUserRepository = adminUserRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -40,10 +45,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String header = request.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            Optional<String> username = tokenService.parseUsername(token);
-            username.flatMap(adminUserRepository::findByUsername).ifPresent(user -> {
+            resolveUsername(token).ifPresent(username -> {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        user.getUsername(),
+                        username,
                         null,
                         List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
                 );
@@ -53,6 +57,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private Optional<String> resolveUsername(String token) {
+        Optional<String> cached = principalCache.get(token);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = principalCache.generation();
+        Optional<VerifiedToken> verified = tokenService.verify(token);
+        Optional<String> username = verified
+                .flatMap(claims -> adminUserRepository.findByUsername(claims.username()))
+                .map(AdminUser::getUsername);
+        username.ifPresent(name -> principalCache.put(token, name, verified.get().expiresAt(), generation));
+        return username;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
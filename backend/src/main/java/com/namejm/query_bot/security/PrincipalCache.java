@@ -0,0 +1,80 @@
+package com.namejm.query_bot.security;
+
+import com.namejm.query_bot.config.AppProperties;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recently verified bearer tokens and the admin they belong to, so most authenticated requests need neither a signature
+ * check nor a lookup in {@code admin_users}. An entry lives for at most {@code app.security.principal-cache-ttl} and
+ * never past the token's own expiry. Any change to the admin accounts drops the whole cache; on other instances the
+ * change is seen once the TTL runs out.
+ */
+@Component
+public class PrincipalCache {
+
+    private final AppProperties appProperties;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > Math.max(1, appProperties.getSecurity().getPrincipalCacheSize());
+        }
+    };
+    private long generation;
+
+    public PrincipalCache(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    public Optional<String> get(String token) {
+        synchronized (entries) {
+            Entry entry = entries.get(token);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.expiresAt().isBefore(Instant.now())) {
+                entries.remove(token);
+                return Optional.empty();
+            }
+            return Optional.of(entry.username());
+        }
+    }
+
+    /**
+     * Token taken before the admin lookup; a {@link #put} made with it after an {@link #invalidate} is ignored, so a
+     * lookup that raced with the change cannot bring back the old state.
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    public void put(String token, String username, Instant tokenExpiresAt, long loadedAt) {
+        if (appProperties.getSecurity().getPrincipalCacheTtl().isZero()) {
+            return;
+        }
+        Instant expiresAt = Instant.now().plus(appProperties.getSecurity().getPrincipalCacheTtl());
+        if (tokenExpiresAt != null && tokenExpiresAt.isBefore(expiresAt)) {
+            expiresAt = tokenExpiresAt;
+        }
+        synchronized (entries) {
+            if (loadedAt == generation) {
+                entries.put(token, new Entry(username, expiresAt));
+            }
+        }
+    }
+
+    public void invalidate() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    private record Entry(String username, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.namejm.query_bot.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.config.AppProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Token-bucket limits for expensive endpoints ({@code app.rate-limit.rules}). A matching request takes one token from
+ * its client address's bucket and, when signed in, one from the user's bucket; if either is empty it is answered with
+ * 429 without reaching the controller. Buckets are kept in memory, so each instance enforces the limits on its own.
+ * <p>
+ * Limited responses carry {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} (seconds
+ * until the bucket is full again) for the tighter of the two buckets; rejected ones also carry {@code Retry-After}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final AppProperties appProperties;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(AppProperties appProperties, ObjectMapper objectMapper) {
+        this.appProperties = appProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Map.Entry<String, AppProperties.RateLimit.Rule> rule = match(request);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AppProperties.RateLimit.Rule limits = rule.getValue();
+        int ipCapacity = limits.getIpCapacity() > 0 ? limits.getIpCapacity() : limits.getCapacity();
+        long now = System.nanoTime();
+
+        Bucket addressBucket = bucket(rule.getKey() + "|ip:" + request.getRemoteAddr(), ipCapacity, limits.getPeriod(), now);
+        Probe probe = addressBucket.tryConsume(now);
+        String user = currentUser();
+        if (probe.allowed() && user != null) {
+            Probe byUser = bucket(rule.getKey() + "|user:" + user, limits.getCapacity(), limits.getPeriod(), now).tryConsume(now);
+            if (!byUser.allowed()) {
+                addressBucket.refund();
+                probe = byUser;
+            } else if (byUser.remaining() < probe.remaining()) {
+                probe = byUser;
+            }
+        }
+
+        response.setHeader("RateLimit-Limit", String.valueOf(probe.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(probe.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(seconds(probe.nanosUntilFull())));
+        if (probe.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long retryAfter = Math.max(1, seconds(probe.nanosUntilNext()));
+        log.debug("Rate limit {} exceeded by user={} address={}", rule.getKey(), user, request.getRemoteAddr());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "message", "요청이 너무 많습니다. " + retryAfter + "초 후 다시 시도해주세요.",
+                "retryAfter", retryAfter
+        ));
+    }
+
+    private Map.Entry<String, AppProperties.RateLimit.Rule> match(HttpServletRequest request) {
+        AppProperties.RateLimit config = appProperties.getRateLimit();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        String path = request.getRequestURI();
+        for (Map.Entry<String, AppProperties.RateLimit.Rule> entry : config.getRules().entrySet()) {
+            AppProperties.RateLimit.Rule rule = entry.getValue();
+            if (rule.getCapacity() <= 0 || rule.getPath() == null) {
+                continue;
+            }
+            boolean methodMatches = rule.getMethod() == null || rule.getMethod().isBlank()
+                    || rule.getMethod().equalsIgnoreCase(request.getMethod());
+            if (methodMatches && pathMatcher.match(rule.getPath(), path)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private Bucket bucket(String key, int capacity, Duration period, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= appProperties.getRateLimit().getMaxBuckets()) {
+            // A full bucket behaves exactly like a missing one, so dropping those loses nothing.
+            buckets.values().removeIf(candidate -> candidate.isFull(now));
+            if (buckets.size() >= appProperties.getRateLimit().getMaxBuckets()) {
+                log.warn("Rate limit buckets exceeded {} active entries; resetting", buckets.size());
+                buckets.clear();
+            }
+        }
+        return buckets.computeIfAbsent(key, ignored -> new Bucket(capacity, period, now));
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private record Probe(boolean allowed, int limit, int remaining, long nanosUntilNext, long nanosUntilFull) {
+    }
+
+    /**
+     * Refills continuously at {@code capacity} tokens per period, up to {@code capacity}.
+     */
+    private static final class Bucket {
+        private final int capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, Duration period, long now) {
+            this.capacity = capacity;
+            this.nanosPerToken = (double) Math.max(1, period.toNanos()) / capacity;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized Probe tryConsume(long now) {
+            refill(now);
+            boolean allowed = tokens >= 1;
+            if (allowed) {
+                tokens -= 1;
+            }
+            long untilNext = allowed ? 0 : (long) ((1 - tokens) * nanosPerToken);
+            long untilFull = (long) ((capacity - tokens) * nanosPerToken);
+            return new Probe(allowed, capacity, (int) tokens, untilNext, untilFull);
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) / nanosPerToken);
+                refilledAt = now;
+            }
+        }
+    }
+}
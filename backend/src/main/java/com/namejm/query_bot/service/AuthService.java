@@ -3,6 +3,7 @@ package com.namejm.query_bot.service;
 import com.namejm.query_bot.domain.AdminUser;
 import com.namejm.query_bot.dto.AuthResponse;
 import com.namejm.query_bot.repository.AdminUserRepository;
+import com.namejm.query_bot.security.PrincipalCache;
 import java.util.Optional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,11 +14,14 @@ public class AuthService {
     private final AdminUserRepository adminUserRepository;
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
+    private final PrincipalCache principalCache;
 
-    public AuthService(AdminUserRepository adminUserRepository, PasswordEncoder passwordEncoder, TokenService tokenService) {
+    public AuthService(AdminUserRepository adminUserRepository, PasswordEncoder passwordEncoder, TokenService tokenService,
+                       PrincipalCache principalCache) {
         this.adminUserRepository = adminUserRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
+        this.principalCache = principalCache;
     }
 
     public boolean hasAdmin() {
@@ -31,7 +35,9 @@ public class AuthService {
         AdminUser admin = new AdminUser();
         admin.setUsername(username);
         admin.setPasswordHash(passwordEncoder.encode(password));
-        return adminUserRepository.save(admin);
+        AdminUser saved = adminUserRepository.save(admin);
+        principalCache.invalidate();
+        return saved;
     }
 
     public Optional<AuthResponse> login(String username, String password) {
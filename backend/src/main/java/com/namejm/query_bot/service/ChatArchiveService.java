@@ -0,0 +1,267 @@
+package com.namejm.query_bot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.ArchivedSession;
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.dto.ArchivedSessionSummary;
+import com.namejm.query_bot.dto.ChatSessionSummary;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.model.MessageRole;
+import com.namejm.query_bot.model.RetentionMode;
+import com.namejm.query_bot.repository.ArchiveMessageRow;
+import com.namejm.query_bot.repository.ArchiveSessionRow;
+import com.namejm.query_bot.repository.ArchivedSessionRepository;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cold storage for old sessions. Each archived session is one gzip member (JSON of the session and its messages)
+ * appended to a monthly {@code sessions-yyyy-MM.jsonl.gz} file; {@code archived_sessions} records the file, offset and
+ * length so a single session can be read back without scanning. Files are only ever appended to.
+ * <p>
+ * The file is written and synced before the hot rows are deleted, so a crash in between leaves the session in place and
+ * at worst some unreferenced bytes in the archive.
+ * <p>
+ * With a shared metadata store any instance may archive or restore a session, so the archive directory has to be
+ * storage they all see; archiving refuses to start there unless it is configured explicitly.
+ */
+@Service
+public class ChatArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(ChatArchiveService.class);
+    private static final DateTimeFormatter FILE_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final MetabaseOutboxRepository metabaseOutboxRepository;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final DatabaseService databaseService;
+    private final DatabaseRegistry databaseRegistry;
+    private final MetabaseService metabaseService;
+    private final AppProperties appProperties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChatArchiveService(ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository,
+                              MetabaseOutboxRepository metabaseOutboxRepository, ArchivedSessionRepository archivedSessionRepository,
+                              DatabaseService databaseService, DatabaseRegistry databaseRegistry, MetabaseService metabaseService, AppProperties appProperties,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.metabaseOutboxRepository = metabaseOutboxRepository;
+        this.archivedSessionRepository = archivedSessionRepository;
+        this.databaseService = databaseService;
+        this.databaseRegistry = databaseRegistry;
+        this.metabaseService = metabaseService;
+        this.appProperties = appProperties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AppProperties.Retention retention = appProperties.getRetention();
+        if (!appProperties.isSqlite() && retention.getMode() == RetentionMode.ARCHIVE
+                && (retention.getArchiveDir() == null || retention.getArchiveDir().isBlank())) {
+            // The hot rows are gone once archived; an archive on one node's local disk is unreadable from the others.
+            throw new IllegalStateException("app.retention.archive-dir must be set to a location shared by all instances "
+                    + "when archiving with a shared metadata store");
+        }
+    }
+
+    /**
+     * Moves the sessions and their messages to the archive and removes them from the hot tables. Sessions that got a
+     * question after {@code cutoff} while the archive was being written stay hot; their archive member is left unindexed.
+     *
+     * @return removed {messages, outbox entries, sessions}, in the order the delete-mode cleanup reports them
+     */
+    public int[] archive(List<Long> sessionIds, LocalDateTime cutoff) throws IOException {
+        List<ArchiveSessionRow> sessions = chatSessionRepository.findArchiveRows(sessionIds);
+        Map<Long, List<ArchiveMessageRow>> messagesBySession = chatMessageRepository.findArchiveRows(sessionIds).stream()
+                .collect(Collectors.groupingBy(ArchiveMessageRow::getSessionId, LinkedHashMap::new, Collectors.toList()));
+
+        Path dir = archiveDir();
+        Files.createDirectories(dir);
+        String fileName = "sessions-" + LocalDate.now().format(FILE_MONTH) + ".jsonl.gz";
+        List<ArchivedSession> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(dir.resolve(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (ArchiveSessionRow session : sessions) {
+                List<ArchiveMessageRow> messages = messagesBySession.getOrDefault(session.getId(), List.of());
+                byte[] member = compress(toRecord(session, messages));
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(member);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                ArchivedSession entry = new ArchivedSession();
+                entry.setSessionId(session.getId());
+                entry.setDatabaseConnectionId(session.getDbId());
+                entry.setTitle(session.getTitle());
+                entry.setCreatedAt(session.getCreatedAt());
+                entry.setLastQuestionAt(session.getLastQuestionAt());
+                entry.setMessageCount(messages.size());
+                entry.setArchiveFile(fileName);
+                entry.setArchiveOffset(offset);
+                entry.setArchiveLength(member.length);
+                entries.add(entry);
+            }
+            channel.force(true);
+        }
+
+        return transactionTemplate.execute(status -> {
+            Set<Long> expired = chatSessionRepository.lockExpired(sessionIds, cutoff).stream()
+                    .map(ChatSession::getId)
+                    .collect(Collectors.toSet());
+            if (expired.isEmpty()) {
+                return new int[3];
+            }
+            archivedSessionRepository.saveAll(entries.stream()
+                    .filter(entry -> expired.contains(entry.getSessionId()))
+                    .toList());
+            return new int[]{
+                    chatMessageRepository.deleteByExpiredSessionIds(expired, cutoff),
+                    metabaseOutboxRepository.deleteByExpiredSessionIds(expired, cutoff),
+                    chatSessionRepository.deleteExpiredByIds(expired, cutoff)
+            };
+        });
+    }
+
+    public List<ArchivedSessionSummary> list(Long dbId) {
+        return archivedSessionRepository.findByDatabaseConnectionIdOrderByLastQuestionAtDesc(dbId).stream()
+                .map(entry -> new ArchivedSessionSummary(
+                        entry.getId(),
+                        entry.getSessionId(),
+                        entry.getDatabaseConnectionId(),
+                        entry.getTitle(),
+                        entry.getCreatedAt(),
+                        entry.getLastQuestionAt(),
+                        entry.getMessageCount(),
+                        entry.getArchivedAt()
+                ))
+                .toList();
+    }
+
+    /**
+     * Brings an archived session back into the hot tables under a new id. Its last activity is reset to now so the
+     * next retention run does not archive it again straight away.
+     */
+    public ChatSessionSummary restore(Long archiveId) throws IOException {
+        ArchivedSession entry = archivedSessionRepository.findById(archiveId)
+                .orElseThrow(() -> new IllegalArgumentException("보관된 세션을 찾을 수 없습니다."));
+        ArchivedRecord record = read(entry);
+        DatabaseSnapshot database = databaseRegistry.require(record.dbId());
+
+        ChatSession restored = transactionTemplate.execute(status -> {
+            ChatSession session = new ChatSession();
+            session.setDatabaseConnection(databaseService.reference(database.id()));
+            session.setTitle(record.title());
+            session.setCreatedAt(record.createdAt());
+            session.setLastQuestionAt(LocalDateTime.now());
+            session.setMetabaseCardId(record.metabaseCardId());
+            chatSessionRepository.save(session);
+
+            List<ChatMessage> messages = new ArrayList<>();
+            for (ArchivedMessage archived : record.messages()) {
+                ChatMessage message = new ChatMessage();
+                message.setSession(session);
+                message.setRole(archived.role());
+                message.setContent(archived.content());
+                message.setCreatedAt(archived.createdAt());
+                message.setPromptTokens(archived.promptTokens());
+                message.setCompletionTokens(archived.completionTokens());
+                message.setCachedTokens(archived.cachedTokens());
+                message.setLatencyMs(archived.latencyMs());
+                messages.add(message);
+            }
+            chatMessageRepository.saveAll(messages);
+            archivedSessionRepository.delete(entry);
+            return session;
+        });
+        log.info("Restored archived session {} as session {}", entry.getSessionId(), restored.getId());
+        return new ChatSessionSummary(restored.getId(), database.id(), restored.getTitle(), restored.getCreatedAt(),
+                restored.getMetabaseCardId(), metabaseService.buildCardUrl(restored.getMetabaseCardId()));
+    }
+
+    private ArchivedRecord read(ArchivedSession entry) throws IOException {
+        Path file = archiveDir().resolve(entry.getArchiveFile());
+        ByteBuffer buffer = ByteBuffer.allocate(entry.getArchiveLength());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = entry.getArchiveOffset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Archive " + file + " ends before session " + entry.getSessionId());
+                }
+                position += read;
+            }
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(buffer.array()))) {
+            return objectMapper.readValue(in, ArchivedRecord.class);
+        }
+    }
+
+    private byte[] compress(ArchivedRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(objectMapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ArchivedRecord toRecord(ArchiveSessionRow session, List<ArchiveMessageRow> messages) {
+        return new ArchivedRecord(
+                session.getId(),
+                session.getDbId(),
+                session.getTitle(),
+                session.getCreatedAt(),
+                session.getLastQuestionAt(),
+                session.getMetabaseCardId(),
+                messages.stream()
+                        .map(row -> new ArchivedMessage(row.getRole(), row.getContent(), row.getCreatedAt(),
+                                row.getPromptTokens(), row.getCompletionTokens(), row.getCachedTokens(), row.getLatencyMs()))
+                        .toList()
+        );
+    }
+
+    private Path archiveDir() {
+        String configured = appProperties.getRetention().getArchiveDir();
+        return configured != null && !configured.isBlank()
+                ? Path.of(configured)
+                : Path.of(appProperties.getDataDir(), "archive");
+    }
+
+    private record ArchivedRecord(Long sessionId, Long dbId, String title, LocalDateTime createdAt,
+                                  LocalDateTime lastQuestionAt, Long metabaseCardId, List<ArchivedMessage> messages) {
+    }
+
+    private record ArchivedMessage(MessageRole role, String content, LocalDateTime createdAt, Integer promptTokens,
+                                   Integer completionTokens, Integer cachedTokens, Long latencyMs) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind queue for chat messages. Turns from concurrent sessions are queued and a single worker persists everything
+ * that has accumulated in one transaction, so the single SQLite writer commits once per batch rather than once per
+ * message. While a batch is being written new turns pile up and go into the next one, so batches grow with load.
+ * <p>
+ * The returned future completes after the commit; callers that answer the user wait on it, so writes stay durable.
+ * If a batch fails, its turns are retried one per transaction, so one bad turn (say, for a session deleted in the
+ * meantime) only fails its own request.
+ */
+@Service
+public class ChatMessageWriter {
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageWriter.class);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final AppProperties appProperties;
+    private final Executor messageWriterExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingWrite> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public ChatMessageWriter(ChatMessageRepository chatMessageRepository, AppProperties appProperties,
+                             @Qualifier("messageWriterExecutor") Executor messageWriterExecutor,
+                             PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.appProperties = appProperties;
+        this.messageWriterExecutor = messageWriterExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new LinkedBlockingQueue<>(appProperties.getMessageWriter().getQueueCapacity());
+    }
+
+    /**
+     * Queues the messages of one turn. They are written together, in order, in the same transaction.
+     */
+    public CompletableFuture<Void> write(List<ChatMessage> messages) {
+        PendingWrite pending = new PendingWrite(List.copyOf(messages), new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            pending.result().completeExceptionally(new IllegalStateException("메시지 저장 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요."));
+            return pending.result();
+        }
+        wakeUp();
+        return pending.result();
+    }
+
+    private void wakeUp() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            messageWriterExecutor.execute(this::drain);
+        } catch (RuntimeException ex) {
+            draining.set(false);
+            log.warn("Message writer not scheduled; writing inline", ex);
+            drain();
+        }
+    }
+
+    private void drain() {
+        try {
+            int batchSize = appProperties.getMessageWriter().getBatchSize();
+            List<PendingWrite> batch = new ArrayList<>();
+            while (queue.drainTo(batch, batchSize) > 0) {
+                flush(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // A write queued after the last drainTo but before the flag was cleared would otherwise wait for the next one.
+        if (!queue.isEmpty()) {
+            wakeUp();
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingWrite pending : batch) {
+                    chatMessageRepository.saveAll(pending.messages());
+                }
+            });
+        } catch (Exception ex) {
+            if (batch.size() == 1) {
+                log.warn("Failed to write turn", ex);
+                batch.get(0).result().completeExceptionally(ex);
+                return;
+            }
+            log.warn("Failed to write {} turns together; retrying them one by one", batch.size(), ex);
+            for (PendingWrite pending : batch) {
+                // The rolled-back insert left its ids on the messages; without them they are inserted afresh.
+                pending.messages().forEach(ChatMessage::clearId);
+                flush(List.of(pending));
+            }
+            return;
+        }
+        batch.forEach(pending -> pending.result().complete(null));
+        if (batch.size() > 1) {
+            log.debug("Wrote {} turns in one transaction", batch.size());
+        }
+    }
+
+    private record PendingWrite(List<ChatMessage> messages, CompletableFuture<Void> result) {
+    }
+}
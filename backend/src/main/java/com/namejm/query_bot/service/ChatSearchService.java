@@ -0,0 +1,123 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.dto.MessageSearchHit;
+import com.namejm.query_bot.model.MessageRole;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Full-text search over chat messages. On SQLite it uses the FTS5 external-content table {@code chat_messages_fts}
+ * (created by migration V2 and kept in sync by triggers); the index stores only tokens and content is read from
+ * {@code chat_messages}. Terms are matched as prefixes, so a search for "주문" also finds "주문을" and "주문이".
+ * <p>
+ * On a server database the same endpoint falls back to case-insensitive substring matching of every term, newest first.
+ */
+@Service
+public class ChatSearchService {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int FALLBACK_SNIPPET_LENGTH = 120;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppProperties appProperties;
+
+    public ChatSearchService(JdbcTemplate jdbcTemplate, AppProperties appProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.appProperties = appProperties;
+    }
+
+    /**
+     * Best matches first (bm25 on SQLite), optionally limited to one database and an inclusive date range.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageSearchHit> search(String query, Long dbId, LocalDate from, LocalDate to, Integer limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("검색어를 입력하세요.");
+        }
+        boolean fts = appProperties.isSqlite();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql;
+        if (fts) {
+            sql = new StringBuilder("""
+                    select m.id as message_id, m.session_id, s.title, m.role, m.created_at,
+                           snippet(chat_messages_fts, 0, '[', ']', '…', 16) as snippet,
+                           -bm25(chat_messages_fts) as score
+                    from chat_messages_fts
+                    join chat_messages m on m.id = chat_messages_fts.rowid
+                    join chat_sessions s on s.id = m.session_id
+                    where chat_messages_fts match ?
+                    """);
+            params.add(toMatchExpression(terms));
+        } else {
+            sql = new StringBuilder("""
+                    select m.id as message_id, m.session_id, s.title, m.role, m.created_at,
+                           substring(m.content, 1, %d) as snippet, 0 as score
+                    from chat_messages m
+                    join chat_sessions s on s.id = m.session_id
+                    where 1 = 1
+                    """.formatted(FALLBACK_SNIPPET_LENGTH));
+            for (String term : terms) {
+                sql.append(" and lower(m.content) like ? escape '\\'");
+                params.add("%" + escapeLike(term.toLowerCase()) + "%");
+            }
+        }
+        if (dbId != null) {
+            sql.append(" and s.database_connection_id = ?");
+            params.add(dbId);
+        }
+        if (from != null) {
+            sql.append(" and m.created_at >= ?");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(" and m.created_at < ?");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        sql.append(fts ? " order by score desc" : " order by m.created_at desc, m.id desc");
+        sql.append(" limit ?");
+        params.add(limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+        // bm25 is lower-is-better; it is negated above so clients can treat a higher score as more relevant.
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new MessageSearchHit(
+                rs.getLong("session_id"),
+                rs.getString("title"),
+                rs.getLong("message_id"),
+                MessageRole.valueOf(rs.getString("role")),
+                rs.getString("snippet"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getDouble("score")
+        ), params.toArray());
+    }
+
+    private static List<String> terms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        return Arrays.stream(query.trim().split("\\s+"))
+                .map(term -> term.replace("\"", ""))
+                .filter(term -> !term.isBlank())
+                .toList();
+    }
+
+    /**
+     * Quotes every term so FTS5 operators in user input are treated as text, and makes each a prefix match.
+     */
+    static String toMatchExpression(List<String> terms) {
+        return terms.stream()
+                .map(term -> "\"" + term + "\"*")
+                .collect(Collectors.joining(" "));
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,68 +1,194 @@
 package com.namejm.query_bot.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.config.AppMetrics;
 import com.namejm.query_bot.domain.ChatMessage;
 import com.namejm.query_bot.domain.ChatSession;
-import com.namejm.query_bot.domain.DatabaseConnection;
 import com.namejm.query_bot.dto.ChatMessageDto;
 import com.namejm.query_bot.dto.ChatRequest;
 import com.namejm.query_bot.dto.ChatResponse;
 import com.namejm.query_bot.dto.ChatSessionSummary;
+import com.namejm.query_bot.dto.MessagePage;
 import com.namejm.query_bot.dto.SchemaOverview;
+import com.namejm.query_bot.dto.SessionPage;
+import com.namejm.query_bot.dto.TableOverview;
+import com.namejm.query_bot.llm.LlmClient;
+import com.namejm.query_bot.llm.LlmCompletion;
+import com.namejm.query_bot.llm.LlmMessage;
+import com.namejm.query_bot.model.DatabaseSnapshot;
 import com.namejm.query_bot.model.MessageRole;
 import com.namejm.query_bot.repository.ChatMessageRepository;
 import com.namejm.query_bot.repository.ChatSessionRepository;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.namejm.query_bot.repository.MessageView;
+import com.namejm.query_bot.repository.SessionView;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClient;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class ChatService {
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int SCHEMA_CACHE_SIZE = 16;
 
     private final DatabaseService databaseService;
+    private final DatabaseRegistry databaseRegistry;
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageWriter chatMessageWriter;
+    private final SystemPromptStore systemPromptStore;
     private final ObjectMapper objectMapper;
-    private final AppProperties appProperties;
-    private final RestClient restClient;
+    private final LlmClient llmClient;
     private final MetabaseService metabaseService;
+    private final MetabaseCardStateService metabaseCardStateService;
+    private final QuestionCacheService questionCacheService;
+    private final QueryExecutionService queryExecutionService;
+    private final LlmRequestScheduler llmRequestScheduler;
+    private final AppMetrics appMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor askExecutor;
+    // Parsed schemas by database and schema version; a refresh changes the version, so entries never go stale.
+    private final Map<SchemaKey, SchemaOverview> schemaCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SchemaKey, SchemaOverview> eldest) {
+            return size() > SCHEMA_CACHE_SIZE;
+        }
+    };
 
-    public ChatService(DatabaseService databaseService, ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository,
-                       ObjectMapper objectMapper, AppProperties appProperties, MetabaseService metabaseService) {
+    public ChatService(DatabaseService databaseService, DatabaseRegistry databaseRegistry, ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository,
+                       ChatMessageWriter chatMessageWriter, SystemPromptStore systemPromptStore, ObjectMapper objectMapper, LlmClient llmClient, MetabaseService metabaseService,
+                       MetabaseCardStateService metabaseCardStateService,
+                       QuestionCacheService questionCacheService, QueryExecutionService queryExecutionService, LlmRequestScheduler llmRequestScheduler,
+                       AppMetrics appMetrics, PlatformTransactionManager transactionManager, @Qualifier("askExecutor") Executor askExecutor) {
         this.databaseService = databaseService;
+        this.databaseRegistry = databaseRegistry;
         this.chatSessionRepository = chatSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.chatMessageWriter = chatMessageWriter;
+        this.systemPromptStore = systemPromptStore;
         this.objectMapper = objectMapper;
-        this.appProperties = appProperties;
+        this.llmClient = llmClient;
         this.metabaseService = metabaseService;
-        this.restClient = RestClient.builder()
-                .baseUrl("https://api.openai.com/v1")
-                .build();
+        this.metabaseCardStateService = metabaseCardStateService;
+        this.questionCacheService = questionCacheService;
+        this.queryExecutionService = queryExecutionService;
+        this.llmRequestScheduler = llmRequestScheduler;
+        this.appMetrics = appMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.askExecutor = askExecutor;
     }
 
-    @Transactional(rollbackFor = Exception.class)
-    public ChatResponse ask(ChatRequest request) throws Exception {
-        DatabaseConnection database = databaseService.findById(request.dbId())
-                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
-        if (!database.isSchemaReady()) {
+    /**
+     * Runs the ask pipeline off the servlet thread: prepare runs on the ask executor, the model call is queued in
+     * {@link LlmRequestScheduler} without holding a thread while it waits, and the messages are persisted by
+     * {@link ChatMessageWriter} together with other sessions' turns.
+     */
+    public CompletableFuture<ChatResponse> ask(ChatRequest request, String username) {
+        // Keep transactions short on both sides of the model call: with a single SQLite connection, holding it while
+        // queued for or waiting on the LLM would block every other request.
+        return CompletableFuture.supplyAsync(() -> unchecked(() -> inTransaction(() -> prepareTurn(request))), askExecutor)
+                .thenCompose(turn -> generateFor(turn, username)
+                        .thenCompose(answer -> completeTurn(request, turn, answer)));
+    }
+
+    private CompletableFuture<LlmCompletion> generateFor(PreparedTurn turn, String username) {
+        if (turn.cached().isPresent()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return llmRequestScheduler.submit(username, turn.database().id(),
+                        () -> generateAnswer(turn.database(), turn.promptHistory(), turn.systemPrompt()))
+                .whenComplete((answer, ex) -> {
+                    if (ex != null && turn.newSession()) {
+                        try {
+                            inTransaction(() -> {
+                                chatSessionRepository.deleteById(turn.session().getId());
+                                return null;
+                            });
+                        } catch (Exception cleanupEx) {
+                            log.warn("Failed to remove empty session {}", turn.session().getId(), cleanupEx);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Hands both messages of the turn to the write-behind queue and builds the response once they are committed.
+     */
+    private CompletableFuture<ChatResponse> completeTurn(ChatRequest request, PreparedTurn turn, LlmCompletion answer) {
+        String reply = answer != null ? answer.content() : turn.cached().get().sql();
+        ChatSession session = turn.session();
+        ChatMessage assistantMessage = new ChatMessage();
+        assistantMessage.setSession(session);
+        assistantMessage.setRole(MessageRole.ASSISTANT);
+        assistantMessage.setContent(reply);
+        if (answer != null) {
+            assistantMessage.setPromptTokens(answer.promptTokens());
+            assistantMessage.setCompletionTokens(answer.completionTokens());
+            assistantMessage.setCachedTokens(answer.cachedTokens());
+            assistantMessage.setLatencyMs(answer.latencyMs());
+        }
+
+        return chatMessageWriter.write(List.of(turn.userMessage(), assistantMessage))
+                .thenApplyAsync(written -> respond(request, turn, answer, assistantMessage), askExecutor);
+    }
+
+    private ChatResponse respond(ChatRequest request, PreparedTurn turn, LlmCompletion answer, ChatMessage assistantMessage) {
+        String reply = assistantMessage.getContent();
+        ChatSession session = turn.session();
+        if (answer != null && turn.reusable()) {
+            questionCacheService.record(turn.database(), request.message(), reply);
+        }
+
+        // The prompt history already holds every earlier message; no need to read the session back.
+        Long since = turn.newSession() ? null : request.sinceMessageId();
+        List<ChatMessage> messages = new ArrayList<>(turn.promptHistory());
+        messages.add(assistantMessage);
+        List<ChatMessageDto> historyDto = messages.stream()
+                .filter(msg -> since == null || msg.getId() > since)
+                .map(ChatService::toDto)
+                .toList();
+
+        queryExecutionService.speculate(turn.database(), reply);
+
+        Long cardId = ensureValidMetabaseCard(session);
+        String cardUrl = metabaseService.buildCardUrl(cardId);
+        return new ChatResponse(session.getId(), reply, historyDto, cardId, cardUrl,
+                turn.cached().isPresent(), turn.cached().map(QuestionCacheService.CachedAnswer::question).orElse(null));
+    }
+
+    private PreparedTurn prepareTurn(ChatRequest request) throws Exception {
+        DatabaseSnapshot database = databaseRegistry.require(request.dbId());
+        if (!database.schemaReady()) {
             throw new IllegalStateException("해당 데이터베이스의 스키마를 아직 수집 중입니다. 잠시 후 다시 시도해주세요.");
         }
 
         ChatSession session = resolveSession(request, database);
+        boolean newSession = !session.getId().equals(request.sessionId());
 
         List<ChatMessage> priorHistory = chatMessageRepository.findBySessionOrderByCreatedAtAsc(session);
+        boolean regenerate = Boolean.TRUE.equals(request.regenerate());
+        // Only standalone first-turn questions are comparable across sessions; follow-ups depend on their history, even
+        // when regenerated. Regenerating only skips the lookup.
+        boolean reusable = priorHistory.isEmpty();
 
         ChatMessage userMessage = new ChatMessage();
         userMessage.setSession(session);
@@ -72,50 +198,81 @@ public class ChatService {
         LocalDateTime lastAskedAt = session.getLastQuestionAt();
         session.setLastQuestionAt(askedAt);
 
-        // Reuse the cached system prompt when possible to avoid re-sending the full schema on every turn.
-        String systemPrompt = resolveSystemPrompt(session, database, lastAskedAt);
+        Optional<QuestionCacheService.CachedAnswer> cached = priorHistory.isEmpty() && !regenerate
+                ? questionCacheService.lookup(database, request.message())
+                : Optional.empty();
+
+        String systemPrompt = null;
+        if (cached.isEmpty()) {
+            long started = System.nanoTime();
+            boolean built = false;
+            try {
+                // Reuse the cached system prompt when possible to avoid re-sending the full schema on every turn.
+                systemPrompt = resolveSystemPrompt(session, database, lastAskedAt);
+                built = true;
+            } finally {
+                appMetrics.record("querybot.prompt.build", AppMetrics.db(database.id()), built, System.nanoTime() - started);
+            }
+        }
         chatSessionRepository.save(session);
 
         List<ChatMessage> promptHistory = new ArrayList<>(priorHistory);
         promptHistory.add(userMessage);
-        String reply = generateAnswer(promptHistory, systemPrompt);
-
-        ChatMessage assistantMessage = new ChatMessage();
-        assistantMessage.setSession(session);
-        assistantMessage.setRole(MessageRole.ASSISTANT);
-        assistantMessage.setContent(reply);
-
-        chatMessageRepository.save(userMessage);
-        chatMessageRepository.save(assistantMessage);
+        return new PreparedTurn(database, session, newSession, userMessage, promptHistory, systemPrompt, cached, reusable);
+    }
 
-        List<ChatMessageDto> historyDto = chatMessageRepository.findBySessionOrderByCreatedAtAsc(session).stream()
-                .map(msg -> new ChatMessageDto(msg.getRole(), msg.getContent(), msg.getCreatedAt()))
-                .toList();
+    private <T> T inTransaction(Callable<T> work) throws Exception {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return work.call();
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new UndeclaredThrowableException(ex);
+                }
+            });
+        } catch (UndeclaredThrowableException ex) {
+            throw (Exception) ex.getUndeclaredThrowable();
+        }
+    }
 
-        Long cardId = ensureValidMetabaseCard(session);
-        String cardUrl = metabaseService.buildCardUrl(cardId);
-        return new ChatResponse(session.getId(), reply, historyDto, cardId, cardUrl);
+    private static <T> T unchecked(Callable<T> work) {
+        try {
+            return work.call();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CompletionException(ex);
+        }
     }
 
-    public Optional<ChatResponse> history(Long sessionId) {
+    public Optional<ChatResponse> history(Long sessionId, Long sinceMessageId) {
         return chatSessionRepository.findById(sessionId)
                 .map(session -> {
-                    List<ChatMessageDto> history = historyForSession(session);
+                    List<ChatMessageDto> history = sinceMessageId == null
+                            ? historyForSession(session)
+                            : chatMessageRepository.findBySessionAndIdGreaterThanOrderByCreatedAtAsc(session, sinceMessageId).stream()
+                                    .map(ChatService::toDto)
+                                    .toList();
                     Long cardId = ensureValidMetabaseCard(session);
                     String cardUrl = metabaseService.buildCardUrl(cardId);
-                    return new ChatResponse(sessionId, "", history, cardId, cardUrl);
+                    return new ChatResponse(sessionId, "", history, cardId, cardUrl, false, null);
                 });
     }
 
     public List<ChatMessageDto> historyForSession(ChatSession session) {
         return chatMessageRepository.findBySessionOrderByCreatedAtAsc(session).stream()
-                .map(msg -> new ChatMessageDto(msg.getRole(), msg.getContent(), msg.getCreatedAt()))
+                .map(ChatService::toDto)
                 .toList();
     }
 
+    private static ChatMessageDto toDto(ChatMessage msg) {
+        return new ChatMessageDto(msg.getId(), msg.getRole(), msg.getContent(), msg.getCreatedAt());
+    }
+
     public Optional<ChatResponse> latestForDatabase(Long dbId) {
-        return databaseService.findById(dbId)
-                .flatMap(chatSessionRepository::findFirstByDatabaseConnectionOrderByCreatedAtDesc)
+        return chatSessionRepository.findFirstByDatabaseConnectionIdOrderByCreatedAtDesc(dbId)
                 .map(session -> {
                     Long cardId = ensureValidMetabaseCard(session);
                     String cardUrl = metabaseService.buildCardUrl(cardId);
@@ -124,27 +281,78 @@ public class ChatService {
                             "",
                             historyForSession(session),
                             cardId,
-                            cardUrl
+                            cardUrl,
+                            false,
+                            null
                     );
                 });
     }
 
+    /**
+     * Keyset page of a session's messages, newest page first, each page in chronological order.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage historyPage(Long sessionId, Long before, Integer size) {
+        if (!chatSessionRepository.existsById(sessionId)) {
+            throw new IllegalArgumentException("세션을 찾을 수 없습니다.");
+        }
+        int limit = pageSize(size);
+        // Fetch one extra row to know whether an older page exists.
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<MessageView> rows = before == null
+                ? chatMessageRepository.findLatestPage(sessionId, page)
+                : chatMessageRepository.findPageBefore(sessionId, before, page);
+        boolean hasMore = rows.size() > limit;
+        List<MessageView> visible = hasMore ? rows.subList(0, limit) : rows;
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (int i = visible.size() - 1; i >= 0; i--) {
+            MessageView row = visible.get(i);
+            messages.add(new ChatMessageDto(row.getId(), row.getRole(), row.getContent(), row.getCreatedAt()));
+        }
+        return new MessagePage(messages, hasMore ? visible.get(visible.size() - 1).getId() : null);
+    }
+
+    @Transactional
+    public SessionPage sessionsPage(Long dbId, Long before, Integer size) {
+        int limit = pageSize(size);
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<SessionView> rows = before == null
+                ? chatSessionRepository.findLatestPage(dbId, page)
+                : chatSessionRepository.findPageBefore(dbId, before, page);
+        boolean hasMore = rows.size() > limit;
+        List<SessionView> visible = hasMore ? rows.subList(0, limit) : rows;
+        List<ChatSessionSummary> sessions = visible.stream()
+                .map(row -> {
+                    Long cardId = validCardId(row.getId(), row.getMetabaseCardId());
+                    return new ChatSessionSummary(row.getId(), dbId, row.getTitle(), row.getCreatedAt(), cardId,
+                            metabaseService.buildCardUrl(cardId));
+                })
+                .toList();
+        return new SessionPage(sessions, hasMore ? visible.get(visible.size() - 1).getId() : null);
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
     public List<ChatSessionSummary> sessions(Long dbId) {
-        DatabaseConnection db = databaseService.findById(dbId)
-                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
-        return chatSessionRepository.findByDatabaseConnectionOrderByCreatedAtDesc(db).stream()
-                .map(session -> {
-                    Long cardId = ensureValidMetabaseCard(session);
-                    String cardUrl = metabaseService.buildCardUrl(cardId);
-                    return new ChatSessionSummary(session.getId(), db.getId(), session.getTitle(), session.getCreatedAt(), cardId, cardUrl);
+        if (!databaseRegistry.exists(dbId)) {
+            throw new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다.");
+        }
+        return chatSessionRepository.findViews(dbId).stream()
+                .map(row -> {
+                    Long cardId = validCardId(row.getId(), row.getMetabaseCardId());
+                    return new ChatSessionSummary(row.getId(), dbId, row.getTitle(), row.getCreatedAt(), cardId,
+                            metabaseService.buildCardUrl(cardId));
                 })
                 .toList();
     }
 
     public ChatSessionSummary createSession(Long dbId, String title) {
-        DatabaseConnection db = databaseService.findById(dbId)
-                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
-        ChatSession created = createSession(db, title);
+        ChatSession created = createSession(databaseRegistry.require(dbId), title);
         return new ChatSessionSummary(
                 created.getId(),
                 dbId,
@@ -155,13 +363,20 @@ public class ChatService {
         );
     }
 
+    private Long validCardId(Long sessionId, Long cardId) {
+        if (cardId == null || !metabaseCardStateService.isMissing(cardId)) {
+            return cardId;
+        }
+        chatSessionRepository.clearMetabaseCardId(sessionId);
+        return null;
+    }
+
     private Long ensureValidMetabaseCard(ChatSession session) {
         Long cardId = session.getMetabaseCardId();
         if (cardId == null) {
             return null;
         }
-        boolean exists = metabaseService.cardExists(cardId);
-        if (exists) {
+        if (!metabaseCardStateService.isMissing(cardId)) {
             return cardId;
         }
         session.setMetabaseCardId(null);
@@ -178,30 +393,30 @@ public class ChatService {
         chatSessionRepository.delete(session);
     }
 
-    private ChatSession resolveSession(ChatRequest request, DatabaseConnection database) {
+    private ChatSession resolveSession(ChatRequest request, DatabaseSnapshot database) {
         if (request.sessionId() != null) {
             Optional<ChatSession> existing = chatSessionRepository.findById(request.sessionId());
             if (existing.isPresent()) {
                 ChatSession session = existing.get();
-                if (!session.getDatabaseConnection().getId().equals(database.getId())) {
+                if (!session.getDatabaseConnection().getId().equals(database.id())) {
                     throw new IllegalArgumentException("선택한 세션이 현재 데이터베이스와 일치하지 않습니다.");
                 }
                 return session;
             }
         }
         ChatSession session = new ChatSession();
-        session.setDatabaseConnection(database);
+        session.setDatabaseConnection(databaseService.reference(database.id()));
         String title = request.sessionTitle() != null && !request.sessionTitle().isBlank()
-                ? safeTitle(request.sessionTitle(), database.getName())
-                : buildTitle(request.message(), database.getName());
+                ? safeTitle(request.sessionTitle(), database.name())
+                : buildTitle(request.message(), database.name());
         session.setTitle(title);
         return chatSessionRepository.save(session);
     }
 
-    public ChatSession createSession(DatabaseConnection database, String title) {
+    public ChatSession createSession(DatabaseSnapshot database, String title) {
         ChatSession session = new ChatSession();
-        session.setDatabaseConnection(database);
-        session.setTitle(safeTitle(title, database.getName()));
+        session.setDatabaseConnection(databaseService.reference(database.id()));
+        session.setTitle(safeTitle(title, database.name()));
         return chatSessionRepository.save(session);
     }
 
@@ -218,66 +433,121 @@ public class ChatService {
         return trimmed.length() > 60 ? trimmed.substring(0, 60) + "..." : trimmed;
     }
 
-    private String resolveSystemPrompt(ChatSession session, DatabaseConnection database, LocalDateTime lastAskedAt) throws Exception {
-        boolean needsRebuild = session.getSystemPrompt() == null
+    private String resolveSystemPrompt(ChatSession session, DatabaseSnapshot database, LocalDateTime lastAskedAt) throws Exception {
+        boolean needsRebuild = session.getSystemPromptHash() == null
                 || session.getSystemPromptDatabaseId() == null
-                || !session.getSystemPromptDatabaseId().equals(database.getId());
+                || !session.getSystemPromptDatabaseId().equals(database.id());
 
-        LocalDateTime schemaUpdatedAt = database.getSchemaUpdatedAt();
+        LocalDateTime schemaUpdatedAt = database.schemaUpdatedAt();
         LocalDateTime comparedAt = lastAskedAt != null ? lastAskedAt : session.getCreatedAt();
         if (!needsRebuild && schemaUpdatedAt != null && comparedAt != null && comparedAt.isBefore(schemaUpdatedAt)) {
             needsRebuild = true;
         }
 
-        if (needsRebuild) {
-            SchemaOverview schema = loadSchema(database);
-            String systemPrompt = buildSystemPrompt(schema);
-            session.setSystemPrompt(systemPrompt);
-            session.setSystemPromptDatabaseId(database.getId());
+        if (!needsRebuild) {
+            Optional<String> stored = systemPromptStore.content(session.getSystemPromptHash());
+            if (stored.isPresent()) {
+                return stored.get();
+            }
         }
 
-        return session.getSystemPrompt();
+        String systemPrompt = buildSystemPrompt(schema(database));
+        session.setSystemPromptHash(systemPromptStore.store(systemPrompt));
+        session.setSystemPromptDatabaseId(database.id());
+        return systemPrompt;
     }
 
-    private SchemaOverview loadSchema(DatabaseConnection databaseConnection) throws Exception {
-        if (databaseConnection.getSchemaJson() == null) {
-            throw new IllegalStateException("해당 데이터베이스의 스키마 정보가 없습니다. 다시 수집하세요.");
+    /**
+     * Parsed schema of the database at its current version. Only needed to build a prompt or validate generated SQL, so
+     * turns that reuse a stored prompt and return no SQL never read the schema JSON.
+     */
+    private SchemaOverview schema(DatabaseSnapshot database) throws Exception {
+        SchemaKey key = new SchemaKey(database.id(), database.schemaUpdatedAt());
+        synchronized (schemaCache) {
+            SchemaOverview cached = schemaCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
         }
-        return objectMapper.readValue(databaseConnection.getSchemaJson(), SchemaOverview.class);
+        String schemaJson = databaseService.findSchemaJson(database.id())
+                .orElseThrow(() -> new IllegalStateException("해당 데이터베이스의 스키마 정보가 없습니다. 다시 수집하세요."));
+        SchemaOverview schema = objectMapper.readValue(schemaJson, SchemaOverview.class);
+        synchronized (schemaCache) {
+            schemaCache.put(key, schema);
+        }
+        return schema;
     }
 
-    private String generateAnswer(List<ChatMessage> history, String systemPrompt) throws Exception {
-        if (appProperties.getOpenai().getApiKey() == null || appProperties.getOpenai().getApiKey().isBlank()) {
-            return "OPENAI_API_KEY가 설정되지 않아 예시 답변을 반환합니다.\n--\nSELECT * FROM sample_table WHERE condition;";
+    private LlmCompletion generateAnswer(DatabaseSnapshot database, List<ChatMessage> history, String systemPrompt) throws Exception {
+        Long dbId = database.id();
+        if (!llmClient.isConfigured()) {
+            return new LlmCompletion("OPENAI_API_KEY가 설정되지 않아 예시 답변을 반환합니다.\n--\nSELECT * FROM sample_table WHERE condition;",
+                    null, null, null, null);
         }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of(
-                "role", "system",
-                "content", systemPrompt
-        ));
+        // The system prompt goes first and is byte-identical for every session on the same schema, so the provider's
+        // prefix cache can reuse it; only the conversation tail differs between requests.
+        List<LlmMessage> messages = new ArrayList<>();
+        messages.add(new LlmMessage("system", systemPrompt));
         for (ChatMessage msg : history) {
-            messages.add(Map.of(
-                    "role", msg.getRole() == MessageRole.USER ? "user" : "assistant",
-                    "content", msg.getContent()
-            ));
+            messages.add(new LlmMessage(msg.getRole() == MessageRole.USER ? "user" : "assistant", msg.getContent()));
+        }
+        LlmCompletion completion = complete(dbId, messages, "first");
+
+        // Catch invented tables/columns locally and give the model one chance to fix them before the user sees the SQL.
+        Optional<String> sql = SqlStatements.extractSingleSelect(completion.content());
+        List<String> problems = sql.isPresent() ? SqlSchemaValidator.validate(sql.get(), schema(database)) : List.of();
+        if (problems.isEmpty()) {
+            return completion;
+        }
+        log.info("Generated SQL failed schema validation, re-prompting once: {}", problems);
+        messages.add(new LlmMessage("assistant", completion.content()));
+        messages.add(new LlmMessage("user", correctionPrompt(problems)));
+        LlmCompletion corrected = complete(dbId, messages, "correction");
+        return new LlmCompletion(
+                corrected.content(),
+                sum(completion.promptTokens(), corrected.promptTokens()),
+                sum(completion.completionTokens(), corrected.completionTokens()),
+                sum(completion.cachedTokens(), corrected.cachedTokens()),
+                completion.latencyMs() != null && corrected.latencyMs() != null
+                        ? completion.latencyMs() + corrected.latencyMs() : null
+        );
+    }
+
+    /**
+     * One model call, timed as {@code querybot.llm.call} with its token usage counted in {@code querybot.llm.tokens}.
+     */
+    private LlmCompletion complete(Long dbId, List<LlmMessage> messages, String attempt) throws Exception {
+        Tags tags = AppMetrics.db(dbId);
+        LlmCompletion completion = appMetrics.timeChecked("querybot.llm.call", tags.and("attempt", attempt),
+                () -> llmClient.complete(messages));
+        countTokens(tags, "prompt", completion.promptTokens());
+        countTokens(tags, "completion", completion.completionTokens());
+        countTokens(tags, "cached", completion.cachedTokens());
+        return completion;
+    }
+
+    private void countTokens(Tags tags, String type, Integer tokens) {
+        if (tokens != null && tokens > 0) {
+            appMetrics.count("querybot.llm.tokens", tags.and("type", type), tokens);
+        }
+    }
+
+    private String correctionPrompt(List<String> problems) {
+        StringBuilder builder = new StringBuilder("The SQL you returned does not match the schema:\n");
+        for (String problem : problems) {
+            builder.append("- ").append(problem).append("\n");
         }
+        builder.append("Fix the query using only tables and columns from the schema and return the SQL only. ")
+                .append("If the question cannot be answered with the existing columns, reply in Korean and list the available options instead.");
+        return builder.toString();
+    }
 
-        OpenAiResponse response = restClient.post()
-                .uri("/chat/completions")
-                .contentType(MediaType.APPLICATION_JSON)
-                .headers(headers -> headers.setBearerAuth(appProperties.getOpenai().getApiKey()))
-                .body(Map.of(
-                        "model", appProperties.getOpenai().getModel(),
-                        "messages", messages
-                ))
-                .retrieve()
-                .body(OpenAiResponse.class);
-
-        if (response == null || response.choices().isEmpty()) {
-            throw new IllegalStateException("AI 응답을 받지 못했습니다.");
+    private static Integer sum(Integer a, Integer b) {
+        if (a == null) {
+            return b;
         }
-        return response.choices().get(0).message().content();
+        return b == null ? a : a + b;
     }
 
     private String buildSystemPrompt(SchemaOverview schema) {
@@ -303,7 +573,12 @@ public class ChatService {
             builder.append(" (schemas: ").append(String.join(", ", schema.schemas())).append(")");
         }
         builder.append("\n");
-        for (var table : schema.tables()) {
+        // Stable table order keeps the prompt identical across refreshes that return tables in a different order.
+        List<TableOverview> tables = schema.tables().stream()
+                .sorted(Comparator.comparing((TableOverview table) -> String.valueOf(table.schema()))
+                        .thenComparing(table -> String.valueOf(table.name())))
+                .toList();
+        for (var table : tables) {
             builder.append("- ").append(table.schema()).append(".").append(table.name());
             if (table.comment() != null && !table.comment().isBlank()) {
                 builder.append(" -- ").append(table.comment());
@@ -324,15 +599,11 @@ public class ChatService {
         return builder.toString();
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record OpenAiResponse(@JsonProperty("choices") List<Choice> choices) {
-    }
-
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record Choice(@JsonProperty("message") Message message) {
+    private record PreparedTurn(DatabaseSnapshot database, ChatSession session, boolean newSession, ChatMessage userMessage,
+                                List<ChatMessage> promptHistory, String systemPrompt,
+                                Optional<QuestionCacheService.CachedAnswer> cached, boolean reusable) {
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record Message(String content, String role) {
+    private record SchemaKey(Long dbId, LocalDateTime schemaUpdatedAt) {
     }
 }
@@ -1,42 +1,231 @@
 package com.namejm.query_bot.service;
 
+import com.namejm.query_bot.config.AppProperties;
 import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.dto.RetentionReport;
+import com.namejm.query_bot.dto.VacuumConversion;
+import com.namejm.query_bot.model.MetabaseJobStatus;
+import com.namejm.query_bot.model.RetentionMode;
 import com.namejm.query_bot.repository.ChatMessageRepository;
 import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
+import java.io.IOException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Nightly retention cleanup. Expired sessions are removed with bulk deletes in chunks of {@code chunkSize}, one short
+ * transaction per chunk, so the single SQLite writer is released between chunks and requests keep flowing. In
+ * {@link RetentionMode#ARCHIVE} mode each chunk is first written to the compressed archive by {@link ChatArchiveService}.
+ * Afterwards a bounded incremental vacuum returns freed pages to the file system (SQLite store only; a server database
+ * reclaims space itself). Only files in incremental auto_vacuum mode are vacuumed: new files are created that way, older
+ * ones are converted once through {@link #enableIncrementalVacuum()}.
+ * <p>
+ * Runs as the {@code session-retention} job, so with several instances only one of them cleans up at a time; if the
+ * lock is lost, the chunk loop stops and the remaining sessions wait for the next run.
+ */
 @Service
-public class ChatSessionCleanupService {
+public class ChatSessionCleanupService implements ClusterJob {
 
     private static final Logger log = LoggerFactory.getLogger(ChatSessionCleanupService.class);
+    // Pages released per writer hold during the incremental vacuum.
+    private static final int VACUUM_STEP = 200;
 
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final MetabaseOutboxRepository metabaseOutboxRepository;
+    private final SystemPromptStore systemPromptStore;
+    private final ChatArchiveService chatArchiveService;
+    private final AppProperties appProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile RetentionReport lastReport;
 
-    public ChatSessionCleanupService(ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository) {
+    public ChatSessionCleanupService(ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository,
+                                     MetabaseOutboxRepository metabaseOutboxRepository, SystemPromptStore systemPromptStore,
+                                     ChatArchiveService chatArchiveService, AppProperties appProperties,
+                                     JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this.chatSessionRepository = chatSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.metabaseOutboxRepository = metabaseOutboxRepository;
+        this.systemPromptStore = systemPromptStore;
+        this.chatArchiveService = chatArchiveService;
+        this.appProperties = appProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
-    @Scheduled(cron = "0 0 4 * * *")
-    public void deleteExpiredSessions() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
-        List<ChatSession> expired = chatSessionRepository
-                .findByLastQuestionAtBeforeOrLastQuestionAtIsNullAndCreatedAtBefore(cutoff, cutoff);
+    @Override
+    public String name() {
+        return "session-retention";
+    }
+
+    @Override
+    public String defaultCron() {
+        return appProperties.getRetention().getCron();
+    }
+
+    @Override
+    public String run(JobLease lease) {
+        RetentionReport report = purge(lease);
+        lastReport = report;
+        log.info("Retention cleanup removed {} sessions, {} messages, {} outbox entries and {} prompts in {} chunks, freed {} pages in {} ms (cutoff {})",
+                report.sessionsDeleted(), report.messagesDeleted(), report.outboxEntriesDeleted(), report.promptsDeleted(),
+                report.chunks(), report.pagesFreed(), report.durationMs(), report.cutoff());
+        return "%s: sessions=%d, messages=%d, outbox=%d, prompts=%d, pagesFreed=%d".formatted(report.mode(),
+                report.sessionsDeleted(), report.messagesDeleted(), report.outboxEntriesDeleted(), report.promptsDeleted(),
+                report.pagesFreed());
+    }
+
+    public Optional<RetentionReport> lastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    private RetentionReport purge(JobLease lease) {
+        AppProperties.Retention config = appProperties.getRetention();
+        long started = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime cutoff = startedAt.minus(config.getSessionRetention());
+        int chunkSize = Math.max(1, config.getChunkSize());
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+
+        int sessions = 0;
+        int messages = 0;
+        int outbox = 0;
+        int chunks = 0;
+        List<Long> ids;
+        do {
+            ids = chatSessionRepository.findExpiredIds(cutoff, chunk);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> batch = ids;
+            int[] deleted;
+            if (config.getMode() == RetentionMode.ARCHIVE) {
+                try {
+                    deleted = chatArchiveService.archive(batch, cutoff);
+                } catch (IOException ex) {
+                    // Nothing was deleted for this chunk; keep the rest hot rather than lose history.
+                    log.error("Archiving expired sessions failed; leaving the remaining sessions in place", ex);
+                    break;
+                }
+            } else {
+                deleted = transactionTemplate.execute(status -> {
+                    // The ids were listed outside this transaction; keep sessions that got a question since.
+                    List<Long> expired = chatSessionRepository.lockExpired(batch, cutoff).stream()
+                            .map(ChatSession::getId)
+                            .toList();
+                    if (expired.isEmpty()) {
+                        return new int[3];
+                    }
+                    return new int[]{
+                            chatMessageRepository.deleteByExpiredSessionIds(expired, cutoff),
+                            metabaseOutboxRepository.deleteByExpiredSessionIds(expired, cutoff),
+                            chatSessionRepository.deleteExpiredByIds(expired, cutoff)
+                    };
+                });
+            }
+            messages += deleted[0];
+            outbox += deleted[1];
+            sessions += deleted[2];
+            chunks++;
+            pause(config);
+        } while (ids.size() == chunkSize && lease.held());
+
+        LocalDateTime outboxCutoff = startedAt.minus(config.getOutboxRetention());
+        Integer finishedJobs = transactionTemplate.execute(status ->
+                metabaseOutboxRepository.deleteFinishedBefore(MetabaseJobStatus.PENDING, outboxCutoff));
+        outbox += finishedJobs != null ? finishedJobs : 0;
+
+        // Also catches prompts orphaned by sessions deleted through the API during the day.
+        Integer unreferencedPrompts = transactionTemplate.execute(status -> systemPromptStore.deleteUnreferenced());
+        int prompts = unreferencedPrompts != null ? unreferencedPrompts : 0;
+
+        long pagesFreed = sessions > 0 || outbox > 0 || prompts > 0 ? incrementalVacuum(config.getVacuumPages()) : 0;
+        return new RetentionReport(config.getMode(), startedAt, cutoff, sessions, messages, outbox, prompts, chunks, pagesFreed,
+                (System.nanoTime() - started) / 1_000_000);
+    }
 
-        if (expired.isEmpty()) {
+    private void pause(AppProperties.Retention config) {
+        long millis = config.getChunkPause().toMillis();
+        if (millis <= 0) {
             return;
         }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Converts an existing SQLite file to incremental auto_vacuum. The switch needs a full VACUUM, which rewrites the whole
+     * file while holding the only writer, so it is an explicit admin action instead of part of the nightly job.
+     */
+    public synchronized VacuumConversion enableIncrementalVacuum() {
+        if (!appProperties.isSqlite()) {
+            throw new IllegalArgumentException("증분 VACUUM 전환은 SQLite 메타 DB에서만 사용할 수 있습니다.");
+        }
+        if (incrementalVacuumEnabled()) {
+            return new VacuumConversion(false, 0);
+        }
+        long started = System.nanoTime();
+        log.info("Switching SQLite to incremental auto_vacuum with a full VACUUM");
+        jdbcTemplate.execute("PRAGMA auto_vacuum = INCREMENTAL");
+        jdbcTemplate.execute("VACUUM");
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("SQLite auto_vacuum is now incremental ({} ms)", durationMs);
+        return new VacuumConversion(true, durationMs);
+    }
+
+    /**
+     * Releases up to {@code maxPages} free pages. Skipped unless the file is in incremental auto_vacuum mode, since
+     * anything else would need a full VACUUM here.
+     */
+    private long incrementalVacuum(int maxPages) {
+        if (maxPages <= 0 || !appProperties.isSqlite()) {
+            return 0;
+        }
+        if (!incrementalVacuumEnabled()) {
+            log.info("Skipping vacuum: SQLite auto_vacuum is not incremental; convert it once with POST /api/chat/retention/incremental-vacuum");
+            return 0;
+        }
+        long before = freePages();
+        long target = Math.min(before, maxPages);
+        long done = 0;
+        while (done < target) {
+            int step = (int) Math.min(VACUUM_STEP, target - done);
+            // Each step of the pragma frees one page, and the driver steps once per execute.
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (int i = 0; i < step; i++) {
+                        statement.execute("PRAGMA incremental_vacuum(1)");
+                    }
+                }
+                return null;
+            });
+            done += step;
+        }
+        return before - freePages();
+    }
+
+    private boolean incrementalVacuumEnabled() {
+        Integer mode = jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class);
+        return mode != null && mode == 2;
+    }
 
-        chatMessageRepository.deleteAllBySessionIn(expired);
-        chatSessionRepository.deleteAll(expired);
-        log.info("Deleted {} chat sessions inactive since {}", expired.size(), cutoff);
+    private long freePages() {
+        Long count = jdbcTemplate.queryForObject("PRAGMA freelist_count", Long.class);
+        return count != null ? count : 0;
     }
 }
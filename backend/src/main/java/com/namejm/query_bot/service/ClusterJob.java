@@ -0,0 +1,24 @@
+package com.namejm.query_bot.service;
+
+/**
+ * A background job run by {@link JobService}: at most one instance runs it at a time, each run is recorded, and it can
+ * be started manually through {@code /api/jobs}.
+ */
+public interface ClusterJob {
+
+    /**
+     * Stable name used for the lock, the run history and {@code app.jobs.schedules}.
+     */
+    String name();
+
+    /**
+     * Cron used when {@code app.jobs.schedules} has no entry for this job; "-" means manual only.
+     */
+    String defaultCron();
+
+    /**
+     * Runs the job once. The returned summary is stored with the run; an exception marks the run failed. Long jobs check
+     * {@code lease} between steps and stop when it is no longer held.
+     */
+    String run(JobLease lease) throws Exception;
+}
@@ -1,5 +1,7 @@
 package com.namejm.query_bot.service;
 
+import com.namejm.query_bot.config.AppMetrics;
+import com.namejm.query_bot.config.AppProperties;
 import com.namejm.query_bot.dto.ColumnOverview;
 import com.namejm.query_bot.dto.DbConnectionRequest;
 import com.namejm.query_bot.dto.DbTestResponse;
@@ -10,8 +12,12 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import io.micrometer.core.instrument.Tags;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
@@ -24,24 +30,78 @@ import org.springframework.stereotype.Service;
 public class DatabaseMetadataService {
     private static final Logger log = LoggerFactory.getLogger(DatabaseMetadataService.class);
 
-    public DbTestResponse test(DbConnectionRequest request) {
-        try (Connection connection = openConnection(request)) {
-            SchemaOverview schema = extractSchema(connection, request);
-            String message = String.format("총 %d개 테이블을 발견했습니다.", schema.tables().size());
-            return new DbTestResponse(true, message, schema);
+    private final AppProperties appProperties;
+    private final AppMetrics appMetrics;
+
+    public DatabaseMetadataService(AppProperties appProperties, AppMetrics appMetrics) {
+        this.appProperties = appProperties;
+        this.appMetrics = appMetrics;
+    }
+
+    /**
+     * Checks that the database can be reached and read, without extracting the schema: connects with short timeouts and
+     * reads table and column counts from one aggregate catalog query. With {@code previewTables} the first tables are
+     * listed by name as well. Full extraction happens when the database is registered.
+     */
+    public DbTestResponse test(DbConnectionRequest request, Integer previewTables) {
+        long started = System.nanoTime();
+        DbTestResponse response = runTest(request, previewTables, started);
+        appMetrics.record("querybot.connection.test", Tags.of("db.type", request.dbType().name()), response.success(),
+                System.nanoTime() - started);
+        return response;
+    }
+
+    private DbTestResponse runTest(DbConnectionRequest request, Integer previewTables, long started) {
+        AppProperties.ConnectionTest config = appProperties.getConnectionTest();
+        int timeoutSeconds = (int) Math.max(1, config.getTimeout().toSeconds());
+        try (Connection connection = openConnection(request, config.getTimeout())) {
+            if (!connection.isValid(timeoutSeconds)) {
+                throw new SQLException("데이터베이스 연결이 응답하지 않습니다.");
+            }
+            String primaryDb = parseDatabaseName(request.databaseName());
+            List<String> schemas = resolveSchemas(request.dbType(), request.databaseName(), primaryDb);
+            CatalogCounts counts = countCatalog(connection, request.dbType(), schemas, timeoutSeconds);
+            SchemaOverview preview = null;
+            if (previewTables != null && previewTables > 0) {
+                int limit = Math.min(previewTables, config.getMaxPreviewTables());
+                preview = new SchemaOverview(primaryDb, schemas, previewTables(connection, request.dbType(), schemas, limit, timeoutSeconds));
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            if (counts.tables() == 0) {
+                return new DbTestResponse(false, "연결되었지만 조회할 수 있는 테이블이 없습니다. 데이터베이스 이름과 권한을 확인해주세요.",
+                        preview, 0, 0, 0, elapsedMs);
+            }
+            String message = counts.readable() < counts.tables()
+                    ? String.format("총 %d개 테이블을 발견했습니다. (SELECT 가능 %d개)", counts.tables(), counts.readable())
+                    : String.format("총 %d개 테이블을 발견했습니다.", counts.tables());
+            return new DbTestResponse(counts.readable() > 0, message, preview, counts.tables(), counts.columns(),
+                    counts.readable(), elapsedMs);
         } catch (Exception ex) {
-            log.warn("DB metadata 조회 실패: {}", ex.getMessage());
-            return new DbTestResponse(false, ex.getMessage(), null);
+            log.warn("DB 연결 테스트 실패: {}", ex.getMessage());
+            return DbTestResponse.failed(ex.getMessage(), (System.nanoTime() - started) / 1_000_000);
         }
     }
 
-    public SchemaOverview fetchAndThrow(DbConnectionRequest request) throws Exception {
-        try (Connection connection = openConnection(request)) {
-            return extractSchema(connection, request);
-        }
+    /**
+     * Reads the full schema.
+     *
+     * @param dbId the registered database, for metrics; {@code null} before registration
+     */
+    public SchemaOverview fetchAndThrow(DbConnectionRequest request, Long dbId) throws Exception {
+        return appMetrics.timeChecked("querybot.schema.extraction",
+                AppMetrics.db(dbId).and("db.type", request.dbType().name()), () -> {
+                    try (Connection connection = openConnection(request, null)) {
+                        return extractSchema(connection, request);
+                    }
+                });
     }
 
-    private Connection openConnection(DbConnectionRequest request) throws Exception {
+    /**
+     * @param timeout connect and socket read timeout; {@code null} keeps the driver defaults (no read timeout), which
+     *                full schema extraction on a large catalog needs
+     */
+    private Connection openConnection(DbConnectionRequest request, Duration timeout) throws Exception {
         String jdbcUrl = buildJdbcUrl(request);
         Properties properties = new Properties();
         properties.setProperty("user", request.username());
@@ -49,9 +109,129 @@ public class DatabaseMetadataService {
         // Enable schema comments retrieval where supported
         properties.setProperty("remarksReporting", "true");
         properties.setProperty("useInformationSchema", "true");
+        if (timeout != null) {
+            if (request.dbType() == DatabaseType.POSTGRESQL) {
+                // pgjdbc takes seconds.
+                String seconds = String.valueOf(Math.max(1, timeout.toSeconds()));
+                properties.setProperty("loginTimeout", seconds);
+                properties.setProperty("connectTimeout", seconds);
+                properties.setProperty("socketTimeout", seconds);
+            } else {
+                // MySQL and MariaDB drivers take milliseconds.
+                String millis = String.valueOf(Math.max(1, timeout.toMillis()));
+                properties.setProperty("connectTimeout", millis);
+                properties.setProperty("socketTimeout", millis);
+            }
+        }
         return DriverManager.getConnection(jdbcUrl, properties);
     }
 
+    /**
+     * Counts base tables and their columns in the target schemas in a single query. On PostgreSQL tables the user may
+     * not SELECT are counted separately; MySQL and MariaDB only show tables the user has privileges on, so there every
+     * visible table counts as readable.
+     */
+    private CatalogCounts countCatalog(Connection connection, DatabaseType dbType, List<String> schemas, int timeoutSeconds) throws SQLException {
+        boolean allSchemas = schemas.contains("%");
+        String sql;
+        if (dbType == DatabaseType.POSTGRESQL) {
+            // relnatts also counts dropped columns, which is close enough here and avoids reading pg_attribute.
+            sql = """
+                    select count(*) as table_count,
+                           coalesce(sum(cls.relnatts), 0) as column_count,
+                           count(*) filter (where has_table_privilege(cls.oid, 'SELECT')) as readable_count
+                    from pg_catalog.pg_class cls
+                    join pg_catalog.pg_namespace nsp on nsp.oid = cls.relnamespace
+                    where cls.relkind in ('r', 'p') and cls.relpersistence <> 't'
+                      and nsp.nspname not in ('pg_catalog', 'information_schema')
+                      and nsp.nspname not like 'pg_toast%'
+                    """ + (allSchemas ? "" : "  and nsp.nspname in (" + placeholders(schemas.size()) + ")\n");
+        } else {
+            sql = """
+                    select count(*) as table_count,
+                           coalesce(sum(c.column_count), 0) as column_count,
+                           count(*) as readable_count
+                    from information_schema.tables t
+                    left join (select table_schema, table_name, count(*) as column_count
+                               from information_schema.columns
+                               where table_schema in (%1$s)
+                               group by table_schema, table_name) c
+                           on c.table_schema = t.table_schema and c.table_name = t.table_name
+                    where t.table_type = 'BASE TABLE'
+                      and t.table_schema in (%1$s)
+                    """.formatted(placeholders(schemas.size()));
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setQueryTimeout(timeoutSeconds);
+            int index = 1;
+            if (dbType != DatabaseType.POSTGRESQL) {
+                for (String schema : schemas) {
+                    ps.setString(index++, schema);
+                }
+            }
+            if (dbType != DatabaseType.POSTGRESQL || !allSchemas) {
+                for (String schema : schemas) {
+                    ps.setString(index++, schema);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new CatalogCounts(rs.getInt("table_count"), rs.getInt("column_count"), rs.getInt("readable_count"));
+            }
+        }
+    }
+
+    private List<TableOverview> previewTables(Connection connection, DatabaseType dbType, List<String> schemas, int limit,
+                                              int timeoutSeconds) throws SQLException {
+        boolean allSchemas = dbType == DatabaseType.POSTGRESQL && schemas.contains("%");
+        String sql;
+        if (dbType == DatabaseType.POSTGRESQL) {
+            sql = """
+                    select nsp.nspname as table_schema, cls.relname as table_name,
+                           obj_description(cls.oid, 'pg_class') as table_comment
+                    from pg_catalog.pg_class cls
+                    join pg_catalog.pg_namespace nsp on nsp.oid = cls.relnamespace
+                    where cls.relkind in ('r', 'p') and cls.relpersistence <> 't'
+                      and nsp.nspname not in ('pg_catalog', 'information_schema')
+                      and nsp.nspname not like 'pg_toast%'
+                    """ + (allSchemas ? "" : "  and nsp.nspname in (" + placeholders(schemas.size()) + ")\n")
+                    + "order by 1, 2\nlimit ?";
+        } else {
+            sql = """
+                    select table_schema, table_name, table_comment
+                    from information_schema.tables
+                    where table_type = 'BASE TABLE'
+                      and table_schema in (%s)
+                    order by 1, 2
+                    limit ?
+                    """.formatted(placeholders(schemas.size()));
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setQueryTimeout(timeoutSeconds);
+            int index = 1;
+            if (!allSchemas) {
+                for (String schema : schemas) {
+                    ps.setString(index++, schema);
+                }
+            }
+            ps.setInt(index, limit);
+            ps.setMaxRows(limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<TableOverview> tables = new ArrayList<>();
+                while (rs.next()) {
+                    String comment = rs.getString("table_comment");
+                    tables.add(new TableOverview(rs.getString("table_schema"), rs.getString("table_name"), List.of(),
+                            comment != null && !comment.isBlank() ? comment : null));
+                }
+                return tables;
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     private String buildJdbcUrl(DbConnectionRequest request) {
         int port = request.port() != null ? request.port() : request.dbType().getDefaultPort();
         DatabaseType type = request.dbType();
@@ -139,6 +319,9 @@ public class DatabaseMetadataService {
         return List.of(primaryDb);
     }
 
+    private record CatalogCounts(int tables, int columns, int readable) {
+    }
+
     private List<ColumnOverview> fetchColumns(DatabaseType dbType, Connection connection, String catalog, String schema, String tableName, DatabaseMetaData metaData) throws Exception {
         // For PostgreSQL, prefer information_schema to avoid driver quirks and ensure full column lists.
         if (dbType == DatabaseType.POSTGRESQL) {
@@ -0,0 +1,98 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory view of the registered databases. All connections are loaded together on first use and kept until a
+ * register, refresh, setting change or delete invalidates them, so the hot paths (ask, execute, session lists) resolve
+ * a database without touching SQLite. With several instances on a shared store, another instance's changes are picked
+ * up once the view is older than {@code app.database-registry-ttl}.
+ */
+@Service
+public class DatabaseRegistry {
+    private final DatabaseConnectionRepository repository;
+    private final AppProperties appProperties;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Loaded loaded;
+
+    public DatabaseRegistry(DatabaseConnectionRepository repository, AppProperties appProperties) {
+        this.repository = repository;
+        this.appProperties = appProperties;
+    }
+
+    public Optional<DatabaseSnapshot> find(Long id) {
+        return Optional.ofNullable(snapshots().get(id));
+    }
+
+    public DatabaseSnapshot require(Long id) {
+        return find(id).orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
+    }
+
+    public boolean exists(Long id) {
+        return snapshots().containsKey(id);
+    }
+
+    /**
+     * All registered databases in registration order.
+     */
+    public Collection<DatabaseSnapshot> all() {
+        return snapshots().values();
+    }
+
+    /**
+     * Drops the cached view. Inside a transaction the reload is also forced after commit, so a reader that loaded
+     * between this call and the commit does not keep the old state.
+     */
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private synchronized void clear() {
+        generation.incrementAndGet();
+        loaded = null;
+    }
+
+    private Map<Long, DatabaseSnapshot> snapshots() {
+        Loaded current = loaded;
+        if (current != null && System.nanoTime() - current.loadedAt() < appProperties.getDatabaseRegistryTtl().toNanos()) {
+            return current.snapshots();
+        }
+        long loadGeneration = generation.get();
+        long loadedAt = System.nanoTime();
+        Map<Long, DatabaseSnapshot> snapshots = new LinkedHashMap<>();
+        for (DatabaseConnection connection : repository.findAll()) {
+            snapshots.put(connection.getId(), DatabaseSnapshot.of(connection));
+        }
+        Map<Long, DatabaseSnapshot> result = Collections.unmodifiableMap(snapshots);
+        // An invalidation during the load means what we read may already be stale; serve it once but do not keep it.
+        synchronized (this) {
+            if (generation.get() == loadGeneration) {
+                loaded = new Loaded(result, loadedAt);
+            }
+        }
+        return result;
+    }
+
+    private record Loaded(Map<Long, DatabaseSnapshot> snapshots, long loadedAt) {
+    }
+}
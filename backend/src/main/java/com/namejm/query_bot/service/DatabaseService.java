@@ -2,53 +2,76 @@ package com.namejm.query_bot.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.domain.DatabaseSchema;
 import com.namejm.query_bot.dto.DbConnectionRequest;
 import com.namejm.query_bot.dto.DbSummary;
 import com.namejm.query_bot.dto.SchemaOverview;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.repository.ArchivedSessionRepository;
 import com.namejm.query_bot.repository.DatabaseConnectionRepository;
 import com.namejm.query_bot.repository.ChatMessageRepository;
 import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.DatabaseSchemaRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class DatabaseService {
 
     private final DatabaseConnectionRepository repository;
+    private final DatabaseSchemaRepository schemaRepository;
+    private final DatabaseRegistry databaseRegistry;
     private final DatabaseMetadataService metadataService;
     private final ObjectMapper objectMapper;
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final QuestionCacheService questionCacheService;
+    private final MetabaseOutboxRepository metabaseOutboxRepository;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final TransactionTemplate transactionTemplate;
 
-    public DatabaseService(DatabaseConnectionRepository repository, DatabaseMetadataService metadataService, ObjectMapper objectMapper,
-                           ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository) {
+    public DatabaseService(DatabaseConnectionRepository repository, DatabaseSchemaRepository schemaRepository,
+                           DatabaseRegistry databaseRegistry, DatabaseMetadataService metadataService, ObjectMapper objectMapper,
+                           ChatSessionRepository chatSessionRepository, ChatMessageRepository chatMessageRepository,
+                           QuestionCacheService questionCacheService, MetabaseOutboxRepository metabaseOutboxRepository,
+                           ArchivedSessionRepository archivedSessionRepository, PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.schemaRepository = schemaRepository;
+        this.databaseRegistry = databaseRegistry;
         this.metadataService = metadataService;
         this.objectMapper = objectMapper;
         this.chatSessionRepository = chatSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.questionCacheService = questionCacheService;
+        this.metabaseOutboxRepository = metabaseOutboxRepository;
+        this.archivedSessionRepository = archivedSessionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<DbSummary> list() {
-        return repository.findAll()
-                .stream()
-                .map(entity -> new DbSummary(
-                        entity.getId(),
-                        entity.getName(),
-                        entity.getDbType(),
-                        entity.getHost(),
-                        entity.getPort(),
-                        entity.getDatabaseName(),
-                        entity.isSchemaReady()
-                ))
+        return databaseRegistry.all().stream()
+                .map(DatabaseSnapshot::toSummary)
                 .toList();
     }
 
-    public Optional<DatabaseConnection> findById(Long id) {
-        return repository.findById(id);
+    /**
+     * Reference for associations (e.g. a new session's database) without loading the row.
+     */
+    public DatabaseConnection reference(Long id) {
+        return repository.getReferenceById(id);
+    }
+
+    /**
+     * The collected schema as stored JSON; empty when it has not been collected yet.
+     */
+    public Optional<String> findSchemaJson(Long id) {
+        return schemaRepository.findSchemaJson(id);
     }
 
     @Transactional
@@ -61,14 +84,16 @@ public class DatabaseService {
         entity.setDatabaseName(request.databaseName());
         entity.setUsername(request.username());
         entity.setPassword(request.password());
-        entity.setSchemaJson(objectMapper.writeValueAsString(schema));
         entity.setSchemaReady(true);
         entity.setSchemaUpdatedAt(LocalDateTime.now());
-        return repository.save(entity);
+        DatabaseConnection saved = repository.save(entity);
+        schemaRepository.save(new DatabaseSchema(saved.getId(), objectMapper.writeValueAsString(schema)));
+        databaseRegistry.invalidate();
+        return saved;
     }
 
     public SchemaOverview reloadSchema(DbConnectionRequest request) throws Exception {
-        return metadataService.fetchAndThrow(request);
+        return metadataService.fetchAndThrow(request, null);
     }
 
     public SchemaOverview fetchLiveSchema(DatabaseConnection db) throws Exception {
@@ -81,41 +106,70 @@ public class DatabaseService {
                 db.getUsername(),
                 db.getPassword()
         );
-        return metadataService.fetchAndThrow(req);
+        return metadataService.fetchAndThrow(req, db.getId());
     }
 
     @Transactional
     public void deleteDatabase(Long id) {
         DatabaseConnection connection = repository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
-        var sessions = chatSessionRepository.findByDatabaseConnection(connection);
-        if (!sessions.isEmpty()) {
-            chatMessageRepository.deleteAllBySessionIn(sessions);
-            chatSessionRepository.deleteAll(sessions);
+        List<Long> sessionIds = chatSessionRepository.findIdsByDatabaseId(id);
+        if (!sessionIds.isEmpty()) {
+            chatMessageRepository.deleteBySessionIds(sessionIds);
+            metabaseOutboxRepository.deleteBySessionIds(sessionIds);
+            chatSessionRepository.deleteByIds(sessionIds);
         }
+        // Archived sessions of the database go too: they can no longer be restored, and SQLite may hand the id to the
+        // next registered database. Their records stay in the compressed archive files, which are append-only.
+        archivedSessionRepository.deleteByDatabaseConnectionId(id);
+        questionCacheService.evict(id);
+        schemaRepository.deleteById(id);
         repository.delete(connection);
+        databaseRegistry.invalidate();
     }
 
-    @Transactional
+    /**
+     * Re-reads the live schema and stores it. The extraction talks to the target database and can take a while, so it
+     * runs outside any transaction on the registry's copy of the settings; only storing the result takes the writer.
+     */
     public DbSummary refresh(Long id) throws Exception {
-        DatabaseConnection db = repository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
-
+        DatabaseSnapshot snapshot = databaseRegistry.require(id);
         DbConnectionRequest req = new DbConnectionRequest(
-                db.getName(),
-                db.getDbType(),
-                db.getHost(),
-                db.getPort(),
-                db.getDatabaseName(),
-                db.getUsername(),
-                db.getPassword()
+                snapshot.name(),
+                snapshot.dbType(),
+                snapshot.host(),
+                snapshot.port(),
+                snapshot.databaseName(),
+                snapshot.username(),
+                snapshot.password()
         );
-        SchemaOverview schema = metadataService.fetchAndThrow(req);
-        db.setSchemaJson(objectMapper.writeValueAsString(schema));
-        db.setSchemaReady(true);
-        db.setSchemaUpdatedAt(LocalDateTime.now());
-        repository.save(db);
+        SchemaOverview schema = metadataService.fetchAndThrow(req, id);
+        String schemaJson = objectMapper.writeValueAsString(schema);
+
+        DatabaseConnection db = transactionTemplate.execute(status -> {
+            DatabaseConnection stored = repository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
+            schemaRepository.findById(id).ifPresentOrElse(
+                    row -> row.setSchemaJson(schemaJson),
+                    () -> schemaRepository.save(new DatabaseSchema(id, schemaJson)));
+            stored.setSchemaReady(true);
+            stored.setSchemaUpdatedAt(LocalDateTime.now());
+            databaseRegistry.invalidate();
+            return repository.save(stored);
+        });
+
+        return new DbSummary(db.getId(), db.getName(), db.getDbType(), db.getHost(), db.getPort(), db.getDatabaseName(), db.isSchemaReady(),
+                db.isSpeculativeExecution());
+    }
 
-        return new DbSummary(db.getId(), db.getName(), db.getDbType(), db.getHost(), db.getPort(), db.getDatabaseName(), db.isSchemaReady());
+    @Transactional
+    public DbSummary updateSpeculativeExecution(Long id, boolean enabled) {
+        DatabaseConnection db = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
+        db.setSpeculativeExecution(enabled);
+        repository.save(db);
+        databaseRegistry.invalidate();
+        return new DbSummary(db.getId(), db.getName(), db.getDbType(), db.getHost(), db.getPort(), db.getDatabaseName(), db.isSchemaReady(),
+                db.isSpeculativeExecution());
     }
 }
@@ -0,0 +1,11 @@
+package com.namejm.query_bot.service;
+
+/**
+ * Thrown when a job is started manually while it is already running on this or another instance.
+ */
+public class JobBusyException extends RuntimeException {
+
+    public JobBusyException(String jobName) {
+        super("이미 실행 중인 작업입니다: " + jobName);
+    }
+}
@@ -0,0 +1,13 @@
+package com.namejm.query_bot.service;
+
+/**
+ * The lock a running {@link ClusterJob} holds. A job that works through many items checks it between items and stops
+ * once the lock is lost, since another instance may already be running the same job.
+ */
+public interface JobLease {
+
+    /**
+     * Whether this instance still holds the job's lock: the last renewal succeeded and its lease has not run out.
+     */
+    boolean held();
+}
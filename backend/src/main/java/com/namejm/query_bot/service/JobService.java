@@ -0,0 +1,317 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.JobLock;
+import com.namejm.query_bot.domain.JobRun;
+import com.namejm.query_bot.dto.JobRunSummary;
+import com.namejm.query_bot.dto.JobSummary;
+import com.namejm.query_bot.model.JobRunStatus;
+import com.namejm.query_bot.model.JobTrigger;
+import com.namejm.query_bot.repository.JobLockRepository;
+import com.namejm.query_bot.repository.JobRunRepository;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs every {@link ClusterJob} on its cron schedule, at most once at a time across all instances. Before a run the
+ * instance takes the job's row in {@code job_locks} with a lease (a single conditional update, so only one instance
+ * wins) and keeps renewing it while the job runs; instances that lose simply skip that firing. Each run is recorded in
+ * {@code job_runs}. Runs are executed on the job executor, never on the scheduler thread. A run that loses its lock
+ * anyway (renewals failed for a whole lease) sees it through {@link JobLease} and is expected to stop.
+ */
+@Service
+public class JobService implements SchedulingConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+    private static final String DISABLED = "-";
+    private static final LocalDateTime UNLOCKED = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int DEFAULT_RUNS = 20;
+    private static final int MAX_RUNS = 100;
+
+    private final Map<String, ClusterJob> jobs = new LinkedHashMap<>();
+    private final JobLockRepository lockRepository;
+    private final JobRunRepository runRepository;
+    private final AppProperties appProperties;
+    private final TaskScheduler taskScheduler;
+    private final Executor jobExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+
+    public JobService(List<ClusterJob> jobs, JobLockRepository lockRepository, JobRunRepository runRepository,
+                      AppProperties appProperties, TaskScheduler taskScheduler,
+                      @Qualifier("jobExecutor") Executor jobExecutor, PlatformTransactionManager transactionManager) {
+        for (ClusterJob job : jobs) {
+            if (this.jobs.putIfAbsent(job.name(), job) != null) {
+                throw new IllegalStateException("Duplicate job name: " + job.name());
+            }
+        }
+        this.lockRepository = lockRepository;
+        this.runRepository = runRepository;
+        this.appProperties = appProperties;
+        this.taskScheduler = taskScheduler;
+        this.jobExecutor = jobExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        String configuredId = appProperties.getJobs().getInstanceId();
+        this.instanceId = configuredId != null && !configuredId.isBlank() ? configuredId.trim() : defaultInstanceId();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        for (ClusterJob job : jobs.values()) {
+            String cron = cron(job);
+            if (DISABLED.equals(cron)) {
+                log.info("Job {} has no schedule; manual runs only", job.name());
+                continue;
+            }
+            registrar.addCronTask(() -> dispatch(job), cron);
+            log.info("Job {} scheduled with cron '{}' on instance {}", job.name(), cron, instanceId);
+        }
+    }
+
+    public List<JobSummary> list() {
+        LocalDateTime now = LocalDateTime.now();
+        return jobs.values().stream()
+                .map(job -> {
+                    JobLock lock = lockRepository.findById(job.name()).orElse(null);
+                    boolean locked = lock != null && lock.getLockedUntil().isAfter(now);
+                    JobRunSummary lastRun = runRepository.findFirstByJobNameOrderByStartedAtDescIdDesc(job.name())
+                            .map(JobService::toSummary)
+                            .orElse(null);
+                    return new JobSummary(job.name(), cron(job), locked, locked ? lock.getLockedBy() : null,
+                            locked ? lock.getLockedUntil() : null, lastRun);
+                })
+                .toList();
+    }
+
+    public List<JobRunSummary> runs(String name, Integer limit) {
+        job(name);
+        int size = limit == null ? DEFAULT_RUNS : Math.max(1, Math.min(limit, MAX_RUNS));
+        return runRepository.findByJobNameOrderByStartedAtDescIdDesc(name, PageRequest.of(0, size)).stream()
+                .map(JobService::toSummary)
+                .toList();
+    }
+
+    /**
+     * Starts the job now, in the background. Fails with {@link JobBusyException} when any instance is running it.
+     */
+    public JobRunSummary trigger(String name) {
+        ClusterJob job = job(name);
+        Lease lease = acquire(job.name());
+        if (lease == null) {
+            throw new JobBusyException(job.name());
+        }
+        JobRun run = null;
+        try {
+            run = start(job.name(), JobTrigger.MANUAL);
+            JobRun started = run;
+            jobExecutor.execute(() -> execute(job, started, lease));
+            return toSummary(run);
+        } catch (RuntimeException ex) {
+            if (run != null) {
+                finish(run.getId(), JobRunStatus.FAILED, "작업을 시작하지 못했습니다: " + ex.getMessage(), 0);
+            }
+            release(job.name());
+            throw ex;
+        }
+    }
+
+    private void dispatch(ClusterJob job) {
+        try {
+            jobExecutor.execute(() -> runScheduled(job));
+        } catch (RuntimeException ex) {
+            log.warn("Job {} not started: {}", job.name(), ex.getMessage());
+        }
+    }
+
+    private void runScheduled(ClusterJob job) {
+        Lease lease = acquire(job.name());
+        if (lease == null) {
+            log.debug("Job {} is held by another instance; skipping", job.name());
+            return;
+        }
+        JobRun run;
+        try {
+            run = start(job.name(), JobTrigger.SCHEDULED);
+        } catch (RuntimeException ex) {
+            release(job.name());
+            throw ex;
+        }
+        execute(job, run, lease);
+    }
+
+    /**
+     * Runs the job while holding its lock, renewing the lease until it finishes, then records the outcome and releases.
+     */
+    private void execute(ClusterJob job, JobRun run, Lease lease) {
+        Duration renewEvery = lease().dividedBy(3);
+        ScheduledFuture<?> renewal = taskScheduler.scheduleAtFixedRate(() -> renew(lease),
+                Instant.now().plus(renewEvery), renewEvery);
+        long started = System.nanoTime();
+        JobRunStatus status;
+        String message;
+        try {
+            message = job.run(lease);
+            status = JobRunStatus.SUCCEEDED;
+            log.info("Job {} finished: {}", job.name(), message);
+        } catch (Exception ex) {
+            message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            status = JobRunStatus.FAILED;
+            log.warn("Job {} failed", job.name(), ex);
+        } finally {
+            renewal.cancel(false);
+        }
+        try {
+            finish(run.getId(), status, message, (System.nanoTime() - started) / 1_000_000);
+            pruneHistory();
+        } finally {
+            release(job.name());
+        }
+    }
+
+    /**
+     * Takes the job's lock, or returns null when another instance holds it.
+     */
+    private Lease acquire(String name) {
+        ensureLockRow(name);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lease());
+        Boolean acquired = transactionTemplate.execute(status -> {
+            if (lockRepository.acquire(name, instanceId, now, until) == 0) {
+                return false;
+            }
+            runRepository.failAbandoned(name, JobRunStatus.RUNNING, JobRunStatus.FAILED, now,
+                    "실행하던 인스턴스가 응답하지 않아 잠금이 만료되었습니다.");
+            return true;
+        });
+        return Boolean.TRUE.equals(acquired) ? new Lease(name, until) : null;
+    }
+
+    private void ensureLockRow(String name) {
+        if (lockRepository.existsById(name)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> lockRepository.save(new JobLock(name, UNLOCKED)));
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance created it first.
+        }
+    }
+
+    private void renew(Lease lease) {
+        if (lease.lost) {
+            return;
+        }
+        try {
+            LocalDateTime until = LocalDateTime.now().plus(lease());
+            Integer renewed = transactionTemplate.execute(status -> lockRepository.renew(lease.name, instanceId, until));
+            if (renewed == null || renewed == 0) {
+                lease.lost = true;
+                log.warn("Lost the lock of job {} while it was running; the job stops at its next check", lease.name);
+            } else {
+                lease.until = until;
+            }
+        } catch (Exception ex) {
+            // Still held until the current lease runs out; the next renewal may succeed.
+            log.warn("Failed to renew the lock of job {}", lease.name, ex);
+        }
+    }
+
+    private void release(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> lockRepository.release(name, instanceId, LocalDateTime.now()));
+        } catch (Exception ex) {
+            // The lease runs out on its own.
+            log.warn("Failed to release the lock of job {}", name, ex);
+        }
+    }
+
+    private JobRun start(String name, JobTrigger trigger) {
+        JobRun run = new JobRun();
+        run.setJobName(name);
+        run.setInstanceId(instanceId);
+        run.setTriggerType(trigger);
+        run.setStartedAt(LocalDateTime.now());
+        return transactionTemplate.execute(status -> runRepository.save(run));
+    }
+
+    private void finish(Long runId, JobRunStatus result, String message, long durationMs) {
+        transactionTemplate.executeWithoutResult(status -> runRepository.findById(runId).ifPresent(run -> {
+            run.setStatus(result);
+            run.setMessage(message);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs(durationMs);
+        }));
+    }
+
+    private void pruneHistory() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(appProperties.getJobs().getHistoryRetention());
+        transactionTemplate.executeWithoutResult(status -> runRepository.deleteFinishedBefore(cutoff, JobRunStatus.RUNNING));
+    }
+
+    private ClusterJob job(String name) {
+        ClusterJob job = jobs.get(name);
+        if (job == null) {
+            throw new IllegalArgumentException("작업을 찾을 수 없습니다: " + name);
+        }
+        return job;
+    }
+
+    private String cron(ClusterJob job) {
+        String configured = appProperties.getJobs().getSchedules().get(job.name());
+        return configured != null && !configured.isBlank() ? configured.trim() : job.defaultCron();
+    }
+
+    private Duration lease() {
+        return appProperties.getJobs().getLease();
+    }
+
+    private static JobRunSummary toSummary(JobRun run) {
+        return new JobRunSummary(run.getId(), run.getJobName(), run.getInstanceId(), run.getTriggerType(), run.getStatus(),
+                run.getStartedAt(), run.getFinishedAt(), run.getDurationMs(), run.getMessage());
+    }
+
+    private static final class Lease implements JobLease {
+        private final String name;
+        private volatile LocalDateTime until;
+        private volatile boolean lost;
+
+        private Lease(String name, LocalDateTime until) {
+            this.name = name;
+            this.until = until;
+        }
+
+        @Override
+        public boolean held() {
+            return !lost && LocalDateTime.now().isBefore(until);
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
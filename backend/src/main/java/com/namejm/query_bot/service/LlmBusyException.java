@@ -0,0 +1,19 @@
+package com.namejm.query_bot.service;
+
+/**
+ * Thrown when an LLM request cannot be admitted by {@link LlmRequestScheduler}, either because the queue is full or
+ * because it waited longer than the configured maximum.
+ */
+public class LlmBusyException extends RuntimeException {
+
+    private final int position;
+
+    public LlmBusyException(int position) {
+        super("요청이 많아 AI 응답 대기열이 가득 찼습니다. (대기 순번 " + position + ") 잠시 후 다시 시도해주세요.");
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,269 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.dto.LlmQueueStatus;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gatekeeper in front of the LLM provider. At most {@code maxConcurrent} completions run at once; everything else waits in
+ * per-user queues that are themselves split per database. Waiting requests are released round-robin (user first, then
+ * database), so one busy user or database cannot starve the others. Requests that cannot be queued, or wait longer than
+ * {@code maxWait}, fail fast with {@link LlmBusyException}.
+ * <p>
+ * Queued requests do not hold a thread: a task is only handed to the ask executor once it has been granted a slot.
+ */
+@Service
+public class LlmRequestScheduler {
+    private static final Logger log = LoggerFactory.getLogger(LlmRequestScheduler.class);
+
+    private final AppProperties appProperties;
+    private final Executor askExecutor;
+    private final LinkedHashMap<String, UserQueue> queues = new LinkedHashMap<>();
+    private int active;
+    private int queued;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+
+    public LlmRequestScheduler(AppProperties appProperties, @Qualifier("askExecutor") Executor askExecutor) {
+        this.appProperties = appProperties;
+        this.askExecutor = askExecutor;
+    }
+
+    public <T> CompletableFuture<T> submit(String user, Long dbId, Callable<T> task) {
+        AppProperties.LlmScheduler config = appProperties.getLlmScheduler();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Ticket ticket = new Ticket(user == null ? "anonymous" : user, dbId, () -> run(task, result), result::completeExceptionally);
+        synchronized (this) {
+            if (active < config.getMaxConcurrent() && queued == 0) {
+                active++;
+                start(ticket);
+                return result;
+            }
+            UserQueue userQueue = queues.get(ticket.user);
+            int queuedForUser = userQueue == null ? 0 : userQueue.size();
+            if (queued >= config.getMaxQueueSize() || queuedForUser >= config.getMaxQueuedPerUser()) {
+                rejected.incrementAndGet();
+                result.completeExceptionally(new LlmBusyException(queued + 1));
+                return result;
+            }
+            queues.computeIfAbsent(ticket.user, key -> new UserQueue()).add(ticket);
+            queued++;
+        }
+        CompletableFuture.delayedExecutor(config.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> expire(ticket));
+        return result;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> result) {
+        try {
+            result.complete(task.call());
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+        } finally {
+            completed.incrementAndGet();
+            release();
+        }
+    }
+
+    private synchronized void expire(Ticket ticket) {
+        if (ticket.started) {
+            return;
+        }
+        int position = positionOf(ticket);
+        if (removeQueued(ticket)) {
+            timedOut.incrementAndGet();
+            log.info("LLM request timed out in queue user={} db={} position={}", ticket.user, ticket.dbId, position);
+            ticket.reject.accept(new LlmBusyException(position));
+        }
+    }
+
+    private void start(Ticket ticket) {
+        ticket.started = true;
+        waited.incrementAndGet();
+        totalWaitMs.addAndGet((System.nanoTime() - ticket.enqueuedAt) / 1_000_000);
+        try {
+            askExecutor.execute(ticket.start);
+        } catch (RuntimeException ex) {
+            active--;
+            ticket.reject.accept(ex);
+        }
+    }
+
+    private synchronized void release() {
+        active--;
+        int maxConcurrent = appProperties.getLlmScheduler().getMaxConcurrent();
+        while (active < maxConcurrent && queued > 0) {
+            Ticket next = pollNext();
+            if (next == null) {
+                break;
+            }
+            active++;
+            start(next);
+        }
+    }
+
+    /**
+     * Takes the head of the next user's next database queue and rotates both to the back.
+     */
+    private Ticket pollNext() {
+        Iterator<Map.Entry<String, UserQueue>> users = queues.entrySet().iterator();
+        if (!users.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, UserQueue> entry = users.next();
+        users.remove();
+        Ticket ticket = entry.getValue().poll();
+        if (!entry.getValue().isEmpty()) {
+            queues.put(entry.getKey(), entry.getValue());
+        }
+        if (ticket != null) {
+            queued--;
+        }
+        return ticket;
+    }
+
+    private boolean removeQueued(Ticket ticket) {
+        UserQueue userQueue = queues.get(ticket.user);
+        if (userQueue == null || !userQueue.remove(ticket)) {
+            return false;
+        }
+        queued--;
+        if (userQueue.isEmpty()) {
+            queues.remove(ticket.user);
+        }
+        return true;
+    }
+
+    /**
+     * 1-based position of the ticket in release order, simulated on a copy of the queues.
+     */
+    private int positionOf(Ticket ticket) {
+        LinkedHashMap<String, UserQueue> copy = new LinkedHashMap<>();
+        queues.forEach((user, queue) -> copy.put(user, queue.copy()));
+        int position = 0;
+        while (!copy.isEmpty()) {
+            Iterator<Map.Entry<String, UserQueue>> users = copy.entrySet().iterator();
+            Map.Entry<String, UserQueue> entry = users.next();
+            users.remove();
+            Ticket next = entry.getValue().poll();
+            position++;
+            if (next == ticket) {
+                return position;
+            }
+            if (!entry.getValue().isEmpty()) {
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return position + 1;
+    }
+
+    public synchronized LlmQueueStatus status() {
+        Map<String, Integer> byUser = new LinkedHashMap<>();
+        Map<Long, Integer> byDatabase = new LinkedHashMap<>();
+        queues.forEach((user, queue) -> {
+            byUser.put(user, queue.size());
+            queue.byDatabase.forEach((dbId, tickets) -> byDatabase.merge(dbId, tickets.size(), Integer::sum));
+        });
+        long waitedCount = waited.get();
+        return new LlmQueueStatus(
+                active,
+                appProperties.getLlmScheduler().getMaxConcurrent(),
+                queued,
+                appProperties.getLlmScheduler().getMaxQueueSize(),
+                byUser,
+                byDatabase,
+                completed.get(),
+                rejected.get(),
+                timedOut.get(),
+                waitedCount == 0 ? 0 : totalWaitMs.get() / waitedCount
+        );
+    }
+
+    private static final class Ticket {
+        private final String user;
+        private final Long dbId;
+        private final Runnable start;
+        private final Consumer<Throwable> reject;
+        private final long enqueuedAt = System.nanoTime();
+        private boolean started;
+
+        private Ticket(String user, Long dbId, Runnable start, Consumer<Throwable> reject) {
+            this.user = user;
+            this.dbId = dbId;
+            this.start = start;
+            this.reject = reject;
+        }
+    }
+
+    /**
+     * One user's waiting requests, one FIFO per database, served round-robin.
+     */
+    private static final class UserQueue {
+        private final LinkedHashMap<Long, Deque<Ticket>> byDatabase = new LinkedHashMap<>();
+
+        void add(Ticket ticket) {
+            byDatabase.computeIfAbsent(ticket.dbId, key -> new ArrayDeque<>()).addLast(ticket);
+        }
+
+        Ticket poll() {
+            Iterator<Map.Entry<Long, Deque<Ticket>>> databases = byDatabase.entrySet().iterator();
+            if (!databases.hasNext()) {
+                return null;
+            }
+            Map.Entry<Long, Deque<Ticket>> entry = databases.next();
+            databases.remove();
+            Ticket ticket = entry.getValue().pollFirst();
+            if (!entry.getValue().isEmpty()) {
+                byDatabase.put(entry.getKey(), entry.getValue());
+            }
+            return ticket;
+        }
+
+        boolean remove(Ticket ticket) {
+            Deque<Ticket> tickets = byDatabase.get(ticket.dbId);
+            if (tickets == null || !tickets.remove(ticket)) {
+                return false;
+            }
+            if (tickets.isEmpty()) {
+                byDatabase.remove(ticket.dbId);
+            }
+            return true;
+        }
+
+        int size() {
+            int size = 0;
+            for (Deque<Ticket> tickets : byDatabase.values()) {
+                size += tickets.size();
+            }
+            return size;
+        }
+
+        boolean isEmpty() {
+            return byDatabase.isEmpty();
+        }
+
+        UserQueue copy() {
+            UserQueue copy = new UserQueue();
+            byDatabase.forEach((dbId, tickets) -> copy.byDatabase.put(dbId, new ArrayDeque<>(tickets)));
+            return copy;
+        }
+    }
+}
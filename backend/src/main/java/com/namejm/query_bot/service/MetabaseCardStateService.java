@@ -0,0 +1,115 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cached existence state of the Metabase cards linked to chat sessions. Reads never call Metabase: unknown or stale
+ * entries are answered optimistically and revalidated in the background, where one collection listing reconciles every
+ * referenced card at once. Cards that turn out to be gone are unlinked from their sessions.
+ */
+@Service
+public class MetabaseCardStateService {
+    private static final Logger log = LoggerFactory.getLogger(MetabaseCardStateService.class);
+
+    private final MetabaseService metabaseService;
+    private final ChatSessionRepository chatSessionRepository;
+    private final AppProperties appProperties;
+    private final Executor metabaseExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, CardState> states = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public MetabaseCardStateService(MetabaseService metabaseService, ChatSessionRepository chatSessionRepository,
+                                    AppProperties appProperties, @Qualifier("metabaseExecutor") Executor metabaseExecutor,
+                                    PlatformTransactionManager transactionManager) {
+        this.metabaseService = metabaseService;
+        this.chatSessionRepository = chatSessionRepository;
+        this.appProperties = appProperties;
+        this.metabaseExecutor = metabaseExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * True only when the card is known to be deleted. Never blocks on Metabase.
+     */
+    public boolean isMissing(Long cardId) {
+        if (cardId == null || !metabaseService.isAvailable()) {
+            return false;
+        }
+        CardState state = states.get(cardId);
+        if (state == null || isStale(state)) {
+            scheduleRefresh();
+        }
+        return state != null && !state.exists();
+    }
+
+    public void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            metabaseExecutor.execute(() -> {
+                try {
+                    refresh();
+                } catch (Exception ex) {
+                    log.warn("Metabase card state refresh failed", ex);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException ex) {
+            refreshing.set(false);
+            log.debug("Metabase card state refresh not scheduled: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Reconciles every card referenced by a session against the collection listing. Cards not found there (e.g. moved
+     * to another collection) are checked one by one, so only a confirmed 404 unlinks a card.
+     */
+    void refresh() {
+        List<Long> referenced = chatSessionRepository.findReferencedMetabaseCardIds();
+        Optional<Set<Long>> inCollection = metabaseService.fetchCollectionCardIds();
+        Set<Long> missing = new HashSet<>();
+        for (Long cardId : referenced) {
+            boolean exists;
+            if (inCollection.isPresent() && inCollection.get().contains(cardId)) {
+                exists = true;
+            } else {
+                CardState previous = states.get(cardId);
+                exists = previous != null && !isStale(previous) ? previous.exists() : metabaseService.cardExists(cardId);
+            }
+            states.put(cardId, new CardState(exists, System.nanoTime()));
+            if (!exists) {
+                missing.add(cardId);
+            }
+        }
+        states.keySet().retainAll(new HashSet<>(referenced));
+        if (!missing.isEmpty()) {
+            log.info("Unlinking {} deleted Metabase cards from sessions", missing.size());
+            transactionTemplate.executeWithoutResult(status -> chatSessionRepository.clearMetabaseCardIds(missing));
+        }
+    }
+
+    private boolean isStale(CardState state) {
+        return System.nanoTime() - state.checkedAt() > appProperties.getMetabase().getCardStateTtl().toNanos();
+    }
+
+    private record CardState(boolean exists, long checkedAt) {
+    }
+}
@@ -0,0 +1,225 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.domain.MetabaseOutboxEntry;
+import com.namejm.query_bot.dto.MetabaseJobResponse;
+import com.namejm.query_bot.dto.MetabaseQuestionRequest;
+import com.namejm.query_bot.dto.MetabaseQuestionResponse;
+import com.namejm.query_bot.model.MetabaseJobStatus;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes Metabase cards off the request path. Requests are stored in the {@code metabase_outbox} table and a single
+ * background worker sends them, retrying with exponential backoff. Only the newest pending request per session is sent;
+ * older ones are marked superseded. The resulting card id is stored on the session once the call succeeds.
+ * <p>
+ * Each step runs in its own short transaction and the HTTP call runs outside any transaction, so a slow Metabase never
+ * holds the SQLite connection. Before sending, the worker claims the entry with a lease, so with several instances on a
+ * shared database each request is sent by one of them; an instance that dies mid-call leaves the entry to be retried
+ * once the lease runs out.
+ */
+@Service
+public class MetabaseOutboxService {
+    private static final Logger log = LoggerFactory.getLogger(MetabaseOutboxService.class);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+
+    private final MetabaseOutboxRepository outboxRepository;
+    private final ChatSessionRepository chatSessionRepository;
+    private final MetabaseService metabaseService;
+    private final AppProperties appProperties;
+    private final Executor metabaseExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public MetabaseOutboxService(MetabaseOutboxRepository outboxRepository, ChatSessionRepository chatSessionRepository,
+                                 MetabaseService metabaseService, AppProperties appProperties,
+                                 @Qualifier("metabaseExecutor") Executor metabaseExecutor,
+                                 PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.chatSessionRepository = chatSessionRepository;
+        this.metabaseService = metabaseService;
+        this.appProperties = appProperties;
+        this.metabaseExecutor = metabaseExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Stores the request and wakes the worker. A repeated idempotency key, or an identical request that is still
+     * pending, returns the existing job instead of queueing another one.
+     */
+    public MetabaseJobResponse enqueue(MetabaseQuestionRequest request) {
+        MetabaseOutboxEntry entry = transactionTemplate.execute(status -> {
+            if (!chatSessionRepository.existsById(request.sessionId())) {
+                throw new IllegalArgumentException("세션을 찾을 수 없습니다.");
+            }
+            String key = request.idempotencyKey() != null && !request.idempotencyKey().isBlank()
+                    ? request.idempotencyKey().trim()
+                    : null;
+            if (key != null) {
+                Optional<MetabaseOutboxEntry> existing = outboxRepository.findByIdempotencyKey(key);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+            }
+            Optional<MetabaseOutboxEntry> pending = outboxRepository
+                    .findFirstBySessionIdAndStatusOrderByIdDesc(request.sessionId(), MetabaseJobStatus.PENDING)
+                    .filter(candidate -> candidate.getQuery().equals(request.query())
+                            && Objects.equals(candidate.getTitle(), request.title()));
+            if (pending.isPresent()) {
+                return pending.get();
+            }
+            MetabaseOutboxEntry created = new MetabaseOutboxEntry();
+            created.setIdempotencyKey(key != null ? key : UUID.randomUUID().toString());
+            created.setSessionId(request.sessionId());
+            created.setQuery(request.query());
+            created.setTitle(request.title());
+            created.setDescription(request.description());
+            return outboxRepository.save(created);
+        });
+        if (entry.getStatus() == MetabaseJobStatus.PENDING) {
+            wakeUp();
+        }
+        return toResponse(entry);
+    }
+
+    public Optional<MetabaseJobResponse> status(Long jobId) {
+        return outboxRepository.findById(jobId).map(this::toResponse);
+    }
+
+    @Scheduled(fixedDelayString = "${app.metabase.outbox-poll-interval:10s}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            metabaseExecutor.execute(() -> {
+                try {
+                    drain();
+                } catch (Exception ex) {
+                    log.warn("Metabase outbox processing failed", ex);
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RuntimeException ex) {
+            draining.set(false);
+            log.debug("Metabase outbox worker not scheduled: {}", ex.getMessage());
+        }
+    }
+
+    private void drain() {
+        if (!metabaseService.isAvailable()) {
+            return;
+        }
+        int batchSize = appProperties.getMetabase().getOutboxBatchSize();
+        List<MetabaseOutboxEntry> due;
+        do {
+            due = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    MetabaseJobStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+            for (MetabaseOutboxEntry entry : due) {
+                process(entry.getId());
+            }
+        } while (due.size() == batchSize);
+    }
+
+    private void process(Long entryId) {
+        MetabaseOutboxEntry entry = transactionTemplate.execute(status -> {
+            MetabaseOutboxEntry current = outboxRepository.findById(entryId).orElse(null);
+            if (current == null || current.getStatus() != MetabaseJobStatus.PENDING) {
+                return null;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (outboxRepository.claim(entryId, MetabaseJobStatus.PENDING, now, now.plus(CLAIM_LEASE)) == 0) {
+                return null;
+            }
+            // Only the latest request matters for a session's card; everything queued before it is dropped.
+            MetabaseOutboxEntry latest = outboxRepository
+                    .findFirstBySessionIdAndStatusOrderByIdDesc(current.getSessionId(), MetabaseJobStatus.PENDING)
+                    .orElse(current);
+            for (MetabaseOutboxEntry stale : outboxRepository.findBySessionIdAndStatusAndIdLessThan(
+                    current.getSessionId(), MetabaseJobStatus.PENDING, latest.getId())) {
+                stale.setStatus(MetabaseJobStatus.SUPERSEDED);
+            }
+            return latest.getId().equals(current.getId()) ? current : null;
+        });
+        if (entry == null) {
+            return;
+        }
+
+        Optional<ChatSession> session = chatSessionRepository.findById(entry.getSessionId());
+        if (session.isEmpty()) {
+            fail(entryId, "세션을 찾을 수 없습니다.", true);
+            return;
+        }
+        try {
+            MetabaseQuestionResponse card = metabaseService.publishCard(session.get(), entry.getQuery(), entry.getTitle(),
+                    entry.getDescription());
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxRepository.findById(entryId).ifPresent(done -> {
+                    done.setStatus(MetabaseJobStatus.DONE);
+                    done.setAttempts(done.getAttempts() + 1);
+                    done.setCardId(card.id());
+                    done.setCardName(card.name());
+                    done.setLastError(null);
+                });
+                chatSessionRepository.findById(entry.getSessionId()).ifPresent(target -> target.setMetabaseCardId(card.id()));
+            });
+            log.info("Published Metabase card {} for session {}", card.id(), entry.getSessionId());
+        } catch (Exception ex) {
+            log.warn("Metabase publish failed for outbox entry {} (attempt {})", entryId, entry.getAttempts() + 1, ex);
+            fail(entryId, ex.getMessage(), false);
+        }
+    }
+
+    private void fail(Long entryId, String error, boolean permanent) {
+        int maxAttempts = appProperties.getMetabase().getOutboxMaxAttempts();
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(entryId).ifPresent(entry -> {
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(error);
+            if (permanent || attempts >= maxAttempts) {
+                entry.setStatus(MetabaseJobStatus.FAILED);
+                return;
+            }
+            long backoffSeconds = Math.min(MAX_BACKOFF.toSeconds(), BASE_BACKOFF.toSeconds() << Math.min(attempts - 1, 16));
+            entry.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+        }));
+    }
+
+    private MetabaseJobResponse toResponse(MetabaseOutboxEntry entry) {
+        return new MetabaseJobResponse(
+                entry.getId(),
+                entry.getSessionId(),
+                entry.getStatus(),
+                entry.getAttempts(),
+                entry.getCardId(),
+                entry.getCardName(),
+                metabaseService.buildCardUrl(entry.getCardId()),
+                entry.getLastError()
+        );
+    }
+}
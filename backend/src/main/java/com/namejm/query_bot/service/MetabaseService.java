@@ -1,16 +1,21 @@
 package com.namejm.query_bot.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.config.AppMetrics;
 import com.namejm.query_bot.config.AppProperties;
 import com.namejm.query_bot.domain.ChatSession;
-import com.namejm.query_bot.dto.MetabaseQuestionRequest;
 import com.namejm.query_bot.dto.MetabaseQuestionResponse;
-import com.namejm.query_bot.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.Tags;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,39 +30,40 @@ public class MetabaseService {
     private static final DateTimeFormatter TITLE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     private final AppProperties appProperties;
-    private final ChatSessionRepository chatSessionRepository;
     private final ObjectMapper objectMapper;
+    private final AppMetrics appMetrics;
 
-    public MetabaseService(AppProperties appProperties, ChatSessionRepository chatSessionRepository, ObjectMapper objectMapper) {
+    public MetabaseService(AppProperties appProperties, ObjectMapper objectMapper, AppMetrics appMetrics) {
         this.appProperties = appProperties;
-        this.chatSessionRepository = chatSessionRepository;
         this.objectMapper = objectMapper;
+        this.appMetrics = appMetrics;
     }
 
     public boolean isAvailable() {
         return isConfigured();
     }
 
-    public MetabaseQuestionResponse createOrUpdateCard(MetabaseQuestionRequest request) {
+    /**
+     * Creates the session's card, or updates it when the session already links to an existing card. Runs on the outbox
+     * worker; the caller stores the returned card id on the session.
+     */
+    public MetabaseQuestionResponse publishCard(ChatSession session, String query, String title, String description) {
         if (!isConfigured()) {
             throw new IllegalStateException("Metabase 연동 정보가 설정되지 않았습니다.");
         }
 
-        ChatSession session = chatSessionRepository.findById(request.sessionId())
-                .orElseThrow(() -> new IllegalArgumentException("세션을 찾을 수 없습니다."));
-
         boolean isUpdate = session.getMetabaseCardId() != null && cardExists(session.getMetabaseCardId());
 
         Map<String, Object> payload = new HashMap<>();
         String resolvedTitle = isUpdate
-                ? resolveUpdateTitle(request.title(), session)
-                : resolveTitle(request.title(), session.getTitle());
+                ? resolveUpdateTitle(title, session)
+                : resolveTitle(title, session.getTitle());
         payload.put("name", resolvedTitle);
-        payload.put("description", request.description());
+        payload.put("description", description);
         payload.put("collection_id", appProperties.getMetabase().getCollectionKey());
         payload.put("dataset_query", Map.of(
                 "type", "native",
-                "native", Map.of("query", request.query()),
+                "native", Map.of("query", query),
                 "database", appProperties.getMetabase().getDatabaseKey()
         ));
         payload.put("visualization_settings", Map.of());
@@ -89,8 +95,6 @@ public class MetabaseService {
         if (response == null || response.id() == null) {
             throw new IllegalStateException("Metabase 카드 생성에 실패했습니다.");
         }
-        session.setMetabaseCardId(response.id());
-        chatSessionRepository.save(session);
         String url = buildCardUrl(response.id());
         return new MetabaseQuestionResponse(response.id(), response.name(), url);
     }
@@ -147,11 +151,11 @@ public class MetabaseService {
             return true;
         }
         try {
-            ResponseEntity<String> response = client().get()
+            ResponseEntity<String> response = call("card-exists", () -> client().get()
                     .uri("/api/card/" + cardId)
                     .headers(headers -> headers.set("x-api-key", appProperties.getMetabase().getApiKey()))
                     .retrieve()
-                    .toEntity(String.class);
+                    .toEntity(String.class));
             if (response.getStatusCode().value() == 404) {
                 return false;
             }
@@ -168,13 +172,46 @@ public class MetabaseService {
         }
     }
 
+    /**
+     * Ids of all cards in the configured collection, in one call; empty when Metabase is not configured or the listing
+     * fails.
+     */
+    public Optional<Set<Long>> fetchCollectionCardIds() {
+        if (!isConfigured()) {
+            return Optional.empty();
+        }
+        try {
+            String body = call("collection-items", () -> client().get()
+                    .uri("/api/collection/" + appProperties.getMetabase().getCollectionKey() + "/items?models=card")
+                    .headers(headers -> headers.set("x-api-key", appProperties.getMetabase().getApiKey()))
+                    .retrieve()
+                    .body(String.class));
+            if (body == null) {
+                return Optional.empty();
+            }
+            JsonNode root = objectMapper.readTree(body);
+            // Newer Metabase versions wrap the items in {"data": [...]}, older ones return the array directly.
+            JsonNode items = root.isArray() ? root : root.path("data");
+            Set<Long> ids = new HashSet<>();
+            for (JsonNode item : items) {
+                if ("card".equals(item.path("model").asText("card")) && item.hasNonNull("id")) {
+                    ids.add(item.get("id").asLong());
+                }
+            }
+            return Optional.of(ids);
+        } catch (Exception e) {
+            log.warn("Failed to list Metabase collection cards", e);
+            return Optional.empty();
+        }
+    }
+
     private String fetchExistingCardTitle(Long cardId) {
         try {
-            ResponseEntity<String> response = client().get()
+            ResponseEntity<String> response = call("card-title", () -> client().get()
                     .uri("/api/card/" + cardId)
                     .headers(headers -> headers.set("x-api-key", appProperties.getMetabase().getApiKey()))
                     .retrieve()
-                    .toEntity(String.class);
+                    .toEntity(String.class));
             if (!response.getStatusCode().is2xxSuccessful()) {
                 log.warn("Metabase card fetch failed status={}", response.getStatusCode());
                 return null;
@@ -218,7 +255,7 @@ public class MetabaseService {
     private ResponseEntity<String> sendMetabaseRequest(String path, boolean isUpdate, Map<String, Object> payload) {
         logSend(path, payload);
 
-        return (isUpdate ? client().put().uri(path) : client().post().uri(path))
+        return call(isUpdate ? "update-card" : "create-card", () -> (isUpdate ? client().put().uri(path) : client().post().uri(path))
                 .headers(headers -> {
                     headers.setContentType(MediaType.APPLICATION_JSON);
                     headers.setAccept(java.util.List.of(MediaType.APPLICATION_JSON));
@@ -226,7 +263,11 @@ public class MetabaseService {
                 })
                 .body(payload)
                 .retrieve()
-                .toEntity(String.class);
+                .toEntity(String.class));
+    }
+
+    private <T> T call(String operation, Supplier<T> request) {
+        return appMetrics.time("querybot.metabase.call", Tags.of("operation", operation), request);
     }
 
     private String maskApiKey(String apiKey) {
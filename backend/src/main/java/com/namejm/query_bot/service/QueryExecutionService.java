@@ -1,39 +1,56 @@
 package com.namejm.query_bot.service;
 
-import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.config.AppMetrics;
+import com.namejm.query_bot.config.AppProperties;
 import com.namejm.query_bot.dto.ExecuteResponse;
-import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import io.micrometer.core.instrument.Tags;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class QueryExecutionService {
+    private static final Logger log = LoggerFactory.getLogger(QueryExecutionService.class);
 
-    private static final Pattern READ_ONLY_PATTERN =
-            Pattern.compile("^\\s*(select|with)\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern FORBIDDEN_PATTERN = Pattern.compile(
-            "^\\s*(insert|update|delete|create|alter|drop|truncate|merge|replace)\\b",
-            Pattern.CASE_INSENSITIVE);
+    private final DatabaseRegistry databaseRegistry;
+    private final QuestionCacheService questionCacheService;
+    private final AppProperties appProperties;
+    private final AppMetrics appMetrics;
+    private final Executor speculativeExecutor;
+    private final Map<SpeculationKey, Speculation> speculations = new ConcurrentHashMap<>();
 
-    private final DatabaseConnectionRepository databaseConnectionRepository;
-
-    public QueryExecutionService(DatabaseConnectionRepository databaseConnectionRepository) {
-        this.databaseConnectionRepository = databaseConnectionRepository;
+    public QueryExecutionService(DatabaseRegistry databaseRegistry, QuestionCacheService questionCacheService,
+                                 AppProperties appProperties, AppMetrics appMetrics,
+                                 @Qualifier("speculativeExecutor") Executor speculativeExecutor) {
+        this.databaseRegistry = databaseRegistry;
+        this.questionCacheService = questionCacheService;
+        this.appProperties = appProperties;
+        this.appMetrics = appMetrics;
+        this.speculativeExecutor = speculativeExecutor;
     }
 
-    @Transactional(readOnly = true)
+    // Not transactional: the database settings come from the registry and the target query needs no app connection.
     public ExecuteResponse executeSelect(Long dbId, String sql) throws Exception {
-        DatabaseConnection db = databaseConnectionRepository.findById(dbId)
-                .orElseThrow(() -> new IllegalArgumentException("데이터베이스 정보를 찾을 수 없습니다."));
+        DatabaseSnapshot db = databaseRegistry.require(dbId);
 
         String trimmed = sql.trim();
         if (trimmed.endsWith(";")) {
@@ -43,11 +60,91 @@ public class QueryExecutionService {
             throw new IllegalArgumentException("데이터 조회 쿼리만 실행할 수 있습니다.");
         }
 
+        Optional<ExecuteResponse> speculative = takeSpeculation(dbId, trimmed);
+        if (db.speculativeExecution()) {
+            appMetrics.count("querybot.query.speculation", AppMetrics.db(dbId).and("result", speculative.isPresent() ? "hit" : "miss"), 1);
+        }
+        ExecuteResponse response = speculative.isPresent() ? speculative.get() : runSelect(db, trimmed, null);
+        // A successful run is what marks a generated answer as reusable for similar questions.
+        questionCacheService.markAccepted(db, trimmed);
+        return response;
+    }
+
+    /**
+     * Starts running a generated answer in the background when the database opted in, so the user's Execute click can
+     * pick up the result instead of starting a cold query. Failures are ignored; Execute then runs the query itself.
+     */
+    public void speculate(DatabaseSnapshot db, String reply) {
+        if (!db.speculativeExecution()) {
+            return;
+        }
+        Optional<String> sql = SqlStatements.extractSingleSelect(reply);
+        if (sql.isEmpty()) {
+            return;
+        }
+        AppProperties.SpeculativeExecution config = appProperties.getSpeculativeExecution();
+        long now = System.nanoTime();
+        speculations.values().removeIf(speculation -> speculation.expiresAt() - now < 0);
+        if (speculations.size() >= config.getMaxEntries()) {
+            return;
+        }
+        SpeculationKey key = new SpeculationKey(db.id(), SqlStatements.normalize(sql.get()));
+        CompletableFuture<ExecuteResponse> result = new CompletableFuture<>();
+        if (speculations.putIfAbsent(key, new Speculation(result, now + config.getTtl().toNanos())) != null) {
+            return;
+        }
+        try {
+            speculativeExecutor.execute(() -> {
+                try {
+                    result.complete(runSelect(db, sql.get(), config.getQueryTimeout()));
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            speculations.remove(key);
+            log.debug("Speculative execution skipped for db={}: {}", db.id(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns a pre-executed result for the same SQL, waiting for it if it is still running.
+     */
+    private Optional<ExecuteResponse> takeSpeculation(Long dbId, String sql) {
+        Speculation speculation = speculations.remove(new SpeculationKey(dbId, SqlStatements.normalize(sql)));
+        if (speculation == null || speculation.expiresAt() - System.nanoTime() < 0) {
+            return Optional.empty();
+        }
+        try {
+            long waitMs = appProperties.getSpeculativeExecution().getQueryTimeout().toMillis();
+            return Optional.of(speculation.result().get(waitMs, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException ex) {
+            log.debug("Speculative result unusable for db={}, running the query again", dbId, ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs the query on the target database; timed as {@code querybot.query.execution}, with {@code mode=speculative}
+     * for background runs.
+     */
+    private ExecuteResponse runSelect(DatabaseSnapshot db, String sql, Duration timeout) throws Exception {
+        Tags tags = AppMetrics.db(db.id()).and("mode", timeout != null ? "speculative" : "direct");
+        return appMetrics.timeChecked("querybot.query.execution", tags, () -> select(db, sql, timeout));
+    }
+
+    private ExecuteResponse select(DatabaseSnapshot db, String sql, Duration timeout) throws Exception {
         try (Connection connection = openConnection(db);
              Statement stmt = connection.createStatement()) {
             // Limit result size without re-wrapping the query, so ORDER BY stays intact
             stmt.setMaxRows(100);
-            try (ResultSet rs = stmt.executeQuery(trimmed)) {
+            if (timeout != null) {
+                stmt.setQueryTimeout((int) Math.max(1, timeout.toSeconds()));
+            }
+            try (ResultSet rs = stmt.executeQuery(sql)) {
                 ResultSetMetaData meta = rs.getMetaData();
                 int columnCount = meta.getColumnCount();
                 List<String> columns = new ArrayList<>();
@@ -67,12 +164,12 @@ public class QueryExecutionService {
         }
     }
 
-    private Connection openConnection(DatabaseConnection db) throws Exception {
-        String primaryDb = parseDatabaseName(db.getDatabaseName());
-        String jdbcUrl = "jdbc:" + db.getDbType().getJdbcName() + "://" + db.getHost() + ":" + db.getPort() + "/" + primaryDb;
+    private Connection openConnection(DatabaseSnapshot db) throws Exception {
+        String primaryDb = parseDatabaseName(db.databaseName());
+        String jdbcUrl = "jdbc:" + db.dbType().getJdbcName() + "://" + db.host() + ":" + db.port() + "/" + primaryDb;
         Properties props = new Properties();
-        props.setProperty("user", db.getUsername());
-        props.setProperty("password", db.getPassword());
+        props.setProperty("user", db.username());
+        props.setProperty("password", db.password());
         props.setProperty("remarksReporting", "true");
         props.setProperty("useInformationSchema", "true");
         return DriverManager.getConnection(jdbcUrl, props);
@@ -94,14 +191,17 @@ public class QueryExecutionService {
             if (stmt.isEmpty()) {
                 continue;
             }
-            if (FORBIDDEN_PATTERN.matcher(stmt).find()) {
-                return false;
-            }
-            if (!READ_ONLY_PATTERN.matcher(stmt).find()) {
+            if (!SqlStatements.isReadOnlyStatement(stmt)) {
                 return false;
             }
             hasRead = true;
         }
         return hasRead;
     }
+
+    private record SpeculationKey(Long dbId, String normalizedSql) {
+    }
+
+    private record Speculation(CompletableFuture<ExecuteResponse> result, long expiresAt) {
+    }
 }
@@ -0,0 +1,376 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.QuestionCacheEntry;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.repository.QuestionCacheEntryRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reuses accepted SQL answers for near-duplicate first-turn questions on the same database and schema version.
+ * Questions are normalized (lower case, trailing case particles and request words such as "알려줘" dropped), shingled
+ * into character bigrams and indexed with MinHash/LSH. A candidate from the LSH buckets is only offered when it has the
+ * same numbers and the same remaining words as the question, and its exact Jaccard similarity reaches the threshold:
+ * "상위"/"하위" or "지난주"/"지난달" look alike as bigrams but ask for different data.
+ */
+@Service
+public class QuestionCacheService {
+    private static final Logger log = LoggerFactory.getLogger(QuestionCacheService.class);
+
+    private static final int BANDS = 20;
+    private static final int ROWS_PER_BAND = 3;
+    private static final int NUM_HASHES = BANDS * ROWS_PER_BAND;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern NUMBER = Pattern.compile("\\p{N}+");
+    // Words that only phrase the request; dropping them never changes which data is asked for.
+    private static final Set<String> NOISE_WORDS = Set.of(
+            "알려줘", "알려주세요", "알려", "보여줘", "보여주세요", "보여", "조회", "조회해줘", "조회해주세요", "구해줘", "뽑아줘",
+            "해줘", "해주세요", "줘", "주세요", "좀", "please", "show", "me", "tell", "give", "the", "a", "an");
+    // Trailing particles that only mark the grammatical case; longest first. Particles that can end a noun ("이", "가",
+    // "도") or change the meaning ("별", "만") are deliberately absent.
+    private static final List<String> PARTICLES = List.of("에서", "을", "를", "은", "는", "의", "에");
+
+    private final QuestionCacheEntryRepository repository;
+    private final AppProperties appProperties;
+    private final Map<Long, DatabaseIndex> indexes = new ConcurrentHashMap<>();
+    private final long[] hashSeeds = new long[NUM_HASHES];
+
+    public QuestionCacheService(QuestionCacheEntryRepository repository, AppProperties appProperties) {
+        this.repository = repository;
+        this.appProperties = appProperties;
+        // Fixed seed so signatures stay comparable across restarts.
+        SplittableRandom random = new SplittableRandom(0x5151_2026L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+    }
+
+    @Transactional
+    public Optional<CachedAnswer> lookup(DatabaseSnapshot database, String question) {
+        if (!appProperties.getQuestionCache().isEnabled()) {
+            return Optional.empty();
+        }
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<CachedAnswer> match = loadIndex(database).findSimilar(normalized,
+                appProperties.getQuestionCache().getSimilarityThreshold());
+        match.ifPresent(answer -> {
+            repository.incrementHitCount(answer.entryId());
+            log.debug("Reusing cached answer {} for db={} (similarity={})", answer.entryId(), database.id(), answer.similarity());
+        });
+        return match;
+    }
+
+    /**
+     * Remembers the answer to a first-turn question as a candidate. It becomes reusable once {@link #markAccepted} sees
+     * the same SQL executed successfully.
+     */
+    @Transactional
+    public void record(DatabaseSnapshot database, String question, String reply) {
+        if (!appProperties.getQuestionCache().isEnabled()) {
+            return;
+        }
+        Optional<String> sql = SqlStatements.extractSingleSelect(reply);
+        String normalized = normalize(question);
+        if (sql.isEmpty() || normalized.isEmpty()) {
+            return;
+        }
+        DatabaseIndex index = loadIndex(database);
+        synchronized (index) {
+            QuestionCacheEntry entry = index.findExact(normalized)
+                    .flatMap(repository::findById)
+                    .orElseGet(QuestionCacheEntry::new);
+            entry.setDatabaseConnectionId(database.id());
+            entry.setSchemaVersion(database.schemaUpdatedAt());
+            entry.setQuestion(question.trim());
+            entry.setNormalizedQuestion(normalized);
+            entry.setAnswerSql(sql.get());
+            // A new answer for the same question means the previous one was regenerated; wait for it to be accepted again.
+            entry.setAccepted(false);
+            index.put(repository.save(entry));
+        }
+    }
+
+    @Transactional
+    public void markAccepted(DatabaseSnapshot database, String executedSql) {
+        if (!appProperties.getQuestionCache().isEnabled()) {
+            return;
+        }
+        DatabaseIndex index = loadIndex(database);
+        List<Long> ids = index.acceptMatching(SqlStatements.normalize(executedSql));
+        if (!ids.isEmpty()) {
+            repository.markAccepted(ids);
+        }
+    }
+
+    @Transactional
+    public void evict(Long databaseId) {
+        indexes.remove(databaseId);
+        repository.deleteByDatabaseConnectionId(databaseId);
+    }
+
+    private DatabaseIndex loadIndex(DatabaseSnapshot database) {
+        DatabaseIndex index = indexes.computeIfAbsent(database.id(), id -> new DatabaseIndex());
+        synchronized (index) {
+            LocalDateTime version = database.schemaUpdatedAt();
+            if (!index.loaded || !Objects.equals(index.schemaVersion, version)) {
+                index.reset(version);
+                List<Long> stale = new ArrayList<>();
+                for (QuestionCacheEntry entry : repository.findByDatabaseConnectionId(database.id())) {
+                    if (Objects.equals(entry.getSchemaVersion(), version)) {
+                        index.put(entry);
+                    } else {
+                        stale.add(entry.getId());
+                    }
+                }
+                if (!stale.isEmpty()) {
+                    repository.deleteAllByIdInBatch(stale);
+                }
+                index.loaded = true;
+            }
+        }
+        return index;
+    }
+
+    static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        List<String> words = new ArrayList<>();
+        for (String token : NON_WORD.split(question.toLowerCase(Locale.ROOT))) {
+            String word = stripParticle(token);
+            if (!word.isEmpty() && !NOISE_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    private static String stripParticle(String token) {
+        for (String particle : PARTICLES) {
+            // Keep at least two characters so short nouns ("마을", "회의") stay whole.
+            if (token.endsWith(particle) && token.length() >= particle.length() + 2) {
+                return token.substring(0, token.length() - particle.length());
+            }
+        }
+        return token;
+    }
+
+    /**
+     * The normalized question's words without their digits; numbers are compared separately.
+     */
+    private static Set<String> words(String normalized) {
+        Set<String> words = new HashSet<>();
+        for (String token : normalized.split(" ")) {
+            String word = NUMBER.matcher(token).replaceAll("");
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> shingles(String normalized) {
+        Set<String> shingles = new HashSet<>();
+        if (normalized.length() < 2) {
+            shingles.add(normalized);
+            return shingles;
+        }
+        for (int i = 0; i + 2 <= normalized.length(); i++) {
+            shingles.add(normalized.substring(i, i + 2));
+        }
+        return shingles;
+    }
+
+    private static Set<String> numbers(String normalized) {
+        Set<String> numbers = new HashSet<>();
+        Matcher matcher = NUMBER.matcher(normalized);
+        while (matcher.find()) {
+            numbers.add(matcher.group());
+        }
+        return numbers;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        int intersection = 0;
+        for (String s : a) {
+            if (b.contains(s)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private long[] signature(Set<String> shingles) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String shingle : shingles) {
+            long base = shingle.hashCode();
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long h = mix(base ^ hashSeeds[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long[] bandKeys(long[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                key = key * 31 + signature[band * ROWS_PER_BAND + row];
+            }
+            keys[band] = mix(key);
+        }
+        return keys;
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public record CachedAnswer(Long entryId, String question, String sql, double similarity) {
+    }
+
+    private record IndexedQuestion(Long id, String question, String normalized, String sql, String normalizedSql,
+                                   Set<String> shingles, Set<String> numbers, Set<String> words, long[] bandKeys,
+                                   boolean accepted) {
+    }
+
+    /**
+     * Per-database LSH index. All access is synchronized on the instance.
+     */
+    private final class DatabaseIndex {
+        private boolean loaded;
+        private LocalDateTime schemaVersion;
+        private final Map<Long, IndexedQuestion> entries = new LinkedHashMap<>();
+        private final Map<Long, Set<Long>> buckets = new HashMap<>();
+
+        void reset(LocalDateTime version) {
+            schemaVersion = version;
+            entries.clear();
+            buckets.clear();
+        }
+
+        synchronized void put(QuestionCacheEntry entry) {
+            remove(entry.getId());
+            // Re-normalized rather than read back, so rows stored by an older normalization still compare correctly.
+            String normalized = normalize(entry.getQuestion());
+            Set<String> shingles = shingles(normalized);
+            IndexedQuestion indexed = new IndexedQuestion(
+                    entry.getId(),
+                    entry.getQuestion(),
+                    normalized,
+                    entry.getAnswerSql(),
+                    SqlStatements.normalize(entry.getAnswerSql()),
+                    shingles,
+                    numbers(normalized),
+                    words(normalized),
+                    bandKeys(signature(shingles)),
+                    entry.isAccepted()
+            );
+            entries.put(indexed.id(), indexed);
+            for (long key : indexed.bandKeys()) {
+                buckets.computeIfAbsent(key, k -> new HashSet<>()).add(indexed.id());
+            }
+        }
+
+        private void remove(Long id) {
+            IndexedQuestion previous = entries.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (long key : previous.bandKeys()) {
+                Set<Long> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(id);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+
+        synchronized Optional<Long> findExact(String normalized) {
+            return entries.values().stream()
+                    .filter(entry -> entry.normalized().equals(normalized))
+                    .map(IndexedQuestion::id)
+                    .findFirst();
+        }
+
+        synchronized Optional<CachedAnswer> findSimilar(String normalized, double threshold) {
+            Set<String> shingles = shingles(normalized);
+            Set<String> numbers = numbers(normalized);
+            Set<String> words = words(normalized);
+            Set<Long> candidates = new HashSet<>();
+            for (long key : bandKeys(signature(shingles))) {
+                Set<Long> bucket = buckets.get(key);
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+            IndexedQuestion best = null;
+            double bestScore = 0;
+            for (Long id : candidates) {
+                IndexedQuestion candidate = entries.get(id);
+                // Numbers (dates, limits, ids) and any other word change the meaning of otherwise similar questions.
+                if (candidate == null || !candidate.accepted() || !candidate.numbers().equals(numbers)
+                        || !candidate.words().equals(words)) {
+                    continue;
+                }
+                double score = jaccard(shingles, candidate.shingles());
+                if (score >= threshold && score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new CachedAnswer(best.id(), best.question(), best.sql(), bestScore));
+        }
+
+        synchronized List<Long> acceptMatching(String normalizedSql) {
+            List<Long> accepted = new ArrayList<>();
+            for (IndexedQuestion entry : List.copyOf(entries.values())) {
+                if (!entry.accepted() && entry.normalizedSql().equals(normalizedSql)) {
+                    IndexedQuestion updated = new IndexedQuestion(entry.id(), entry.question(), entry.normalized(), entry.sql(),
+                            entry.normalizedSql(), entry.shingles(), entry.numbers(), entry.words(), entry.bandKeys(), true);
+                    entries.put(entry.id(), updated);
+                    accepted.add(entry.id());
+                }
+            }
+            return accepted;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-reads the schema of every registered database. Manual only unless {@code app.jobs.schedules.schema-refresh} is
+ * set; a database that cannot be reached is skipped and reported, and the run is marked failed. Stops early, also as a
+ * failed run, when the job's lock is lost between databases.
+ */
+@Component
+public class SchemaRefreshJob implements ClusterJob {
+    private static final Logger log = LoggerFactory.getLogger(SchemaRefreshJob.class);
+
+    private final DatabaseService databaseService;
+    private final DatabaseRegistry databaseRegistry;
+
+    public SchemaRefreshJob(DatabaseService databaseService, DatabaseRegistry databaseRegistry) {
+        this.databaseService = databaseService;
+        this.databaseRegistry = databaseRegistry;
+    }
+
+    @Override
+    public String name() {
+        return "schema-refresh";
+    }
+
+    @Override
+    public String defaultCron() {
+        return "-";
+    }
+
+    @Override
+    public String run(JobLease lease) {
+        List<DatabaseSnapshot> databases = List.copyOf(databaseRegistry.all());
+        List<String> failed = new ArrayList<>();
+        int refreshed = 0;
+        for (DatabaseSnapshot database : databases) {
+            if (!lease.held()) {
+                throw new IllegalStateException("작업 잠금을 잃어 %d/%d개 데이터베이스까지만 갱신했습니다."
+                        .formatted(refreshed, databases.size()));
+            }
+            refreshed++;
+            try {
+                databaseService.refresh(database.id());
+            } catch (Exception ex) {
+                log.warn("Schema refresh failed for database {}", database.id(), ex);
+                failed.add(database.name() + " (" + ex.getMessage() + ")");
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("스키마를 갱신하지 못한 데이터베이스: " + String.join(", ", failed));
+        }
+        return "refreshed " + databases.size() + " databases";
+    }
+}
@@ -0,0 +1,502 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.dto.ColumnOverview;
+import com.namejm.query_bot.dto.SchemaOverview;
+import com.namejm.query_bot.dto.TableOverview;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that a generated SELECT only references tables and columns present in the collected {@link SchemaOverview}.
+ * <p>
+ * This is a tokenizer-level check, not a full SQL parser: it resolves {@code FROM}/{@code JOIN} sources and their
+ * aliases, then validates qualified {@code alias.column} references. Unqualified columns are only checked when the query
+ * reads from a single table, where they cannot be ambiguous. CTEs, derived tables and table functions are accepted
+ * without looking inside them. When unsure it stays silent, since a false positive costs an extra LLM round trip.
+ */
+public final class SqlSchemaValidator {
+
+    private static final int MAX_PROBLEMS = 10;
+    private static final int MAX_SUGGESTED_COLUMNS = 60;
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "select", "distinct", "all", "from", "where", "and", "or", "not", "in", "is", "null", "like", "ilike",
+            "between", "exists", "as", "on", "using", "join", "inner", "left", "right", "full", "outer", "cross", "natural",
+            "lateral", "group", "by", "having", "order", "asc", "desc", "nulls", "first", "last", "limit", "offset", "fetch",
+            "next", "rows", "row", "only", "top", "percent", "union", "intersect", "except", "minus", "with", "recursive",
+            "case", "when", "then", "else", "end", "true", "false", "unknown", "over", "partition", "range", "groups",
+            "preceding", "following", "unbounded", "current", "filter", "within", "window", "escape", "collate", "any",
+            "some", "array", "interval", "year", "month", "week", "day", "hour", "minute", "second", "quarter",
+            "microsecond", "date", "time", "timestamp", "zone", "at", "local", "current_date", "current_time",
+            "current_timestamp", "current_user", "localtime", "localtimestamp", "sysdate", "systimestamp", "rownum",
+            "level", "dual", "int", "integer", "bigint", "smallint", "tinyint", "numeric", "decimal", "float", "double",
+            "precision", "real", "char", "varchar", "varchar2", "nvarchar", "text", "boolean", "bool", "signed",
+            "unsigned", "binary", "varying", "character", "json", "jsonb", "uuid", "separator", "regexp", "rlike",
+            "similar", "to", "for", "of", "nowait", "skip", "locked", "straight_join", "ties", "epoch", "dow", "doy",
+            "isodow", "leading", "trailing", "both", "values", "default", "no", "others", "exclude", "ignore", "respect",
+            "sql_calc_found_rows", "high_priority", "sql_no_cache"
+    );
+    private static final Set<String> CLAUSE_KEYWORDS = Set.of(
+            "where", "join", "inner", "left", "right", "full", "outer", "cross", "natural", "on", "using", "group",
+            "order", "having", "limit", "offset", "fetch", "union", "intersect", "except", "minus", "window", "for",
+            "lateral", "straight_join"
+    );
+    // Functions whose arguments use FROM without it introducing a table.
+    private static final Set<String> FROM_FUNCTIONS = Set.of("extract", "substring", "trim", "position", "overlay");
+
+    private SqlSchemaValidator() {
+    }
+
+    /**
+     * Returns human-readable problems (English, meant for the model), or an empty list when every resolvable reference
+     * exists in the schema.
+     */
+    public static List<String> validate(String sql, SchemaOverview schema) {
+        if (sql == null || schema == null || schema.tables() == null || schema.tables().isEmpty()) {
+            return List.of();
+        }
+        List<Token> tokens = tokenize(sql);
+        String[] enclosing = enclosingFunctions(tokens);
+        Catalog catalog = new Catalog(schema);
+        Set<String> problems = new LinkedHashSet<>();
+        Set<String> cteNames = cteNames(tokens);
+        Map<String, Source> sources = new HashMap<>();
+        boolean[] consumed = new boolean[tokens.size()];
+        boolean opaqueSources = !cteNames.isEmpty();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (!token.isWord("from") && !token.isWord("join")) {
+                continue;
+            }
+            if (token.isWord("from") && (enclosing[i] != null && FROM_FUNCTIONS.contains(enclosing[i]) || isDistinctFrom(tokens, i))) {
+                continue;
+            }
+            boolean list = token.isWord("from");
+            int pos = i + 1;
+            while (true) {
+                if (pos < tokens.size() && tokens.get(pos).isWord("lateral")) {
+                    pos++;
+                }
+                if (pos >= tokens.size()) {
+                    break;
+                }
+                if (tokens.get(pos).isSymbol("(")) {
+                    // Derived table: its columns are whatever the subquery selects.
+                    pos = matchingParen(tokens, pos) + 1;
+                    opaqueSources = true;
+                    pos = readAlias(tokens, pos, consumed, sources, Source.OPAQUE);
+                    if (!list || pos >= tokens.size() || !tokens.get(pos).isSymbol(",")) {
+                        break;
+                    }
+                    pos++;
+                    continue;
+                }
+                int start = pos;
+                List<String> parts = new ArrayList<>();
+                while (pos < tokens.size() && tokens.get(pos).isIdentifier()) {
+                    parts.add(tokens.get(pos).name());
+                    pos++;
+                    if (pos < tokens.size() && tokens.get(pos).isSymbol(".") && pos + 1 < tokens.size()
+                            && tokens.get(pos + 1).isIdentifier()) {
+                        pos++;
+                    } else {
+                        break;
+                    }
+                }
+                if (parts.isEmpty()) {
+                    break;
+                }
+                for (int k = start; k < pos; k++) {
+                    consumed[k] = true;
+                }
+                Source source;
+                if (pos < tokens.size() && tokens.get(pos).isSymbol("(")) {
+                    // Table function such as generate_series(...) or unnest(...).
+                    pos = matchingParen(tokens, pos) + 1;
+                    opaqueSources = true;
+                    source = Source.OPAQUE;
+                } else if (parts.size() == 1 && cteNames.contains(parts.get(0))) {
+                    source = Source.OPAQUE;
+                } else {
+                    source = catalog.resolve(parts, problems);
+                }
+                String name = parts.get(parts.size() - 1);
+                sources.putIfAbsent(name, source);
+                if (parts.size() > 1) {
+                    sources.putIfAbsent(String.join(".", parts), source);
+                }
+                pos = readAlias(tokens, pos, consumed, sources, source);
+                if (!list || pos >= tokens.size() || !tokens.get(pos).isSymbol(",")) {
+                    break;
+                }
+                pos++;
+            }
+        }
+
+        Set<String> outputAliases = outputAliases(tokens, consumed);
+        validateQualifiedColumns(tokens, consumed, sources, catalog, problems);
+
+        Set<TableOverview> realTables = new HashSet<>();
+        for (Source source : sources.values()) {
+            if (source.table() != null) {
+                realTables.add(source.table());
+            }
+        }
+        if (!opaqueSources && realTables.size() == 1) {
+            TableOverview table = realTables.iterator().next();
+            validateUnqualifiedColumns(tokens, consumed, sources, outputAliases, table, problems);
+        }
+
+        return problems.stream().limit(MAX_PROBLEMS).toList();
+    }
+
+    private static void validateQualifiedColumns(List<Token> tokens, boolean[] consumed, Map<String, Source> sources,
+                                                 Catalog catalog, Set<String> problems) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (consumed[i] || !tokens.get(i).isIdentifier() || (i > 0 && tokens.get(i - 1).isSymbol("."))) {
+                continue;
+            }
+            List<String> parts = new ArrayList<>();
+            int pos = i;
+            parts.add(tokens.get(pos).name());
+            while (pos + 2 < tokens.size() && tokens.get(pos + 1).isSymbol(".")
+                    && (tokens.get(pos + 2).isIdentifier() || tokens.get(pos + 2).isSymbol("*"))) {
+                pos += 2;
+                parts.add(tokens.get(pos).isSymbol("*") ? "*" : tokens.get(pos).name());
+            }
+            for (int k = i; k <= pos; k++) {
+                consumed[k] = true;
+            }
+            if (parts.size() < 2 || (pos + 1 < tokens.size() && tokens.get(pos + 1).isSymbol("("))) {
+                // Not qualified, or a qualified function call such as pg_catalog.now().
+                if (parts.size() == 1) {
+                    consumed[i] = false;
+                }
+                continue;
+            }
+            String column = parts.get(parts.size() - 1);
+            List<String> qualifierParts = parts.subList(0, parts.size() - 1);
+            String qualifier = String.join(".", qualifierParts);
+            Source source = sources.get(qualifier);
+            if (source == null) {
+                source = sources.get(qualifierParts.get(qualifierParts.size() - 1));
+            }
+            if (source == null) {
+                problems.add("`" + qualifier + "` is not a table or alias introduced in FROM/JOIN.");
+                continue;
+            }
+            if (source.table() == null || column.equals("*")) {
+                continue;
+            }
+            if (!catalog.hasColumn(source.table(), column)) {
+                problems.add(missingColumn(qualifier + "." + column, source.table()));
+            }
+        }
+    }
+
+    private static void validateUnqualifiedColumns(List<Token> tokens, boolean[] consumed, Map<String, Source> sources,
+                                                   Set<String> outputAliases, TableOverview table, Set<String> problems) {
+        Set<String> columns = columnNames(table);
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (consumed[i] || !token.isIdentifier()) {
+                continue;
+            }
+            if (!token.quoted() && KEYWORDS.contains(token.name())) {
+                continue;
+            }
+            if (i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("(")) {
+                continue;
+            }
+            String name = token.name();
+            if (columns.contains(name) || outputAliases.contains(name) || sources.containsKey(name)) {
+                continue;
+            }
+            problems.add(missingColumn(token.text(), table));
+        }
+    }
+
+    private static String missingColumn(String reference, TableOverview table) {
+        List<String> available = table.columns() == null ? List.of() : table.columns().stream()
+                .map(ColumnOverview::name)
+                .limit(MAX_SUGGESTED_COLUMNS)
+                .toList();
+        return "Column `" + reference + "` does not exist in " + qualifiedName(table)
+                + ". Available columns: " + String.join(", ", available) + ".";
+    }
+
+    private static String qualifiedName(TableOverview table) {
+        return table.schema() == null || table.schema().isBlank() ? table.name() : table.schema() + "." + table.name();
+    }
+
+    private static Set<String> columnNames(TableOverview table) {
+        if (table.columns() == null) {
+            return Set.of();
+        }
+        return table.columns().stream()
+                .map(column -> column.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Reads an optional {@code [AS] alias} after a source and registers it.
+     */
+    private static int readAlias(List<Token> tokens, int pos, boolean[] consumed, Map<String, Source> sources, Source source) {
+        int aliasAt = pos;
+        if (aliasAt < tokens.size() && tokens.get(aliasAt).isWord("as")) {
+            aliasAt++;
+        }
+        if (aliasAt < tokens.size() && tokens.get(aliasAt).isIdentifier()
+                && (tokens.get(aliasAt).quoted() || !CLAUSE_KEYWORDS.contains(tokens.get(aliasAt).name()))
+                && (tokens.get(aliasAt).quoted() || !KEYWORDS.contains(tokens.get(aliasAt).name()))) {
+            for (int k = pos; k <= aliasAt; k++) {
+                consumed[k] = true;
+            }
+            sources.put(tokens.get(aliasAt).name(), source);
+            pos = aliasAt + 1;
+            if (pos < tokens.size() && tokens.get(pos).isSymbol("(")) {
+                // Column alias list: t(a, b).
+                int end = matchingParen(tokens, pos);
+                for (int k = pos; k <= end && k < consumed.length; k++) {
+                    consumed[k] = true;
+                }
+                pos = end + 1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Names introduced with {@code AS name} or as a bare alias directly after an expression. They may be referenced in
+     * ORDER BY / GROUP BY and must not be reported as missing columns.
+     */
+    private static Set<String> outputAliases(List<Token> tokens, boolean[] consumed) {
+        Set<String> aliases = new HashSet<>();
+        for (int i = 1; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (consumed[i] || !token.isIdentifier() || (!token.quoted() && KEYWORDS.contains(token.name()))) {
+                continue;
+            }
+            Token previous = tokens.get(i - 1);
+            boolean afterAs = previous.isWord("as");
+            boolean afterExpression = previous.isSymbol(")") || previous.kind() == Kind.LITERAL
+                    || (previous.isIdentifier() && (previous.quoted() || !KEYWORDS.contains(previous.name())));
+            if (afterAs || afterExpression) {
+                aliases.add(token.name());
+                consumed[i] = true;
+            }
+        }
+        return aliases;
+    }
+
+    private static Set<String> cteNames(List<Token> tokens) {
+        Set<String> names = new HashSet<>();
+        for (int i = 1; i + 2 < tokens.size(); i++) {
+            Token previous = tokens.get(i - 1);
+            if (!(previous.isWord("with") || previous.isWord("recursive") || previous.isSymbol(","))) {
+                continue;
+            }
+            if (!tokens.get(i).isIdentifier()) {
+                continue;
+            }
+            int pos = i + 1;
+            if (tokens.get(pos).isSymbol("(")) {
+                pos = matchingParen(tokens, pos) + 1;
+            }
+            if (pos + 1 < tokens.size() && tokens.get(pos).isWord("as")
+                    && (tokens.get(pos + 1).isSymbol("(") || tokens.get(pos + 1).isWord("materialized")
+                    || tokens.get(pos + 1).isWord("not"))) {
+                names.add(tokens.get(i).name());
+            }
+        }
+        return names;
+    }
+
+    private static boolean isDistinctFrom(List<Token> tokens, int fromIndex) {
+        return fromIndex > 0 && tokens.get(fromIndex - 1).isWord("distinct") && fromIndex > 1
+                && (tokens.get(fromIndex - 2).isWord("is") || tokens.get(fromIndex - 2).isWord("not"));
+    }
+
+    /**
+     * For every token, the lower-cased name of the function whose parentheses enclose it (or null).
+     */
+    private static String[] enclosingFunctions(List<Token> tokens) {
+        String[] enclosing = new String[tokens.size()];
+        Deque<String> stack = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.isSymbol(")") && !stack.isEmpty()) {
+                stack.pop();
+            }
+            enclosing[i] = stack.isEmpty() ? null : stack.peek();
+            if (token.isSymbol("(")) {
+                stack.push(i > 0 && tokens.get(i - 1).isIdentifier() ? tokens.get(i - 1).name() : "");
+            }
+        }
+        return enclosing;
+    }
+
+    private static int matchingParen(List<Token> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if (tokens.get(i).isSymbol("(")) {
+                depth++;
+            } else if (tokens.get(i).isSymbol(")")) {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return tokens.size() - 1;
+    }
+
+    static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                tokens.add(new Token(Kind.LITERAL, "''"));
+            } else if (c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int end = skipQuoted(sql, i, close);
+                tokens.add(new Token(Kind.QUOTED, sql.substring(i + 1, Math.max(i + 1, end - 1))));
+                i = end;
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.LITERAL, sql.substring(start, i)));
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.WORD, sql.substring(start, i)));
+            } else if ((c == ':' || c == '@' || c == '?') && i + 1 < length
+                    && (Character.isLetterOrDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == ':')) {
+                // Bind parameters and casts (:name, @var, ::type) never name columns.
+                int start = i;
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == ':')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.LITERAL, sql.substring(start, i)));
+            } else {
+                tokens.add(new Token(Kind.SYMBOL, String.valueOf(c)));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipQuoted(String sql, int start, char close) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == close) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == close && close != ']') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    enum Kind { WORD, QUOTED, LITERAL, SYMBOL }
+
+    record Token(Kind kind, String text) {
+        boolean isWord(String word) {
+            return kind == Kind.WORD && text.equalsIgnoreCase(word);
+        }
+
+        boolean isSymbol(String symbol) {
+            return kind == Kind.SYMBOL && text.equals(symbol);
+        }
+
+        boolean isIdentifier() {
+            return kind == Kind.WORD || kind == Kind.QUOTED;
+        }
+
+        boolean quoted() {
+            return kind == Kind.QUOTED;
+        }
+
+        String name() {
+            return text.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A FROM/JOIN source. {@code table} is null for sources whose columns are unknown (CTEs, subqueries, functions).
+     */
+    private record Source(TableOverview table) {
+        static final Source OPAQUE = new Source(null);
+    }
+
+    private static final class Catalog {
+        private final Map<String, List<TableOverview>> byName = new HashMap<>();
+        private final Map<TableOverview, Set<String>> columns = new HashMap<>();
+
+        Catalog(SchemaOverview schema) {
+            for (TableOverview table : schema.tables()) {
+                if (table.name() == null) {
+                    continue;
+                }
+                byName.computeIfAbsent(table.name().toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(table);
+                columns.put(table, columnNames(table));
+            }
+        }
+
+        Source resolve(List<String> parts, Set<String> problems) {
+            String name = parts.get(parts.size() - 1);
+            String schemaName = parts.size() >= 2 ? parts.get(parts.size() - 2) : null;
+            String reference = String.join(".", parts);
+            List<TableOverview> candidates = byName.getOrDefault(name, List.of());
+            if (candidates.isEmpty()) {
+                problems.add("Table `" + reference + "` does not exist in the schema.");
+                return Source.OPAQUE;
+            }
+            if (schemaName == null) {
+                return new Source(candidates.get(0));
+            }
+            for (TableOverview table : candidates) {
+                if (table.schema() == null || table.schema().equalsIgnoreCase(schemaName)) {
+                    return new Source(table);
+                }
+            }
+            String existing = candidates.stream().map(SqlSchemaValidator::qualifiedName).collect(Collectors.joining(", "));
+            problems.add("Table `" + reference + "` does not exist; did you mean " + existing + "?");
+            return new Source(candidates.get(0));
+        }
+
+        boolean hasColumn(TableOverview table, String column) {
+            return columns.getOrDefault(table, Set.of()).contains(column);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.namejm.query_bot.service;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for treating an assistant reply as SQL. Mirrors the checks the frontend uses to decide whether a reply is runnable.
+ */
+public final class SqlStatements {
+
+    private static final Pattern CODE_FENCE = Pattern.compile("^```[a-zA-Z]*\\s*|\\s*```$");
+    private static final Pattern READ_ONLY_PATTERN =
+            Pattern.compile("^\\s*(select|with)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FORBIDDEN_PATTERN = Pattern.compile(
+            "^\\s*(insert|update|delete|create|alter|drop|truncate|merge|replace)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlStatements() {
+    }
+
+    /**
+     * Returns the reply as a single read-only statement (no code fence, no trailing semicolon), or empty when the reply
+     * is prose, contains several statements, or is not a SELECT/WITH query.
+     */
+    public static Optional<String> extractSingleSelect(String reply) {
+        if (reply == null) {
+            return Optional.empty();
+        }
+        String trimmed = CODE_FENCE.matcher(reply.trim()).replaceAll("").trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        if (trimmed.isEmpty() || trimmed.contains(";")) {
+            return Optional.empty();
+        }
+        if (!isReadOnlyStatement(trimmed)) {
+            return Optional.empty();
+        }
+        return Optional.of(trimmed);
+    }
+
+    /**
+     * Whether a single statement (no separators) is a SELECT/WITH query and not a write.
+     */
+    static boolean isReadOnlyStatement(String statement) {
+        return !FORBIDDEN_PATTERN.matcher(statement).find() && READ_ONLY_PATTERN.matcher(statement).find();
+    }
+
+    /**
+     * Whitespace-insensitive form used to compare the SQL the user executes with the SQL the assistant returned.
+     */
+    public static String normalize(String sql) {
+        String trimmed = sql == null ? "" : sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return WHITESPACE.matcher(trimmed).replaceAll(" ");
+    }
+}
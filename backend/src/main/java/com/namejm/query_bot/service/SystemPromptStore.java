@@ -0,0 +1,86 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.domain.SystemPrompt;
+import com.namejm.query_bot.repository.SystemPromptRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores system prompts by content hash. Sessions on the same database and schema version share one row instead of
+ * each keeping a full copy. Since a hash always maps to the same content, recently used prompts are cached in memory.
+ */
+@Service
+public class SystemPromptStore {
+    private static final int CACHE_SIZE = 64;
+
+    private final SystemPromptRepository systemPromptRepository;
+    private final Map<String, String> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public SystemPromptStore(SystemPromptRepository systemPromptRepository) {
+        this.systemPromptRepository = systemPromptRepository;
+    }
+
+    /**
+     * Saves the prompt if it is not stored yet and returns its hash. Must run inside the caller's write transaction.
+     */
+    public String store(String content) {
+        String hash = hash(content);
+        systemPromptRepository.insertIfAbsent(hash, content);
+        synchronized (cache) {
+            cache.put(hash, content);
+        }
+        return hash;
+    }
+
+    public Optional<String> content(String hash) {
+        if (hash == null) {
+            return Optional.empty();
+        }
+        synchronized (cache) {
+            String cached = cache.get(hash);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        Optional<String> content = systemPromptRepository.findById(hash).map(SystemPrompt::getContent);
+        content.ifPresent(value -> {
+            synchronized (cache) {
+                cache.put(hash, value);
+            }
+        });
+        return content;
+    }
+
+    /**
+     * Removes prompts no session points to any more.
+     */
+    public int deleteUnreferenced() {
+        int deleted = systemPromptRepository.deleteUnreferenced();
+        if (deleted > 0) {
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+        return deleted;
+    }
+
+    public static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.namejm.query_bot.service;
 
 import com.namejm.query_bot.config.AppProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
@@ -16,6 +17,8 @@ import org.springframework.stereotype.Service;
 public class TokenService {
 
     private final AppProperties appProperties;
+    // Built on first use rather than at startup, so a weak secret fails token calls instead of the whole application.
+    private volatile Signing signing;
 
     public TokenService(AppProperties appProperties) {
         this.appProperties = appProperties;
@@ -34,28 +37,30 @@ public class TokenService {
     }
 
     public Optional<String> parseUsername(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return Optional.ofNullable(claims.getSubject());
-        } catch (Exception ex) {
-            return Optional.empty();
-        }
+        return verify(token).map(VerifiedToken::username);
+    }
+
+    /**
+     * Checks the signature and expiry. Empty when the token is invalid or has no subject.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        return parse(token)
+                .filter(claims -> claims.getSubject() != null)
+                .map(claims -> new VerifiedToken(claims.getSubject(),
+                        claims.getExpiration() != null ? claims.getExpiration().toInstant() : null));
     }
 
     public boolean isRefreshToken(String token) {
+        return parse(token)
+                .map(claims -> "refresh".equals(claims.get("typ")))
+                .orElse(false);
+    }
+
+    private Optional<Claims> parse(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return "refresh".equals(claims.get("typ"));
+            return Optional.of(signing().parser().parseSignedClaims(token).getPayload());
         } catch (Exception ex) {
-            return false;
+            return Optional.empty();
         }
     }
 
@@ -65,11 +70,23 @@ public class TokenService {
                 .claim("typ", type)
                 .issuedAt(Date.from(issuedAt))
                 .expiration(Date.from(expiry))
-                .signWith(getSigningKey())
+                .signWith(signing().key())
                 .compact();
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(appProperties.getSecurity().getJwtSecret().getBytes(StandardCharsets.UTF_8));
+    private Signing signing() {
+        Signing current = signing;
+        if (current == null) {
+            SecretKey key = Keys.hmacShaKeyFor(appProperties.getSecurity().getJwtSecret().getBytes(StandardCharsets.UTF_8));
+            current = new Signing(key, Jwts.parser().verifyWith(key).build());
+            signing = current;
+        }
+        return current;
+    }
+
+    public record VerifiedToken(String username, Instant expiresAt) {
+    }
+
+    private record Signing(SecretKey key, JwtParser parser) {
     }
 }
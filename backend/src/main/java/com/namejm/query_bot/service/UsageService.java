@@ -0,0 +1,109 @@
+package com.namejm.query_bot.service;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.dto.SessionUsage;
+import com.namejm.query_bot.dto.UsageSummary;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.UsageRow;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class UsageService {
+
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AppProperties appProperties;
+
+    public UsageService(ChatMessageRepository chatMessageRepository, JdbcTemplate jdbcTemplate, AppProperties appProperties) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.appProperties = appProperties;
+    }
+
+    /**
+     * Token and latency totals per database and day, in the inclusive date range. Aggregated by the database, so the
+     * cost depends on the number of days returned rather than the number of messages in the range.
+     */
+    @Transactional(readOnly = true)
+    public List<UsageSummary> daily(Long dbId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("조회 시작일이 종료일보다 늦습니다.");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("조회 기간은 최대 " + MAX_RANGE_DAYS + "일입니다.");
+        }
+        // SQLite keeps timestamps as epoch milliseconds, so the day is derived in local time like LocalDateTime values.
+        String day = appProperties.isSqlite()
+                ? "date(m.created_at / 1000, 'unixepoch', 'localtime')"
+                : "cast(m.created_at as date)";
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(from.atStartOfDay()));
+        params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        StringBuilder sql = new StringBuilder("""
+                select s.database_connection_id as db_id, %s as usage_date, count(*) as requests,
+                       coalesce(sum(m.prompt_tokens), 0) as prompt_tokens,
+                       coalesce(sum(m.completion_tokens), 0) as completion_tokens,
+                       coalesce(sum(m.cached_tokens), 0) as cached_tokens,
+                       coalesce(sum(m.latency_ms), 0) as total_latency_ms,
+                       coalesce(max(m.latency_ms), 0) as max_latency_ms
+                from chat_messages m
+                join chat_sessions s on s.id = m.session_id
+                where m.prompt_tokens is not null and m.created_at >= ? and m.created_at < ?
+                """.formatted(day));
+        if (dbId != null) {
+            sql.append(" and s.database_connection_id = ?");
+            params.add(dbId);
+        }
+        sql.append(" group by s.database_connection_id, ").append(day);
+        sql.append(" order by usage_date, db_id");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            long requests = rs.getLong("requests");
+            return new UsageSummary(
+                    rs.getLong("db_id"),
+                    LocalDate.parse(rs.getString("usage_date")),
+                    requests,
+                    rs.getLong("prompt_tokens"),
+                    rs.getLong("completion_tokens"),
+                    rs.getLong("cached_tokens"),
+                    requests == 0 ? 0 : rs.getLong("total_latency_ms") / requests,
+                    rs.getLong("max_latency_ms")
+            );
+        }, params.toArray());
+    }
+
+    @Transactional(readOnly = true)
+    public SessionUsage forSession(Long sessionId) {
+        Accumulator acc = new Accumulator();
+        chatMessageRepository.findUsageBySession(sessionId).forEach(acc::add);
+        return new SessionUsage(sessionId, acc.requests, acc.promptTokens, acc.completionTokens, acc.cachedTokens, acc.latencyMs);
+    }
+
+    private static final class Accumulator {
+        private long requests;
+        private long promptTokens;
+        private long completionTokens;
+        private long cachedTokens;
+        private long latencyMs;
+
+        void add(UsageRow row) {
+            requests++;
+            promptTokens += valueOf(row.getPromptTokens());
+            completionTokens += valueOf(row.getCompletionTokens());
+            cachedTokens += valueOf(row.getCachedTokens());
+            latencyMs += row.getLatencyMs() != null ? row.getLatencyMs() : 0;
+        }
+
+        private static long valueOf(Integer value) {
+            return value != null ? value : 0;
+        }
+    }
+}
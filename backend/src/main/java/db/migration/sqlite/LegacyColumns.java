@@ -0,0 +1,25 @@
+package db.migration.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lookups for columns that only files created before the migrations still have.
+ */
+final class LegacyColumns {
+
+    private LegacyColumns() {
+    }
+
+    static boolean exists(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select 1 from pragma_table_info(?) where name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package db.migration.sqlite;
+
+import com.namejm.query_bot.service.SystemPromptStore;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves prompts from the legacy {@code chat_sessions.system_prompt} column into {@code system_prompts} (V1.7) and drops
+ * the column. A Java migration because the content hash is computed in Java; files without the column are left alone.
+ * Rows are read in chunks only to bound memory, the whole move is one migration transaction before any request is served.
+ */
+public class V3_1__Move_system_prompts extends BaseJavaMigration {
+    private static final Logger log = LoggerFactory.getLogger(V3_1__Move_system_prompts.class);
+    private static final int CHUNK_SIZE = 200;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!LegacyColumns.exists(connection, "chat_sessions", "system_prompt")) {
+            return;
+        }
+        int moved = 0;
+        long lastId = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, system_prompt from chat_sessions where system_prompt is not null and id > ? order by id limit ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into system_prompts (hash, content) values (?, ?) on conflict do nothing");
+             PreparedStatement update = connection.prepareStatement(
+                     "update chat_sessions set system_prompt_hash = ? where id = ?")) {
+            Map<Long, String> chunk = new LinkedHashMap<>();
+            do {
+                chunk.clear();
+                select.setLong(1, lastId);
+                select.setInt(2, CHUNK_SIZE);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        chunk.put(rows.getLong(1), rows.getString(2));
+                    }
+                }
+                for (Map.Entry<Long, String> row : chunk.entrySet()) {
+                    String hash = SystemPromptStore.hash(row.getValue());
+                    insert.setString(1, hash);
+                    insert.setString(2, row.getValue());
+                    insert.addBatch();
+                    update.setString(1, hash);
+                    update.setLong(2, row.getKey());
+                    update.addBatch();
+                    lastId = row.getKey();
+                }
+                insert.executeBatch();
+                update.executeBatch();
+                moved += chunk.size();
+            } while (chunk.size() == CHUNK_SIZE);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table chat_sessions drop column system_prompt");
+        }
+        log.info("Moved {} session system prompts into system_prompts and dropped chat_sessions.system_prompt", moved);
+    }
+}
@@ -0,0 +1,31 @@
+package db.migration.sqlite;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves schema JSON from the legacy {@code database_connections.schema_json} column into {@code database_schemas} (V1.9)
+ * and drops the column. A Java migration only because the column may already be gone (files from before the
+ * migrations have it, files cleaned up by earlier releases do not), which plain SQL cannot check.
+ */
+public class V3_2__Move_database_schemas extends BaseJavaMigration {
+    private static final Logger log = LoggerFactory.getLogger(V3_2__Move_database_schemas.class);
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!LegacyColumns.exists(connection, "database_connections", "schema_json")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            int moved = statement.executeUpdate("insert into database_schemas (database_connection_id, schema_json) "
+                    + "select id, schema_json from database_connections where schema_json is not null on conflict do nothing");
+            statement.execute("alter table database_connections drop column schema_json");
+            log.info("Moved schema JSON of {} database connections into database_schemas", moved);
+        }
+    }
+}
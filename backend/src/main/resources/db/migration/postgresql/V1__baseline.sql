@@ -0,0 +1,113 @@
+-- App metadata schema for a shared server database. Kept to SQL that H2 in PostgreSQL mode also accepts, since the
+-- tests run these scripts against it.
+
+create table admin_users (
+    id bigint generated by default as identity primary key,
+    username varchar(255) not null unique,
+    password_hash varchar(255) not null,
+    created_at timestamp not null
+);
+
+create table database_connections (
+    id bigint generated by default as identity primary key,
+    name varchar(255) not null,
+    db_type varchar(255) not null,
+    host varchar(255) not null,
+    port integer not null,
+    database_name varchar(255) not null,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    schema_ready boolean not null default false,
+    schema_updated_at timestamp,
+    speculative_execution boolean not null default false,
+    created_at timestamp,
+    updated_at timestamp
+);
+
+create table database_schemas (
+    database_connection_id bigint primary key,
+    schema_json text not null
+);
+
+create table system_prompts (
+    hash varchar(64) primary key,
+    content text not null
+);
+
+-- Pooled sequences for the batched entities; the increment must match increment_size on their id generators.
+create sequence chat_sessions_seq start with 1 increment by 50;
+create sequence chat_messages_seq start with 1 increment by 50;
+
+create table chat_sessions (
+    id bigint primary key,
+    database_connection_id bigint references database_connections (id),
+    title varchar(255) not null,
+    created_at timestamp not null,
+    last_question_at timestamp,
+    system_prompt_hash varchar(64),
+    system_prompt_database_id bigint,
+    metabase_card_id bigint
+);
+create index idx_chat_sessions_db_created on chat_sessions (database_connection_id, created_at);
+create index idx_chat_sessions_last_question on chat_sessions (last_question_at);
+create index idx_chat_sessions_system_prompt on chat_sessions (system_prompt_hash);
+
+create table chat_messages (
+    id bigint primary key,
+    session_id bigint references chat_sessions (id),
+    role varchar(255) not null,
+    content text not null,
+    created_at timestamp not null,
+    prompt_tokens integer,
+    completion_tokens integer,
+    cached_tokens integer,
+    latency_ms bigint
+);
+create index idx_chat_messages_session_created on chat_messages (session_id, created_at);
+
+create table question_cache_entries (
+    id bigint generated by default as identity primary key,
+    database_connection_id bigint not null,
+    schema_version timestamp,
+    question text not null,
+    normalized_question text not null,
+    answer_sql text not null,
+    accepted boolean not null,
+    hit_count integer not null,
+    created_at timestamp not null
+);
+create index idx_question_cache_db on question_cache_entries (database_connection_id);
+
+create table metabase_outbox (
+    id bigint generated by default as identity primary key,
+    idempotency_key varchar(255) not null,
+    session_id bigint not null,
+    query text not null,
+    title varchar(255),
+    description text,
+    status varchar(255) not null,
+    attempts integer not null,
+    next_attempt_at timestamp not null,
+    last_error text,
+    card_id bigint,
+    card_name varchar(255),
+    created_at timestamp not null,
+    updated_at timestamp
+);
+create index idx_metabase_outbox_status_next on metabase_outbox (status, next_attempt_at);
+create unique index idx_metabase_outbox_key on metabase_outbox (idempotency_key);
+
+create table archived_sessions (
+    id bigint generated by default as identity primary key,
+    session_id bigint not null,
+    database_connection_id bigint not null,
+    title varchar(255) not null,
+    created_at timestamp,
+    last_question_at timestamp,
+    message_count integer not null,
+    archive_file varchar(255) not null,
+    archive_offset bigint not null,
+    archive_length integer not null,
+    archived_at timestamp not null
+);
+create index idx_archived_sessions_db on archived_sessions (database_connection_id, last_question_at);
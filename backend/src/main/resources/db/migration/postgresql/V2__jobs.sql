@@ -0,0 +1,19 @@
+create table job_locks (
+    name varchar(100) primary key,
+    locked_by varchar(255),
+    locked_until timestamp not null,
+    locked_at timestamp
+);
+
+create table job_runs (
+    id bigint generated by default as identity primary key,
+    job_name varchar(100) not null,
+    instance_id varchar(255) not null,
+    trigger_type varchar(255) not null,
+    status varchar(255) not null,
+    started_at timestamp not null,
+    finished_at timestamp,
+    duration_ms bigint,
+    message text
+);
+create index idx_job_runs_job_started on job_runs (job_name, started_at);
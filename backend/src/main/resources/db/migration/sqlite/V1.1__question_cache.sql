@@ -0,0 +1,12 @@
+create table question_cache_entries (
+    id integer primary key,
+    database_connection_id bigint not null,
+    schema_version timestamp,
+    question text not null,
+    normalized_question text not null,
+    answer_sql text not null,
+    accepted boolean not null,
+    hit_count integer not null,
+    created_at timestamp not null
+);
+create index idx_question_cache_db on question_cache_entries (database_connection_id);
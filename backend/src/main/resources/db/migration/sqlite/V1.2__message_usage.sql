@@ -0,0 +1,4 @@
+alter table chat_messages add column prompt_tokens integer;
+alter table chat_messages add column completion_tokens integer;
+alter table chat_messages add column cached_tokens integer;
+alter table chat_messages add column latency_ms bigint;
@@ -0,0 +1 @@
+alter table database_connections add column speculative_execution boolean not null default 0;
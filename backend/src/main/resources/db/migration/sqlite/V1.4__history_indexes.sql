@@ -0,0 +1,2 @@
+create index idx_chat_sessions_db_created on chat_sessions (database_connection_id, created_at);
+create index idx_chat_messages_session_created on chat_messages (session_id, created_at);
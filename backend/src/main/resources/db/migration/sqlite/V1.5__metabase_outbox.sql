@@ -0,0 +1,18 @@
+create table metabase_outbox (
+    id integer primary key,
+    idempotency_key varchar(255) not null,
+    session_id bigint not null,
+    query text not null,
+    title varchar(255),
+    description text,
+    status varchar(255) not null,
+    attempts integer not null,
+    next_attempt_at timestamp not null,
+    last_error text,
+    card_id bigint,
+    card_name varchar(255),
+    created_at timestamp not null,
+    updated_at timestamp
+);
+create index idx_metabase_outbox_status_next on metabase_outbox (status, next_attempt_at);
+create unique index idx_metabase_outbox_key on metabase_outbox (idempotency_key);
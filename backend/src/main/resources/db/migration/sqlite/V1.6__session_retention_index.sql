@@ -0,0 +1 @@
+create index idx_chat_sessions_last_question on chat_sessions (last_question_at);
@@ -0,0 +1,9 @@
+-- Existing prompts are moved out of chat_sessions.system_prompt by SystemPromptMigration at startup (hashing is done
+-- in Java); the legacy column is dropped once it is empty.
+create table system_prompts (
+    hash varchar(64) primary key,
+    content text not null
+);
+
+alter table chat_sessions add column system_prompt_hash varchar(64);
+create index idx_chat_sessions_system_prompt on chat_sessions (system_prompt_hash);
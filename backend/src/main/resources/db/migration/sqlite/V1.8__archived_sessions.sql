@@ -0,0 +1,14 @@
+create table archived_sessions (
+    id integer primary key,
+    session_id bigint not null,
+    database_connection_id bigint not null,
+    title varchar(255) not null,
+    created_at timestamp,
+    last_question_at timestamp,
+    message_count integer not null,
+    archive_file varchar(255) not null,
+    archive_offset bigint not null,
+    archive_length integer not null,
+    archived_at timestamp not null
+);
+create index idx_archived_sessions_db on archived_sessions (database_connection_id, last_question_at);
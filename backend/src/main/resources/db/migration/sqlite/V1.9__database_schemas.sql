@@ -0,0 +1,6 @@
+-- Schema JSON is moved out of database_connections.schema_json by DatabaseSchemaMigration at startup, one connection
+-- per transaction; the legacy column is dropped once it is empty.
+create table database_schemas (
+    database_connection_id integer primary key,
+    schema_json text not null
+);
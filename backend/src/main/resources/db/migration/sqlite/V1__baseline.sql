@@ -0,0 +1,49 @@
+-- Schema of the last release before migrations, as Hibernate (ddl-auto: update) created it. Files created by that
+-- release are baselined at version 0, so this also runs on them; "if not exists" leaves their tables as they are.
+-- Everything added since lives in its own migration below, so both kinds of file end up with the same schema.
+
+create table if not exists admin_users (
+    id integer,
+    created_at timestamp not null,
+    password_hash varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table if not exists database_connections (
+    id integer,
+    port integer not null,
+    schema_ready BOOLEAN NOT NULL DEFAULT 0,
+    created_at timestamp,
+    schema_updated_at timestamp,
+    updated_at timestamp,
+    database_name varchar(255) not null,
+    db_type varchar(255) not null check (db_type in ('MYSQL','MARIADB','POSTGRESQL')),
+    host varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    schema_json clob,
+    username varchar(255) not null,
+    primary key (id)
+);
+
+create table if not exists chat_sessions (
+    id integer,
+    created_at timestamp not null,
+    database_connection_id bigint,
+    last_question_at timestamp,
+    metabase_card_id bigint,
+    system_prompt_database_id bigint,
+    system_prompt TEXT,
+    title varchar(255) not null,
+    primary key (id)
+);
+
+create table if not exists chat_messages (
+    id integer,
+    created_at timestamp not null,
+    session_id bigint,
+    content TEXT not null,
+    role varchar(255) not null check (role in ('USER','ASSISTANT')),
+    primary key (id)
+);
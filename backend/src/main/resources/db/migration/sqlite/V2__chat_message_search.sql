@@ -0,0 +1,21 @@
+-- FTS5 index over chat_messages.content (external content: only tokens are stored). "if not exists" because files
+-- baselined at V1 may already have it from the startup initializer this replaces.
+
+create virtual table if not exists chat_messages_fts using fts5(
+    content, content = 'chat_messages', content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3');
+
+create trigger if not exists chat_messages_fts_ai after insert on chat_messages begin
+    insert into chat_messages_fts (rowid, content) values (new.id, new.content);
+end;
+
+create trigger if not exists chat_messages_fts_ad after delete on chat_messages begin
+    insert into chat_messages_fts (chat_messages_fts, rowid, content) values ('delete', old.id, old.content);
+end;
+
+create trigger if not exists chat_messages_fts_au after update of content on chat_messages begin
+    insert into chat_messages_fts (chat_messages_fts, rowid, content) values ('delete', old.id, old.content);
+    insert into chat_messages_fts (rowid, content) values (new.id, new.content);
+end;
+
+insert into chat_messages_fts (chat_messages_fts) values ('rebuild');
@@ -0,0 +1,90 @@
+package com.namejm.query_bot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Starts the application on a SQLite file created by the last release before migrations and checks that it is brought
+ * up to the current schema with its data intact.
+ */
+@SpringBootTest
+class SqliteMigrationTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private DatabaseConnectionRepository databaseConnectionRepository;
+
+	@DynamicPropertySource
+	static void baselineDatabase(DynamicPropertyRegistry registry) throws Exception {
+		Path dataDir = Files.createTempDirectory("querybot-baseline");
+		Path dbFile = dataDir.resolve("querybot.db");
+		try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile)) {
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-querybot.sql"));
+		}
+		registry.add("app.metadata-store", () -> "SQLITE");
+		registry.add("app.data-dir", dataDir::toString);
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dbFile);
+		registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+		registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+		registry.add("spring.flyway.baseline-on-migrate", () -> "true");
+		registry.add("spring.flyway.baseline-version", () -> "0");
+	}
+
+	@Test
+	void migratesBaselineFile() {
+		Integer failed = jdbcTemplate.queryForObject("select count(*) from flyway_schema_history where success = 0", Integer.class);
+		assertThat(failed).isZero();
+
+		List<String> sessionColumns = jdbcTemplate.queryForList("select name from pragma_table_info('chat_sessions')", String.class);
+		assertThat(sessionColumns).contains("system_prompt_hash").doesNotContain("system_prompt");
+		List<String> connectionColumns = jdbcTemplate.queryForList("select name from pragma_table_info('database_connections')", String.class);
+		assertThat(connectionColumns).contains("speculative_execution").doesNotContain("schema_json");
+
+		String prompt = jdbcTemplate.queryForObject("select p.content from chat_sessions s "
+				+ "join system_prompts p on p.hash = s.system_prompt_hash where s.id = 1", String.class);
+		assertThat(prompt).isEqualTo("You write SQL for the shop database.");
+		String schemaJson = jdbcTemplate.queryForObject(
+				"select schema_json from database_schemas where database_connection_id = 1", String.class);
+		assertThat(schemaJson).contains("orders");
+	}
+
+	@Test
+	void entitiesReadMigratedRows() {
+		ChatSession session = chatSessionRepository.findById(1L).orElseThrow();
+		assertThat(session.getTitle()).isEqualTo("Orders");
+		assertThat(session.getCreatedAt()).isNotNull();
+		assertThat(chatMessageRepository.count()).isEqualTo(2);
+		assertThat(databaseConnectionRepository.findById(1L).orElseThrow().isSpeculativeExecution()).isFalse();
+
+		List<Long> hits = jdbcTemplate.queryForList(
+				"select rowid from chat_messages_fts where chat_messages_fts match 'orders'", Long.class);
+		assertThat(hits).containsExactlyInAnyOrder(1L, 2L);
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.namejm.query_bot.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read/write routing of the SQLite store: read-only transactions must get a connection from the read pool and
+ * read-write transactions the single writer.
+ */
+@SpringBootTest
+class DataSourceConfigTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@DynamicPropertySource
+	static void sqliteStore(DynamicPropertyRegistry registry) throws Exception {
+		Path dataDir = Files.createTempDirectory("querybot-routing");
+		registry.add("app.metadata-store", () -> "SQLITE");
+		registry.add("app.data-dir", dataDir::toString);
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dataDir.resolve("querybot.db"));
+		registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+		registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+	}
+
+	@Test
+	void readOnlyTransactionUsesReadPool() {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		readOnly.executeWithoutResult(status -> {
+			assertThat(chatSessionRepository.count()).isNotNegative();
+			// Only a connection opened read-only refuses the write; the writer would accept it.
+			assertThatThrownBy(() -> jdbcTemplate.update("insert into system_prompts (hash, content) values ('routing', 'x')"))
+					.isInstanceOf(DataAccessException.class)
+					.hasStackTraceContaining("SQLITE_READONLY");
+		});
+		Integer rows = jdbcTemplate.queryForObject("select count(*) from system_prompts where hash = 'routing'", Integer.class);
+		assertThat(rows).isZero();
+	}
+
+	@Test
+	void readWriteTransactionUsesWriter() {
+		HikariDataSource writer = context.getBean("writeDataSource", HikariDataSource.class);
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+		ChatSession saved = readWrite.execute(status -> {
+			ChatSession session = new ChatSession();
+			session.setTitle("routing");
+			ChatSession result = chatSessionRepository.saveAndFlush(session);
+			// The writer pool has a single connection, so this transaction is the one holding it.
+			assertThat(writer.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+			return result;
+		});
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		assertThat(readOnly.execute(status -> chatSessionRepository.findById(saved.getId()))).isPresent();
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.namejm.query_bot.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * The stub server on a random port, called through {@link OpenAiLlmClient} exactly as the application does.
+ */
+class StubLlmServerTests {
+
+	private static final LlmRecording ORDERS = new LlmRecording("이번 달 주문 건수", "SELECT count(*) FROM shop.orders", 120, 8, 64);
+	private static final LlmRecording MEMBERS = new LlmRecording("회원 수", "SELECT count(*) FROM shop.members", 90, 7, 0);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	private Path dir;
+
+	private StubLlmServer server;
+
+	@AfterEach
+	void stop() {
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	@Test
+	void replaysRecordingWithSamePrompt() throws Exception {
+		OpenAiLlmClient client = start(Duration.ZERO, 0.0, 503);
+
+		LlmCompletion completion = client.complete(conversation("회원 수"));
+
+		assertThat(completion.content()).isEqualTo(MEMBERS.content());
+		assertThat(completion.promptTokens()).isEqualTo(90);
+		assertThat(completion.completionTokens()).isEqualTo(7);
+		assertThat(client.complete(conversation("이번 달 주문 건수")).cachedTokens()).isEqualTo(64);
+	}
+
+	@Test
+	void picksRecordingByHashForUnknownPrompt() throws Exception {
+		OpenAiLlmClient client = start(Duration.ZERO, 0.0, 503);
+		String prompt = "지난주 매출 상위 10개 제품";
+		List<LlmRecording> recordings = List.of(ORDERS, MEMBERS);
+		String expected = recordings.get(Math.floorMod(prompt.hashCode(), recordings.size())).content();
+
+		assertThat(client.complete(conversation(prompt)).content()).isEqualTo(expected);
+		assertThat(client.complete(conversation(prompt)).content()).isEqualTo(expected);
+	}
+
+	@Test
+	void injectsConfiguredErrorStatus() throws Exception {
+		OpenAiLlmClient client = start(Duration.ZERO, 1.0, 429);
+
+		assertThatThrownBy(() -> client.complete(conversation("회원 수")))
+				.isInstanceOfSatisfying(RestClientResponseException.class,
+						ex -> assertThat(ex.getStatusCode().value()).isEqualTo(429));
+	}
+
+	@Test
+	void answersDelayedRequestWhenStopped() throws Exception {
+		OpenAiLlmClient client = start(Duration.ofSeconds(30), 0.0, 503);
+		CompletableFuture<LlmCompletion> pending = CompletableFuture.supplyAsync(() -> client.complete(conversation("회원 수")));
+		Thread.sleep(300);
+
+		server.stop();
+
+		assertThatThrownBy(() -> pending.get(5, TimeUnit.SECONDS))
+				.cause()
+				.isInstanceOfSatisfying(RestClientResponseException.class,
+						ex -> assertThat(ex.getStatusCode().value()).isEqualTo(503));
+	}
+
+	private OpenAiLlmClient start(Duration latency, double errorRate, int errorStatus) throws Exception {
+		Path recordings = dir.resolve("recordings.jsonl");
+		Files.write(recordings, List.of(objectMapper.writeValueAsString(ORDERS), objectMapper.writeValueAsString(MEMBERS)),
+				StandardCharsets.UTF_8);
+		server = new StubLlmServer(objectMapper, 0, recordings, latency, Duration.ZERO, errorRate, errorStatus, 42L);
+		server.start();
+		return new OpenAiLlmClient(server.baseUrl(), "stub", "gpt-test", Duration.ofSeconds(2), Duration.ofSeconds(5));
+	}
+
+	private static List<LlmMessage> conversation(String question) {
+		return List.of(new LlmMessage("system", "You write SQL for the shop database."), new LlmMessage("user", question));
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.namejm.query_bot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.model.DatabaseType;
+import com.namejm.query_bot.model.MessageRole;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Newest-first keyset pages of sessions and messages, including rows that share a timestamp.
+ */
+@SpringBootTest
+@Transactional
+class KeysetPaginationTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+	@Autowired
+	private DatabaseConnectionRepository databaseConnectionRepository;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	private DatabaseConnection database;
+
+	@BeforeEach
+	void setUp() {
+		database = databaseConnectionRepository.save(database("shop"));
+	}
+
+	@Test
+	void pagesSessionsNewestFirst() {
+		ChatSession first = session(database, START);
+		ChatSession second = session(database, START.plusMinutes(1));
+		ChatSession tied = session(database, START.plusMinutes(1));
+		ChatSession latest = session(database, START.plusMinutes(2));
+		session(databaseConnectionRepository.save(database("other")), START.plusMinutes(3));
+
+		List<SessionView> page = chatSessionRepository.findLatestPage(database.getId(), PageRequest.of(0, 2));
+		assertThat(page).extracting(SessionView::getId).containsExactly(latest.getId(), tied.getId());
+
+		page = chatSessionRepository.findPageBefore(database.getId(), tied.getId(), PageRequest.of(0, 2));
+		assertThat(page).extracting(SessionView::getId).containsExactly(second.getId(), first.getId());
+
+		assertThat(chatSessionRepository.findPageBefore(database.getId(), first.getId(), PageRequest.of(0, 2))).isEmpty();
+	}
+
+	@Test
+	void pagesMessagesNewestFirst() {
+		ChatSession session = session(database, START);
+		ChatSession otherSession = session(database, START);
+		ChatMessage question = message(session, MessageRole.USER, START);
+		ChatMessage answer = message(session, MessageRole.ASSISTANT, START.plusSeconds(1));
+		ChatMessage followUp = message(session, MessageRole.USER, START.plusSeconds(1));
+		ChatMessage lastAnswer = message(session, MessageRole.ASSISTANT, START.plusSeconds(2));
+		message(otherSession, MessageRole.USER, START.plusSeconds(3));
+
+		List<MessageView> page = chatMessageRepository.findLatestPage(session.getId(), PageRequest.of(0, 3));
+		assertThat(page).extracting(MessageView::getId)
+				.containsExactly(lastAnswer.getId(), followUp.getId(), answer.getId());
+
+		page = chatMessageRepository.findPageBefore(session.getId(), answer.getId(), PageRequest.of(0, 3));
+		assertThat(page).extracting(MessageView::getId).containsExactly(question.getId());
+		assertThat(page.get(0).getRole()).isEqualTo(MessageRole.USER);
+	}
+
+	private ChatSession session(DatabaseConnection connection, LocalDateTime createdAt) {
+		ChatSession session = new ChatSession();
+		session.setDatabaseConnection(connection);
+		session.setTitle("session");
+		session.setCreatedAt(createdAt);
+		return chatSessionRepository.save(session);
+	}
+
+	private ChatMessage message(ChatSession session, MessageRole role, LocalDateTime createdAt) {
+		ChatMessage message = new ChatMessage();
+		message.setSession(session);
+		message.setRole(role);
+		message.setContent(role.name());
+		message.setCreatedAt(createdAt);
+		return chatMessageRepository.save(message);
+	}
+
+	private static DatabaseConnection database(String name) {
+		DatabaseConnection connection = new DatabaseConnection();
+		connection.setName(name);
+		connection.setDbType(DatabaseType.POSTGRESQL);
+		connection.setHost("localhost");
+		connection.setPort(5432);
+		connection.setDatabaseName(name);
+		connection.setUsername("reader");
+		connection.setPassword("secret");
+		return connection;
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.namejm.query_bot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.repository.AdminUserRepository;
+import com.namejm.query_bot.service.AuthService;
+import com.namejm.query_bot.service.TokenService;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PrincipalCacheTests {
+
+	private final AppProperties appProperties = new AppProperties();
+	private final PrincipalCache cache = new PrincipalCache(appProperties);
+
+	@Test
+	void returnsCachedUsername() {
+		cache.put("token", "admin", Instant.now().plusSeconds(600), cache.generation());
+
+		assertThat(cache.get("token")).contains("admin");
+		assertThat(cache.get("other")).isEmpty();
+	}
+
+	@Test
+	void invalidateDropsEveryEntry() {
+		cache.put("first", "admin", null, cache.generation());
+		cache.put("second", "operator", null, cache.generation());
+
+		cache.invalidate();
+
+		assertThat(cache.get("first")).isEmpty();
+		assertThat(cache.get("second")).isEmpty();
+	}
+
+	@Test
+	void ignoresPutLoadedBeforeInvalidate() {
+		long loadedAt = cache.generation();
+		// The admin changed while the filter was still looking the user up.
+		cache.invalidate();
+		cache.put("token", "admin", null, loadedAt);
+
+		assertThat(cache.get("token")).isEmpty();
+
+		cache.put("token", "admin", null, cache.generation());
+		assertThat(cache.get("token")).contains("admin");
+	}
+
+	@Test
+	void neverOutlivesTheToken() {
+		cache.put("expired", "admin", Instant.now().minusSeconds(1), cache.generation());
+
+		assertThat(cache.get("expired")).isEmpty();
+	}
+
+	@Test
+	void zeroTtlDisablesCaching() {
+		appProperties.getSecurity().setPrincipalCacheTtl(Duration.ZERO);
+
+		cache.put("token", "admin", null, cache.generation());
+
+		assertThat(cache.get("token")).isEmpty();
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondSize() {
+		appProperties.getSecurity().setPrincipalCacheSize(2);
+		cache.put("first", "admin", null, cache.generation());
+		cache.put("second", "admin", null, cache.generation());
+		cache.get("first");
+
+		cache.put("third", "admin", null, cache.generation());
+
+		assertThat(cache.get("first")).contains("admin");
+		assertThat(cache.get("second")).isEmpty();
+		assertThat(cache.get("third")).contains("admin");
+	}
+
+	@Test
+	void creatingAdminInvalidatesCache() {
+		AdminUserRepository adminUserRepository = mock(AdminUserRepository.class);
+		when(adminUserRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		AuthService authService = new AuthService(adminUserRepository, mock(PasswordEncoder.class), mock(TokenService.class), cache);
+		cache.put("token", "admin", null, cache.generation());
+
+		authService.createAdmin("operator", "secret");
+
+		assertThat(cache.get("token")).isEmpty();
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.namejm.query_bot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.config.AppProperties;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class RateLimitFilterTests {
+
+	private final AppProperties appProperties = new AppProperties();
+	private final AppProperties.RateLimit.Rule rule = new AppProperties.RateLimit.Rule();
+	private RateLimitFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		rule.setMethod("POST");
+		rule.setPath("/api/chat/**");
+		rule.setCapacity(2);
+		appProperties.getRateLimit().getRules().clear();
+		appProperties.getRateLimit().getRules().put("chat", rule);
+		filter = new RateLimitFilter(appProperties, new ObjectMapper());
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void rejectsOnceAddressBucketIsEmpty() throws Exception {
+		MockHttpServletResponse first = send("POST", "/api/chat/ask", "10.0.0.1");
+		MockHttpServletResponse second = send("POST", "/api/chat/ask", "10.0.0.1");
+		MockHttpServletResponse third = send("POST", "/api/chat/ask", "10.0.0.1");
+
+		assertThat(first.getStatus()).isEqualTo(200);
+		assertThat(first.getHeader("RateLimit-Limit")).isEqualTo("2");
+		assertThat(first.getHeader("RateLimit-Remaining")).isEqualTo("1");
+		assertThat(second.getHeader("RateLimit-Remaining")).isEqualTo("0");
+		assertThat(third.getStatus()).isEqualTo(429);
+		assertThat(third.getHeader("Retry-After")).isEqualTo("30");
+		assertThat(third.getContentAsString()).contains("\"retryAfter\":30");
+	}
+
+	@Test
+	void keepsSeparateBucketsPerAddress() throws Exception {
+		send("POST", "/api/chat/ask", "10.0.0.1");
+		send("POST", "/api/chat/ask", "10.0.0.1");
+
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(429);
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.2").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void limitsSignedInUserAcrossAddresses() throws Exception {
+		rule.setIpCapacity(5);
+		signIn("admin");
+
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(200);
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.2").getStatus()).isEqualTo(200);
+		MockHttpServletResponse rejected = send("POST", "/api/chat/ask", "10.0.0.3");
+
+		assertThat(rejected.getStatus()).isEqualTo(429);
+		assertThat(rejected.getHeader("RateLimit-Limit")).isEqualTo("2");
+		// The address token taken for the rejected request is given back.
+		SecurityContextHolder.clearContext();
+		MockHttpServletResponse anonymous = send("POST", "/api/chat/ask", "10.0.0.3");
+		assertThat(anonymous.getHeader("RateLimit-Limit")).isEqualTo("5");
+		assertThat(anonymous.getHeader("RateLimit-Remaining")).isEqualTo("4");
+	}
+
+	@Test
+	void refillsOverThePeriod() throws Exception {
+		rule.setCapacity(1);
+		rule.setPeriod(Duration.ofMillis(100));
+
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(200);
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(429);
+		Thread.sleep(150);
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void ignoresRequestsOutsideTheRules() throws Exception {
+		rule.setCapacity(1);
+		send("POST", "/api/chat/ask", "10.0.0.1");
+
+		MockHttpServletResponse otherMethod = send("GET", "/api/chat/ask", "10.0.0.1");
+		MockHttpServletResponse otherPath = send("POST", "/api/databases", "10.0.0.1");
+
+		assertThat(otherMethod.getStatus()).isEqualTo(200);
+		assertThat(otherMethod.getHeader("RateLimit-Limit")).isNull();
+		assertThat(otherPath.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void passesEverythingWhenDisabled() throws Exception {
+		appProperties.getRateLimit().setEnabled(false);
+		rule.setCapacity(1);
+
+		send("POST", "/api/chat/ask", "10.0.0.1");
+
+		assertThat(send("POST", "/api/chat/ask", "10.0.0.1").getStatus()).isEqualTo(200);
+	}
+
+	private MockHttpServletResponse send(String method, String path, String address) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setRemoteAddr(address);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private static void signIn(String username) {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+				username, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.model.MetadataStore;
+import com.namejm.query_bot.model.RetentionMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ChatArchiveServiceTests {
+
+	private final AppProperties appProperties = new AppProperties();
+
+	@Test
+	void sharedStoreRequiresArchiveDir() {
+		appProperties.setMetadataStore(MetadataStore.SERVER);
+		appProperties.getRetention().setMode(RetentionMode.ARCHIVE);
+
+		assertThatThrownBy(this::create)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("app.retention.archive-dir");
+
+		appProperties.getRetention().setArchiveDir("/mnt/shared/querybot-archive");
+		assertThatCode(this::create).doesNotThrowAnyException();
+	}
+
+	@Test
+	void localStoreAndDeleteModeNeedNoArchiveDir() {
+		appProperties.getRetention().setMode(RetentionMode.ARCHIVE);
+		assertThatCode(this::create).doesNotThrowAnyException();
+
+		appProperties.setMetadataStore(MetadataStore.SERVER);
+		appProperties.getRetention().setMode(RetentionMode.DELETE);
+		assertThatCode(this::create).doesNotThrowAnyException();
+	}
+
+	private ChatArchiveService create() {
+		return new ChatArchiveService(null, null, null, null, null, null, null, appProperties, new ObjectMapper(),
+				mock(PlatformTransactionManager.class));
+	}
+
+}
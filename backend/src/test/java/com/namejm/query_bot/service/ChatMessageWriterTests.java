@@ -0,0 +1,110 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.model.MessageRole;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ChatMessageWriterTests {
+
+	private final ChatMessageRepository repository = mock(ChatMessageRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private final List<String> inserted = new ArrayList<>();
+	private final List<Boolean> savedWithoutId = new ArrayList<>();
+	private final AtomicLong ids = new AtomicLong();
+	private ChatMessageWriter writer;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.saveAll(any())).thenAnswer(invocation -> {
+			Iterable<ChatMessage> messages = invocation.getArgument(0);
+			for (ChatMessage message : messages) {
+				savedWithoutId.add(message.getId() == null);
+				// Like the id generator, assign the id before the insert can fail.
+				ReflectionTestUtils.setField(message, "id", ids.incrementAndGet());
+				if (message.getContent().equals("bad")) {
+					throw new DataIntegrityViolationException("session is gone");
+				}
+				inserted.add(message.getContent());
+			}
+			return messages;
+		});
+		writer = new ChatMessageWriter(repository, new AppProperties(), scheduled::add, transactionManager);
+	}
+
+	@Test
+	void writesQueuedTurnsInOneTransaction() {
+		CompletableFuture<Void> first = writer.write(turn("q1", "a1"));
+		CompletableFuture<Void> second = writer.write(turn("q2", "a2"));
+		assertThat(first).isNotDone();
+
+		drain();
+
+		assertThat(first).isCompletedWithValue(null);
+		assertThat(second).isCompletedWithValue(null);
+		assertThat(inserted).containsExactly("q1", "a1", "q2", "a2");
+		verify(transactionManager, times(1)).getTransaction(any());
+	}
+
+	@Test
+	void failedBatchIsRetriedTurnByTurn() {
+		CompletableFuture<Void> before = writer.write(turn("q1", "a1"));
+		CompletableFuture<Void> broken = writer.write(turn("q2", "bad"));
+		CompletableFuture<Void> after = writer.write(turn("q3", "a3"));
+
+		drain();
+
+		assertThat(before).isCompletedWithValue(null);
+		assertThat(after).isCompletedWithValue(null);
+		assertThat(broken).isCompletedExceptionally();
+		// The batch attempt, then each turn again on its own.
+		assertThat(inserted).containsExactly("q1", "a1", "q2", "q1", "a1", "q2", "q3", "a3");
+		verify(transactionManager, times(4)).getTransaction(any());
+		// Retried messages are inserted afresh rather than with the ids of the rolled-back insert.
+		assertThat(savedWithoutId).doesNotContain(false);
+	}
+
+	@Test
+	void singleFailedTurnFailsOnlyItself() {
+		CompletableFuture<Void> broken = writer.write(turn("q", "bad"));
+
+		drain();
+
+		assertThat(broken).isCompletedExceptionally();
+		verify(transactionManager, times(1)).getTransaction(any());
+	}
+
+	private void drain() {
+		while (!scheduled.isEmpty()) {
+			scheduled.remove(0).run();
+		}
+	}
+
+	private static List<ChatMessage> turn(String question, String answer) {
+		return List.of(message(MessageRole.USER, question), message(MessageRole.ASSISTANT, answer));
+	}
+
+	private static ChatMessage message(MessageRole role, String content) {
+		ChatMessage message = new ChatMessage();
+		message.setRole(role);
+		message.setContent(content);
+		return message;
+	}
+}
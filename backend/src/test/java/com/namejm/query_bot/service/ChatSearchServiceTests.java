@@ -0,0 +1,109 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.dto.MessageSearchHit;
+import com.namejm.query_bot.model.MessageRole;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * FTS5 search on the SQLite store: the triggers from migration V2 must keep the index in step with every insert, update
+ * and delete on {@code chat_messages}. Writes are committed, since searches read through the read pool.
+ */
+@SpringBootTest
+class ChatSearchServiceTests {
+
+	@Autowired
+	private ChatSearchService chatSearchService;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ChatSession session;
+
+	@DynamicPropertySource
+	static void sqliteStore(DynamicPropertyRegistry registry) throws Exception {
+		Path dataDir = Files.createTempDirectory("querybot-search");
+		registry.add("app.metadata-store", () -> "SQLITE");
+		registry.add("app.data-dir", dataDir::toString);
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dataDir.resolve("querybot.db"));
+		registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+		registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+	}
+
+	@BeforeEach
+	void setUp() {
+		session = new ChatSession();
+		session.setTitle("Orders");
+		session = chatSessionRepository.save(session);
+	}
+
+	@AfterEach
+	void clear() {
+		chatMessageRepository.deleteAllInBatch();
+		chatSessionRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void indexFollowsInsertUpdateAndDelete() {
+		ChatMessage message = message("이번 달 주문을 조회했습니다");
+		assertThat(search("주문")).extracting(MessageSearchHit::messageId).containsExactly(message.getId());
+
+		jdbcTemplate.update("update chat_messages set content = ? where id = ?", "회원 목록을 정리했습니다", message.getId());
+		assertThat(search("주문")).isEmpty();
+		assertThat(search("회원")).extracting(MessageSearchHit::messageId).containsExactly(message.getId());
+
+		chatMessageRepository.deleteById(message.getId());
+		assertThat(search("회원")).isEmpty();
+		assertThatCode(() -> jdbcTemplate.update(
+				"insert into chat_messages_fts (chat_messages_fts, rank) values ('integrity-check', 1)"))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void matchesTermsAsPrefixes() {
+		ChatMessage orders = message("SELECT count(*) FROM shop.orders 주문이 많은 고객");
+		message("회원 가입 추이");
+
+		List<MessageSearchHit> hits = search("주 order");
+
+		assertThat(hits).extracting(MessageSearchHit::messageId).containsExactly(orders.getId());
+		assertThat(hits.get(0).sessionTitle()).isEqualTo("Orders");
+		assertThat(hits.get(0).snippet()).contains("[");
+	}
+
+	private List<MessageSearchHit> search(String query) {
+		return chatSearchService.search(query, null, null, null, null);
+	}
+
+	private ChatMessage message(String content) {
+		ChatMessage message = new ChatMessage();
+		message.setSession(session);
+		message.setRole(MessageRole.ASSISTANT);
+		message.setContent(content);
+		return chatMessageRepository.save(message);
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.dto.RetentionReport;
+import com.namejm.query_bot.model.MessageRole;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Chunked retention cleanup on the SQLite store, including the incremental vacuum that follows it.
+ */
+@SpringBootTest
+class ChatSessionCleanupServiceTests {
+
+	private static final String LONG_CONTENT = "select * from orders where status = 'PAID';\n".repeat(100);
+
+	@Autowired
+	private ChatSessionCleanupService cleanupService;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void sqliteStore(DynamicPropertyRegistry registry) throws Exception {
+		Path dataDir = Files.createTempDirectory("querybot-retention");
+		registry.add("app.metadata-store", () -> "SQLITE");
+		registry.add("app.data-dir", dataDir::toString);
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dataDir.resolve("querybot.db"));
+		registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+		registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+		registry.add("app.retention.chunk-size", () -> "2");
+		registry.add("app.retention.chunk-pause", () -> "0ms");
+	}
+
+	@AfterEach
+	void clear() {
+		chatMessageRepository.deleteAllInBatch();
+		chatSessionRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void removesExpiredSessionsInChunksAndVacuums() {
+		assertThat(autoVacuum()).isEqualTo(2);
+		List<Long> expired = sessions(5, LocalDateTime.now().minusDays(60));
+		List<Long> recent = sessions(2, LocalDateTime.now().minusDays(1));
+
+		cleanupService.run(() -> true);
+
+		RetentionReport report = cleanupService.lastReport().orElseThrow();
+		assertThat(report.sessionsDeleted()).isEqualTo(5);
+		assertThat(report.messagesDeleted()).isEqualTo(5 * 10);
+		assertThat(report.chunks()).isEqualTo(3);
+		assertThat(report.pagesFreed()).isPositive();
+		assertThat(chatSessionRepository.findAllById(expired)).isEmpty();
+		assertThat(chatSessionRepository.findAllById(recent)).hasSize(2);
+		assertThat(chatMessageRepository.count()).isEqualTo(2 * 10);
+	}
+
+	@Test
+	void guardedDeleteKeepsSessionThatIsNoLongerExpired() {
+		List<Long> recent = sessions(1, LocalDateTime.now().minusDays(1));
+
+		assertThat(chatSessionRepository.deleteExpiredByIds(recent, LocalDateTime.now().minusDays(30))).isZero();
+		assertThat(chatSessionRepository.existsById(recent.get(0))).isTrue();
+	}
+
+	@Test
+	void skipsVacuumUntilConvertedExplicitly() {
+		jdbcTemplate.execute("PRAGMA auto_vacuum = NONE");
+		jdbcTemplate.execute("VACUUM");
+		assertThat(autoVacuum()).isZero();
+		sessions(3, LocalDateTime.now().minusDays(60));
+
+		cleanupService.run(() -> true);
+
+		RetentionReport report = cleanupService.lastReport().orElseThrow();
+		assertThat(report.sessionsDeleted()).isEqualTo(3);
+		assertThat(report.pagesFreed()).isZero();
+		assertThat(autoVacuum()).isZero();
+
+		assertThat(cleanupService.enableIncrementalVacuum().converted()).isTrue();
+		assertThat(autoVacuum()).isEqualTo(2);
+		assertThat(cleanupService.enableIncrementalVacuum().converted()).isFalse();
+	}
+
+	private List<Long> sessions(int count, LocalDateTime lastQuestionAt) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ChatSession session = new ChatSession();
+			session.setTitle("session " + i);
+			session.setCreatedAt(lastQuestionAt);
+			session.setLastQuestionAt(lastQuestionAt);
+			session = chatSessionRepository.save(session);
+			for (int j = 0; j < 10; j++) {
+				ChatMessage message = new ChatMessage();
+				message.setSession(session);
+				message.setRole(j % 2 == 0 ? MessageRole.USER : MessageRole.ASSISTANT);
+				message.setContent(LONG_CONTENT);
+				message.setCreatedAt(lastQuestionAt);
+				chatMessageRepository.save(message);
+			}
+			ids.add(session.getId());
+		}
+		return ids;
+	}
+
+	private Integer autoVacuum() {
+		return jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class);
+	}
+
+}
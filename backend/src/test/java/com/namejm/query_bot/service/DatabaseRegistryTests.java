@@ -0,0 +1,124 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class DatabaseRegistryTests {
+
+	private final DatabaseConnectionRepository repository = mock(DatabaseConnectionRepository.class);
+	private final AppProperties appProperties = new AppProperties();
+	private final List<DatabaseConnection> connections = new ArrayList<>();
+	private DatabaseRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		appProperties.setDatabaseRegistryTtl(Duration.ofMinutes(5));
+		when(repository.findAll()).thenAnswer(invocation -> List.copyOf(connections));
+		registry = new DatabaseRegistry(repository, appProperties);
+		connections.add(connection(1L, "shop"));
+	}
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void loadsAllDatabasesOnce() {
+		connections.add(connection(2L, "crm"));
+
+		assertThat(registry.require(1L).name()).isEqualTo("shop");
+		assertThat(registry.exists(2L)).isTrue();
+		assertThat(registry.find(3L)).isEmpty();
+		assertThat(registry.all()).extracting(DatabaseSnapshot::name).containsExactly("shop", "crm");
+
+		verify(repository, times(1)).findAll();
+	}
+
+	@Test
+	void invalidateReloads() {
+		registry.require(1L);
+		connections.add(connection(2L, "crm"));
+		assertThat(registry.exists(2L)).isFalse();
+
+		registry.invalidate();
+
+		assertThat(registry.exists(2L)).isTrue();
+		verify(repository, times(2)).findAll();
+	}
+
+	@Test
+	void reloadsOnceTtlRunsOut() {
+		appProperties.setDatabaseRegistryTtl(Duration.ZERO);
+
+		registry.require(1L);
+		registry.require(1L);
+
+		verify(repository, times(2)).findAll();
+	}
+
+	@Test
+	void invalidateInsideTransactionReloadsAgainAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		registry.invalidate();
+		// A reader loads before the commit and would otherwise keep the uncommitted view.
+		registry.require(1L);
+		connections.add(connection(2L, "crm"));
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+
+		assertThat(registry.exists(2L)).isTrue();
+		verify(repository, times(2)).findAll();
+	}
+
+	@Test
+	void doesNotKeepViewLoadedDuringInvalidation() {
+		when(repository.findAll()).thenAnswer(invocation -> {
+			List<DatabaseConnection> snapshot = List.copyOf(connections);
+			if (connections.size() == 1) {
+				// Another thread registers a database while this load is running.
+				connections.add(connection(2L, "crm"));
+				registry.invalidate();
+			}
+			return snapshot;
+		});
+
+		assertThat(registry.exists(2L)).isFalse();
+		assertThat(registry.exists(2L)).isTrue();
+	}
+
+	@Test
+	void requireFailsForUnknownDatabase() {
+		assertThatThrownBy(() -> registry.require(99L)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static DatabaseConnection connection(Long id, String name) {
+		DatabaseConnection connection = new DatabaseConnection();
+		ReflectionTestUtils.setField(connection, "id", id);
+		connection.setName(name);
+		return connection;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.domain.ArchivedSession;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.domain.MetabaseOutboxEntry;
+import com.namejm.query_bot.model.DatabaseType;
+import com.namejm.query_bot.repository.ArchivedSessionRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class DatabaseServiceTests {
+
+	@Autowired
+	private DatabaseService databaseService;
+
+	@Autowired
+	private DatabaseConnectionRepository databaseConnectionRepository;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private MetabaseOutboxRepository metabaseOutboxRepository;
+
+	@Autowired
+	private ArchivedSessionRepository archivedSessionRepository;
+
+	@Test
+	void deleteDatabaseRemovesEverythingThatPointsAtIt() {
+		DatabaseConnection shop = databaseConnectionRepository.save(database("shop"));
+		DatabaseConnection crm = databaseConnectionRepository.save(database("crm"));
+		ChatSession shopSession = session(shop);
+		ChatSession crmSession = session(crm);
+		MetabaseOutboxEntry shopCard = metabaseOutboxRepository.save(outbox(shopSession, "shop-card"));
+		MetabaseOutboxEntry crmCard = metabaseOutboxRepository.save(outbox(crmSession, "crm-card"));
+		ArchivedSession shopArchive = archivedSessionRepository.save(archived(shop, 101L));
+		ArchivedSession crmArchive = archivedSessionRepository.save(archived(crm, 102L));
+
+		databaseService.deleteDatabase(shop.getId());
+
+		assertThat(databaseConnectionRepository.existsById(shop.getId())).isFalse();
+		assertThat(chatSessionRepository.existsById(shopSession.getId())).isFalse();
+		assertThat(metabaseOutboxRepository.existsById(shopCard.getId())).isFalse();
+		assertThat(archivedSessionRepository.existsById(shopArchive.getId())).isFalse();
+		assertThat(chatSessionRepository.existsById(crmSession.getId())).isTrue();
+		assertThat(metabaseOutboxRepository.existsById(crmCard.getId())).isTrue();
+		assertThat(archivedSessionRepository.existsById(crmArchive.getId())).isTrue();
+	}
+
+	private ChatSession session(DatabaseConnection connection) {
+		ChatSession session = new ChatSession();
+		session.setDatabaseConnection(connection);
+		session.setTitle(connection.getName());
+		return chatSessionRepository.save(session);
+	}
+
+	private static MetabaseOutboxEntry outbox(ChatSession session, String key) {
+		MetabaseOutboxEntry entry = new MetabaseOutboxEntry();
+		entry.setIdempotencyKey(key);
+		entry.setSessionId(session.getId());
+		entry.setQuery("SELECT 1");
+		entry.setTitle(key);
+		return entry;
+	}
+
+	private static ArchivedSession archived(DatabaseConnection connection, Long sessionId) {
+		ArchivedSession archived = new ArchivedSession();
+		archived.setSessionId(sessionId);
+		archived.setDatabaseConnectionId(connection.getId());
+		archived.setTitle(connection.getName());
+		archived.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+		archived.setLastQuestionAt(LocalDateTime.of(2024, 1, 2, 9, 0));
+		archived.setMessageCount(2);
+		archived.setArchiveFile("sessions-2024-01.jsonl.gz");
+		archived.setArchiveOffset(0);
+		archived.setArchiveLength(128);
+		return archived;
+	}
+
+	private static DatabaseConnection database(String name) {
+		DatabaseConnection connection = new DatabaseConnection();
+		connection.setName(name);
+		connection.setDbType(DatabaseType.POSTGRESQL);
+		connection.setHost("localhost");
+		connection.setPort(5432);
+		connection.setDatabaseName(name);
+		connection.setUsername("reader");
+		connection.setPassword("secret");
+		return connection;
+	}
+
+}
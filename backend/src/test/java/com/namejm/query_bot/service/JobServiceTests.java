@@ -0,0 +1,200 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.JobLock;
+import com.namejm.query_bot.domain.JobRun;
+import com.namejm.query_bot.dto.JobRunSummary;
+import com.namejm.query_bot.dto.JobSummary;
+import com.namejm.query_bot.model.JobRunStatus;
+import com.namejm.query_bot.model.JobTrigger;
+import com.namejm.query_bot.repository.JobLockRepository;
+import com.namejm.query_bot.repository.JobRunRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Job leases against the metadata store: two {@link JobService}s with different instance ids stand in for two
+ * instances sharing one database.
+ */
+@SpringBootTest
+class JobServiceTests {
+
+	@Autowired
+	private JobLockRepository lockRepository;
+
+	@Autowired
+	private JobRunRepository runRepository;
+
+	@Autowired
+	private TaskScheduler taskScheduler;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Runnable> scheduled = new ArrayList<>();
+
+	@Test
+	void onlyOneInstanceHoldsTheLock() {
+		ClusterJob job = job("lease-exclusive", lease -> "done");
+		JobService first = service("node-a", job, Duration.ofMinutes(2));
+		JobService second = service("node-b", job, Duration.ofMinutes(2));
+
+		JobRunSummary run = first.trigger(job.name());
+
+		assertThat(run.status()).isEqualTo(JobRunStatus.RUNNING);
+		assertThat(run.trigger()).isEqualTo(JobTrigger.MANUAL);
+		assertThatThrownBy(() -> second.trigger(job.name())).isInstanceOf(JobBusyException.class);
+		JobSummary summary = second.list().get(0);
+		assertThat(summary.locked()).isTrue();
+		assertThat(summary.lockedBy()).isEqualTo("node-a");
+
+		drain();
+
+		assertThat(runRepository.findById(run.id()).orElseThrow().getStatus()).isEqualTo(JobRunStatus.SUCCEEDED);
+		assertThat(second.list().get(0).locked()).isFalse();
+		assertThat(second.trigger(job.name()).instanceId()).isEqualTo("node-b");
+		drain();
+	}
+
+	@Test
+	void expiredLeaseIsTakenOverAndAbandonedRunFailed() {
+		ClusterJob job = job("lease-expired", lease -> "done");
+		JobService survivor = service("node-a", job, Duration.ofMinutes(2));
+		// A crashed instance left its lock (already expired) and a run that never finished.
+		LocalDateTime past = LocalDateTime.now().minusMinutes(10);
+		lockRepository.save(new JobLock(job.name(), past.minusDays(1)));
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				lockRepository.acquire(job.name(), "node-dead", past, past.plusMinutes(2)));
+		JobRun abandoned = new JobRun();
+		abandoned.setJobName(job.name());
+		abandoned.setInstanceId("node-dead");
+		abandoned.setTriggerType(JobTrigger.SCHEDULED);
+		abandoned.setStartedAt(past);
+		abandoned = runRepository.save(abandoned);
+
+		JobRunSummary run = survivor.trigger(job.name());
+		drain();
+
+		JobRun failed = runRepository.findById(abandoned.getId()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(JobRunStatus.FAILED);
+		assertThat(failed.getFinishedAt()).isNotNull();
+		assertThat(runRepository.findById(run.id()).orElseThrow().getStatus()).isEqualTo(JobRunStatus.SUCCEEDED);
+	}
+
+	@Test
+	void runningJobRenewsItsLease() {
+		AtomicReference<Throwable> contender = new AtomicReference<>();
+		AtomicReference<JobService> other = new AtomicReference<>();
+		ClusterJob job = job("lease-renewed", lease -> {
+			// Outlive several leases; without renewal the other instance could take the job.
+			Thread.sleep(1_000);
+			try {
+				other.get().trigger("lease-renewed");
+			} catch (RuntimeException ex) {
+				contender.set(ex);
+			}
+			return "done";
+		});
+		JobService holder = service("node-a", job, Duration.ofMillis(300));
+		other.set(service("node-b", job, Duration.ofMillis(300)));
+
+		JobRunSummary run = holder.trigger(job.name());
+		drain();
+
+		assertThat(contender.get()).isInstanceOf(JobBusyException.class);
+		assertThat(runRepository.findById(run.id()).orElseThrow().getStatus()).isEqualTo(JobRunStatus.SUCCEEDED);
+	}
+
+	@Test
+	void failedJobIsRecordedAndReleasesTheLock() {
+		ClusterJob job = job("lease-failing", lease -> {
+			throw new IllegalStateException("boom");
+		});
+		JobService service = service("node-a", job, Duration.ofMinutes(2));
+
+		JobRunSummary run = service.trigger(job.name());
+		drain();
+
+		JobRun failed = runRepository.findById(run.id()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(JobRunStatus.FAILED);
+		assertThat(failed.getMessage()).isEqualTo("boom");
+		assertThat(service.list().get(0).locked()).isFalse();
+	}
+
+	@Test
+	void runningJobSeesLostLease() {
+		AtomicReference<Boolean> heldAtStart = new AtomicReference<>();
+		AtomicReference<Boolean> heldAfterTakeover = new AtomicReference<>();
+		ClusterJob job = job("lease-lost", lease -> {
+			heldAtStart.set(lease.held());
+			// Another instance took the lock, e.g. after this one missed its renewals for a whole lease.
+			LocalDateTime now = LocalDateTime.now();
+			TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+			transactionTemplate.executeWithoutResult(status -> lockRepository.release("lease-lost", "node-a", now.minusSeconds(1)));
+			transactionTemplate.executeWithoutResult(status ->
+					lockRepository.acquire("lease-lost", "node-b", now, now.plusMinutes(2)));
+			// Past the first renewal (every 300ms) but well before the 900ms lease would run out by itself.
+			Thread.sleep(500);
+			heldAfterTakeover.set(lease.held());
+			return "done";
+		});
+		JobService holder = service("node-a", job, Duration.ofMillis(900));
+
+		holder.trigger(job.name());
+		drain();
+
+		assertThat(heldAtStart.get()).isTrue();
+		assertThat(heldAfterTakeover.get()).isFalse();
+		assertThat(holder.list().get(0).lockedBy()).isEqualTo("node-b");
+	}
+
+	private JobService service(String instanceId, ClusterJob job, Duration lease) {
+		AppProperties appProperties = new AppProperties();
+		appProperties.getJobs().setInstanceId(instanceId);
+		appProperties.getJobs().setLease(lease);
+		return new JobService(List.of(job), lockRepository, runRepository, appProperties, taskScheduler,
+				scheduled::add, transactionManager);
+	}
+
+	private void drain() {
+		while (!scheduled.isEmpty()) {
+			scheduled.remove(0).run();
+		}
+	}
+
+	private static ClusterJob job(String name, JobBody body) {
+		return new ClusterJob() {
+			@Override
+			public String name() {
+				return name;
+			}
+
+			@Override
+			public String defaultCron() {
+				return "-";
+			}
+
+			@Override
+			public String run(JobLease lease) throws Exception {
+				return body.run(lease);
+			}
+		};
+	}
+
+	private interface JobBody {
+		String run(JobLease lease) throws Exception;
+	}
+
+}
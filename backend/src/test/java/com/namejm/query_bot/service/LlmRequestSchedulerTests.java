@@ -0,0 +1,132 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.dto.LlmQueueStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LlmRequestSchedulerTests {
+
+	private final AppProperties appProperties = new AppProperties();
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private final List<String> started = new ArrayList<>();
+	private LlmRequestScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		appProperties.getLlmScheduler().setMaxConcurrent(1);
+		scheduler = new LlmRequestScheduler(appProperties, scheduled::add);
+	}
+
+	@Test
+	void releasesWaitingRequestsRoundRobinByUser() {
+		submit("alice", 1L, "alice-0");
+		submit("alice", 1L, "alice-1");
+		submit("alice", 1L, "alice-2");
+		submit("bob", 2L, "bob-1");
+		assertThat(scheduler.status().queued()).isEqualTo(3);
+
+		drain();
+
+		assertThat(started).containsExactly("alice-0", "alice-1", "bob-1", "alice-2");
+	}
+
+	@Test
+	void releasesOneUsersRequestsRoundRobinByDatabase() {
+		submit("alice", 1L, "db1-0");
+		submit("alice", 1L, "db1-1");
+		submit("alice", 1L, "db1-2");
+		submit("alice", 2L, "db2-1");
+
+		drain();
+
+		assertThat(started).containsExactly("db1-0", "db1-1", "db2-1", "db1-2");
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() {
+		appProperties.getLlmScheduler().setMaxQueueSize(1);
+		CompletableFuture<String> running = submit("alice", 1L, "running");
+		CompletableFuture<String> waiting = submit("bob", 1L, "waiting");
+		CompletableFuture<String> rejected = submit("carol", 1L, "rejected");
+
+		assertThatThrownBy(rejected::join).hasCauseInstanceOf(LlmBusyException.class);
+		drain();
+		assertThat(running).isCompletedWithValue("running");
+		assertThat(waiting).isCompletedWithValue("waiting");
+		assertThat(scheduler.status().rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsUserOverPerUserLimit() {
+		appProperties.getLlmScheduler().setMaxQueuedPerUser(1);
+		submit("alice", 1L, "running");
+		CompletableFuture<String> waiting = submit("alice", 1L, "waiting");
+		CompletableFuture<String> rejected = submit("alice", 2L, "rejected");
+		CompletableFuture<String> otherUser = submit("bob", 1L, "other");
+
+		assertThat(waiting).isNotDone();
+		assertThat(rejected).isCompletedExceptionally();
+		assertThat(otherUser).isNotDone();
+		assertThat(scheduler.status().queuedByUser()).containsEntry("alice", 1).containsEntry("bob", 1);
+	}
+
+	@Test
+	void timesOutRequestsThatWaitTooLong() {
+		appProperties.getLlmScheduler().setMaxWait(Duration.ofMillis(50));
+		submit("alice", 1L, "running");
+		CompletableFuture<String> first = submit("bob", 1L, "first");
+		CompletableFuture<String> second = submit("carol", 1L, "second");
+
+		for (CompletableFuture<String> waiting : List.of(first, second)) {
+			assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+					.isInstanceOf(ExecutionException.class)
+					.cause()
+					.isInstanceOfSatisfying(LlmBusyException.class, ex -> assertThat(ex.getPosition()).isBetween(1, 2));
+		}
+
+		LlmQueueStatus status = scheduler.status();
+		assertThat(status.queued()).isZero();
+		assertThat(status.timedOut()).isEqualTo(2);
+		drain();
+		assertThat(started).containsExactly("running");
+	}
+
+	@Test
+	void failedTaskReleasesItsSlot() {
+		CompletableFuture<String> failing = scheduler.submit("alice", 1L, () -> {
+			throw new IllegalStateException("provider down");
+		});
+		CompletableFuture<String> next = submit("bob", 1L, "next");
+
+		drain();
+
+		assertThat(failing).isCompletedExceptionally();
+		assertThat(next).isCompletedWithValue("next");
+		assertThat(scheduler.status().active()).isZero();
+		assertThat(scheduler.status().completed()).isEqualTo(2);
+	}
+
+	private CompletableFuture<String> submit(String user, Long dbId, String name) {
+		return scheduler.submit(user, dbId, () -> {
+			started.add(name);
+			return name;
+		});
+	}
+
+	private void drain() {
+		while (!scheduled.isEmpty()) {
+			scheduled.remove(0).run();
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.domain.MetabaseOutboxEntry;
+import com.namejm.query_bot.dto.MetabaseJobResponse;
+import com.namejm.query_bot.dto.MetabaseQuestionRequest;
+import com.namejm.query_bot.dto.MetabaseQuestionResponse;
+import com.namejm.query_bot.model.MetabaseJobStatus;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.MetabaseOutboxRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The outbox worker against the metadata store with Metabase itself mocked. Worker runs are queued and executed by
+ * {@link #drain()}, so each test decides when the background step happens.
+ */
+@SpringBootTest
+class MetabaseOutboxServiceTests {
+
+	@Autowired
+	private MetabaseOutboxRepository outboxRepository;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final MetabaseService metabaseService = mock(MetabaseService.class);
+	private final AppProperties appProperties = new AppProperties();
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private MetabaseOutboxService service;
+	private ChatSession session;
+
+	@BeforeEach
+	void setUp() {
+		when(metabaseService.isAvailable()).thenReturn(true);
+		service = new MetabaseOutboxService(outboxRepository, chatSessionRepository, metabaseService, appProperties,
+				scheduled::add, transactionManager);
+		session = new ChatSession();
+		session.setTitle("Orders");
+		session = chatSessionRepository.save(session);
+	}
+
+	@AfterEach
+	void clear() {
+		outboxRepository.deleteAll(outboxRepository.findAll().stream()
+				.filter(entry -> entry.getSessionId().equals(session.getId()))
+				.toList());
+		chatSessionRepository.deleteById(session.getId());
+	}
+
+	@Test
+	void sendsOnlyLatestRequestAndStoresCardOnSession() throws Exception {
+		when(metabaseService.publishCard(any(), eq("SELECT 2"), any(), any()))
+				.thenReturn(new MetabaseQuestionResponse(42L, "Orders", null));
+		MetabaseJobResponse first = service.enqueue(request("SELECT 1", "first"));
+		MetabaseJobResponse second = service.enqueue(request("SELECT 2", "second"));
+
+		drain();
+
+		assertThat(status(first.jobId())).isEqualTo(MetabaseJobStatus.SUPERSEDED);
+		MetabaseOutboxEntry done = outboxRepository.findById(second.jobId()).orElseThrow();
+		assertThat(done.getStatus()).isEqualTo(MetabaseJobStatus.DONE);
+		assertThat(done.getAttempts()).isEqualTo(1);
+		assertThat(done.getCardId()).isEqualTo(42L);
+		assertThat(chatSessionRepository.findById(session.getId()).orElseThrow().getMetabaseCardId()).isEqualTo(42L);
+		verify(metabaseService, times(1)).publishCard(any(), any(), any(), any());
+		verify(metabaseService, never()).publishCard(any(), eq("SELECT 1"), any(), any());
+	}
+
+	@Test
+	void retriesWithBackoffUntilAttemptsRunOut() throws Exception {
+		appProperties.getMetabase().setOutboxMaxAttempts(2);
+		when(metabaseService.publishCard(any(), any(), any(), any())).thenThrow(new IllegalStateException("Metabase down"));
+		MetabaseJobResponse job = service.enqueue(request("SELECT 1", "first"));
+		LocalDateTime sent = LocalDateTime.now();
+
+		drain();
+
+		MetabaseOutboxEntry retrying = outboxRepository.findById(job.jobId()).orElseThrow();
+		assertThat(retrying.getStatus()).isEqualTo(MetabaseJobStatus.PENDING);
+		assertThat(retrying.getAttempts()).isEqualTo(1);
+		assertThat(retrying.getLastError()).isEqualTo("Metabase down");
+		assertThat(retrying.getNextAttemptAt()).isBetween(sent.plusSeconds(4), sent.plusSeconds(10));
+
+		// Not due yet, so a poll does not send it again.
+		service.poll();
+		drain();
+		verify(metabaseService, times(1)).publishCard(any(), any(), any(), any());
+
+		retrying.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		outboxRepository.save(retrying);
+		service.poll();
+		drain();
+
+		MetabaseOutboxEntry failed = outboxRepository.findById(job.jobId()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(MetabaseJobStatus.FAILED);
+		assertThat(failed.getAttempts()).isEqualTo(2);
+		assertThat(chatSessionRepository.findById(session.getId()).orElseThrow().getMetabaseCardId()).isNull();
+	}
+
+	private MetabaseQuestionRequest request(String query, String title) {
+		return new MetabaseQuestionRequest(session.getId(), query, title, null, null);
+	}
+
+	private MetabaseJobStatus status(Long jobId) {
+		return outboxRepository.findById(jobId).orElseThrow().getStatus();
+	}
+
+	private void drain() {
+		while (!scheduled.isEmpty()) {
+			scheduled.remove(0).run();
+		}
+	}
+
+}
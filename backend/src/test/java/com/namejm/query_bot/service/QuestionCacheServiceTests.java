@@ -0,0 +1,134 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.namejm.query_bot.config.AppProperties;
+import com.namejm.query_bot.domain.QuestionCacheEntry;
+import com.namejm.query_bot.model.DatabaseSnapshot;
+import com.namejm.query_bot.model.DatabaseType;
+import com.namejm.query_bot.repository.QuestionCacheEntryRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class QuestionCacheServiceTests {
+
+	private static final LocalDateTime SCHEMA_VERSION = LocalDateTime.of(2025, 1, 2, 9, 0);
+	private static final String SQL = "SELECT count(*) FROM shop.orders WHERE ordered_at >= date_trunc('month', now())";
+
+	private final QuestionCacheEntryRepository repository = mock(QuestionCacheEntryRepository.class);
+	private final List<QuestionCacheEntry> stored = new ArrayList<>();
+	private final AtomicLong ids = new AtomicLong();
+	private QuestionCacheService service;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.save(any(QuestionCacheEntry.class))).thenAnswer(invocation -> {
+			QuestionCacheEntry entry = invocation.getArgument(0);
+			if (entry.getId() == null) {
+				ReflectionTestUtils.setField(entry, "id", ids.incrementAndGet());
+				stored.add(entry);
+			}
+			return entry;
+		});
+		when(repository.findById(any())).thenAnswer(invocation -> stored.stream()
+				.filter(entry -> entry.getId().equals(invocation.getArgument(0)))
+				.findFirst());
+		when(repository.findByDatabaseConnectionId(any())).thenAnswer(invocation -> List.copyOf(stored));
+		service = new QuestionCacheService(repository, new AppProperties());
+	}
+
+	@Test
+	void offersAcceptedAnswerForRewordedQuestion() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		service.record(db, "이번 달 주문 건수를 알려줘", SQL);
+		service.markAccepted(db, SQL + ";");
+
+		Optional<QuestionCacheService.CachedAnswer> match = service.lookup(db, "이번 달 주문 건수 알려줘");
+
+		assertThat(match).isPresent();
+		assertThat(match.get().sql()).isEqualTo(SQL);
+		assertThat(match.get().similarity()).isGreaterThanOrEqualTo(0.85);
+		verify(repository).incrementHitCount(match.get().entryId());
+		assertThat(service.lookup(db, "이번 달 주문 건수 보여줘")).isPresent();
+	}
+
+	@Test
+	void ignoresAnswersNotExecutedYet() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		service.record(db, "이번 달 주문 건수를 알려줘", SQL);
+
+		assertThat(service.lookup(db, "이번 달 주문 건수를 알려줘")).isEmpty();
+	}
+
+	@Test
+	void numbersMustMatch() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		String sql = "SELECT count(*) FROM shop.orders WHERE ordered_at >= now() - interval '7 days'";
+		service.record(db, "최근 7일 주문 건수", sql);
+		service.markAccepted(db, sql);
+
+		assertThat(service.lookup(db, "최근 7일 주문 건수")).isPresent();
+		assertThat(service.lookup(db, "최근 30일 주문 건수")).isEmpty();
+	}
+
+	@Test
+	void wordsOtherThanNoiseMustMatch() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		String topSql = "SELECT product_id, sum(amount) FROM shop.sales GROUP BY product_id ORDER BY 2 DESC LIMIT 10";
+		String weekSql = "SELECT count(*) FROM shop.orders WHERE ordered_at >= date_trunc('week', now()) - interval '7 days'";
+		service.record(db, "매출 상위 10개 제품", topSql);
+		service.record(db, "지난주 주문 건수", weekSql);
+		service.markAccepted(db, topSql);
+		service.markAccepted(db, weekSql);
+
+		assertThat(service.lookup(db, "매출 상위 10개 제품")).isPresent();
+		assertThat(service.lookup(db, "매출 하위 10개 제품")).isEmpty();
+		assertThat(service.lookup(db, "지난주 주문 건수")).isPresent();
+		assertThat(service.lookup(db, "지난달 주문 건수")).isEmpty();
+	}
+
+	@Test
+	void unrelatedQuestionDoesNotMatch() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		service.record(db, "이번 달 주문 건수를 알려줘", SQL);
+		service.markAccepted(db, SQL);
+
+		assertThat(service.lookup(db, "회원별 평균 결제 금액 순위")).isEmpty();
+	}
+
+	@Test
+	void proseRepliesAreNotRecorded() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		service.record(db, "주문 테이블이 있나요?", "주문 관련 테이블은 shop.orders 입니다.");
+
+		assertThat(stored).isEmpty();
+	}
+
+	@Test
+	void newSchemaVersionDropsOldEntries() {
+		DatabaseSnapshot db = database(SCHEMA_VERSION);
+		service.record(db, "이번 달 주문 건수를 알려줘", SQL);
+		service.markAccepted(db, SQL);
+		// As the repository update left it, so only the version check keeps it from being offered.
+		ReflectionTestUtils.setField(stored.get(0), "accepted", true);
+
+		DatabaseSnapshot refreshed = database(SCHEMA_VERSION.plusDays(1));
+		assertThat(service.lookup(refreshed, "이번 달 주문 건수를 알려줘")).isEmpty();
+		verify(repository).deleteAllByIdInBatch(List.of(stored.get(0).getId()));
+	}
+
+	private static DatabaseSnapshot database(LocalDateTime schemaUpdatedAt) {
+		return new DatabaseSnapshot(1L, "shop", DatabaseType.POSTGRESQL, "db.internal", 5432, "shop", "reader", "pw",
+				true, schemaUpdatedAt, false);
+	}
+}
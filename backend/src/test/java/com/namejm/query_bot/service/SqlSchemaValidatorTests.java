@@ -0,0 +1,94 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.dto.ColumnOverview;
+import com.namejm.query_bot.dto.SchemaOverview;
+import com.namejm.query_bot.dto.TableOverview;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SqlSchemaValidatorTests {
+
+	private final SchemaOverview schema = new SchemaOverview("shop", List.of("public"), List.of(
+			table("orders", "id", "customer_id", "total", "created_at"),
+			table("customers", "id", "name", "email")
+	));
+
+	@Test
+	void acceptsJoinOnExistingColumns() {
+		String sql = "select o.id, c.name from orders o join customers c on c.id = o.customer_id "
+				+ "where o.total > 10 order by o.created_at desc";
+
+		assertThat(SqlSchemaValidator.validate(sql, schema)).isEmpty();
+	}
+
+	@Test
+	void ignoresCaseCommentsAndStrings() {
+		String sql = "SELECT O.ID /* o.bogus */ FROM Orders O WHERE O.TOTAL > 0 AND 'missing' <> '' -- o.missing";
+
+		assertThat(SqlSchemaValidator.validate(sql, schema)).isEmpty();
+	}
+
+	@Test
+	void reportsUnknownTable() {
+		assertThat(SqlSchemaValidator.validate("select * from invoices", schema))
+				.containsExactly("Table `invoices` does not exist in the schema.");
+	}
+
+	@Test
+	void suggestsTableFromAnotherSchema() {
+		assertThat(SqlSchemaValidator.validate("select * from sales.orders", schema))
+				.containsExactly("Table `sales.orders` does not exist; did you mean public.orders?");
+	}
+
+	@Test
+	void reportsUnknownQualifiedColumnWithAvailableColumns() {
+		assertThat(SqlSchemaValidator.validate("select o.amount from orders o", schema))
+				.containsExactly("Column `o.amount` does not exist in public.orders. "
+						+ "Available columns: id, customer_id, total, created_at.");
+	}
+
+	@Test
+	void reportsUnknownAlias() {
+		assertThat(SqlSchemaValidator.validate("select x.id from orders o", schema))
+				.containsExactly("`x` is not a table or alias introduced in FROM/JOIN.");
+	}
+
+	@Test
+	void checksUnqualifiedColumnsOnSingleTable() {
+		List<String> problems = SqlSchemaValidator.validate(
+				"select id, totl from orders where created_at > '2024-01-01'", schema);
+
+		assertThat(problems).singleElement().asString().startsWith("Column `totl` does not exist in public.orders.");
+	}
+
+	@Test
+	void acceptsOutputAliasesAndFunctionArguments() {
+		assertThat(SqlSchemaValidator.validate("select count(*) as cnt from orders order by cnt desc", schema)).isEmpty();
+		assertThat(SqlSchemaValidator.validate("select extract(year from created_at) from orders", schema)).isEmpty();
+	}
+
+	@Test
+	void doesNotLookInsideCtes() {
+		String sql = "with recent as (select id from orders) select r.anything from recent r";
+
+		assertThat(SqlSchemaValidator.validate(sql, schema)).isEmpty();
+	}
+
+	@Test
+	void staysSilentWithoutSchema() {
+		assertThat(SqlSchemaValidator.validate("select nope from nowhere", null)).isEmpty();
+		assertThat(SqlSchemaValidator.validate("select nope from nowhere", new SchemaOverview("shop", List.of(), List.of())))
+				.isEmpty();
+	}
+
+	private static TableOverview table(String name, String... columns) {
+		List<ColumnOverview> columnOverviews = Arrays.stream(columns)
+				.map(column -> new ColumnOverview(column, "text", true, null))
+				.toList();
+		return new TableOverview("public", name, columnOverviews, null);
+	}
+
+}
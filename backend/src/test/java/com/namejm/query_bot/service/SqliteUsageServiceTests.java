@@ -0,0 +1,24 @@
+package com.namejm.query_bot.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * {@link UsageServiceTests} on the SQLite store, where timestamps are epoch milliseconds and the day is derived in SQL.
+ */
+class SqliteUsageServiceTests extends UsageServiceTests {
+
+	@DynamicPropertySource
+	static void sqliteStore(DynamicPropertyRegistry registry) throws Exception {
+		Path dataDir = Files.createTempDirectory("querybot-usage");
+		registry.add("app.metadata-store", () -> "SQLITE");
+		registry.add("app.data-dir", dataDir::toString);
+		registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dataDir.resolve("querybot.db"));
+		registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+		registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+		registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+	}
+
+}
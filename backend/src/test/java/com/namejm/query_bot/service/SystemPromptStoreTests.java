@@ -0,0 +1,58 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class SystemPromptStoreTests {
+
+	@Autowired
+	private SystemPromptStore systemPromptStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Test
+	void storesSameContentOnce() {
+		String first = systemPromptStore.store("You write SQL for the shop database.");
+		String second = systemPromptStore.store("You write SQL for the shop database.");
+
+		assertThat(second).isEqualTo(first).isEqualTo(SystemPromptStore.hash("You write SQL for the shop database."));
+		Integer rows = jdbcTemplate.queryForObject("select count(*) from system_prompts where hash = ?", Integer.class, first);
+		assertThat(rows).isEqualTo(1);
+		assertThat(systemPromptStore.content(first)).contains("You write SQL for the shop database.");
+	}
+
+	@Test
+	void readsUnknownOrMissingHashAsEmpty() {
+		assertThat(systemPromptStore.content(null)).isEmpty();
+		assertThat(systemPromptStore.content(SystemPromptStore.hash("never stored"))).isEmpty();
+	}
+
+	@Test
+	void deletesOnlyUnreferencedPrompts() {
+		String referenced = systemPromptStore.store("You write SQL for the crm database.");
+		String orphan = systemPromptStore.store("You wrote SQL for a removed database.");
+		ChatSession session = new ChatSession();
+		session.setTitle("crm");
+		session.setSystemPromptHash(referenced);
+		chatSessionRepository.saveAndFlush(session);
+
+		assertThat(systemPromptStore.deleteUnreferenced()).isPositive();
+
+		assertThat(systemPromptStore.content(referenced)).contains("You write SQL for the crm database.");
+		assertThat(systemPromptStore.content(orphan)).isEmpty();
+	}
+
+}
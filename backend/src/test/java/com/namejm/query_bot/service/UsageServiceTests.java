@@ -0,0 +1,129 @@
+package com.namejm.query_bot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.namejm.query_bot.domain.ChatMessage;
+import com.namejm.query_bot.domain.ChatSession;
+import com.namejm.query_bot.domain.DatabaseConnection;
+import com.namejm.query_bot.dto.UsageSummary;
+import com.namejm.query_bot.model.DatabaseType;
+import com.namejm.query_bot.model.MessageRole;
+import com.namejm.query_bot.repository.ChatMessageRepository;
+import com.namejm.query_bot.repository.ChatSessionRepository;
+import com.namejm.query_bot.repository.DatabaseConnectionRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Daily usage aggregated by the metadata store. Runs against the server store here and against SQLite in
+ * {@link SqliteUsageServiceTests}, since the day is computed differently on each.
+ */
+@SpringBootTest
+@Transactional
+class UsageServiceTests {
+
+	private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+	@Autowired
+	private UsageService usageService;
+
+	@Autowired
+	private DatabaseConnectionRepository databaseConnectionRepository;
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	private Long shopId;
+	private Long crmId;
+
+	@BeforeEach
+	void setUp() {
+		ChatSession shop = session(database("shop"));
+		ChatSession crm = session(database("crm"));
+		shopId = shop.getDatabaseConnection().getId();
+		crmId = crm.getDatabaseConnection().getId();
+
+		answer(shop, DAY.atTime(10, 0), 100, 20, 50, 1_000L);
+		answer(shop, DAY.atTime(23, 30), 200, 30, null, 3_000L);
+		answer(shop, DAY.plusDays(1).atTime(0, 30), 10, 1, null, 500L);
+		answer(shop, DAY.plusDays(2).atTime(9, 0), 999, 999, null, 9_999L);
+		answer(crm, DAY.atTime(12, 0), 7, 3, null, 100L);
+		question(shop, DAY.atTime(11, 0));
+		chatMessageRepository.flush();
+	}
+
+	@Test
+	void aggregatesPerDatabaseAndDay() {
+		assertThat(usageService.daily(null, DAY, DAY.plusDays(1))).containsExactly(
+				new UsageSummary(shopId, DAY, 2, 300, 50, 50, 2_000, 3_000),
+				new UsageSummary(crmId, DAY, 1, 7, 3, 0, 100, 100),
+				new UsageSummary(shopId, DAY.plusDays(1), 1, 10, 1, 0, 500, 500)
+		);
+	}
+
+	@Test
+	void filtersByDatabase() {
+		assertThat(usageService.daily(crmId, DAY, DAY.plusDays(2)))
+				.containsExactly(new UsageSummary(crmId, DAY, 1, 7, 3, 0, 100, 100));
+	}
+
+	@Test
+	void rejectsInvalidRange() {
+		assertThatThrownBy(() -> usageService.daily(null, DAY, DAY.minusDays(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> usageService.daily(null, DAY, DAY.plusDays(400)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private ChatSession session(DatabaseConnection connection) {
+		ChatSession session = new ChatSession();
+		session.setDatabaseConnection(databaseConnectionRepository.save(connection));
+		session.setTitle(connection.getName());
+		return chatSessionRepository.save(session);
+	}
+
+	private void answer(ChatSession session, LocalDateTime createdAt, int promptTokens, int completionTokens,
+						Integer cachedTokens, Long latencyMs) {
+		ChatMessage message = message(session, MessageRole.ASSISTANT, createdAt);
+		message.setPromptTokens(promptTokens);
+		message.setCompletionTokens(completionTokens);
+		message.setCachedTokens(cachedTokens);
+		message.setLatencyMs(latencyMs);
+		chatMessageRepository.save(message);
+	}
+
+	private void question(ChatSession session, LocalDateTime createdAt) {
+		chatMessageRepository.save(message(session, MessageRole.USER, createdAt));
+	}
+
+	private static ChatMessage message(ChatSession session, MessageRole role, LocalDateTime createdAt) {
+		ChatMessage message = new ChatMessage();
+		message.setSession(session);
+		message.setRole(role);
+		message.setContent(role.name());
+		message.setCreatedAt(createdAt);
+		return message;
+	}
+
+	private static DatabaseConnection database(String name) {
+		DatabaseConnection connection = new DatabaseConnection();
+		connection.setName(name);
+		connection.setDbType(DatabaseType.POSTGRESQL);
+		connection.setHost("localhost");
+		connection.setPort(5432);
+		connection.setDatabaseName(name);
+		connection.setUsername("reader");
+		connection.setPassword("secret");
+		return connection;
+	}
+
+}
@@ -0,0 +1,65 @@
+-- A metadata file as the last release before migrations left it (Hibernate ddl-auto: update), with a little data.
+-- Timestamps are epoch milliseconds, the sqlite-jdbc default the release wrote them in.
+
+create table admin_users (
+    id integer,
+    created_at timestamp not null,
+    password_hash varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table database_connections (
+    id integer,
+    port integer not null,
+    schema_ready BOOLEAN NOT NULL DEFAULT 0,
+    created_at timestamp,
+    schema_updated_at timestamp,
+    updated_at timestamp,
+    database_name varchar(255) not null,
+    db_type varchar(255) not null check (db_type in ('MYSQL','MARIADB','POSTGRESQL')),
+    host varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    schema_json clob,
+    username varchar(255) not null,
+    primary key (id)
+);
+
+create table chat_sessions (
+    id integer,
+    created_at timestamp not null,
+    database_connection_id bigint,
+    last_question_at timestamp,
+    metabase_card_id bigint,
+    system_prompt_database_id bigint,
+    system_prompt TEXT,
+    title varchar(255) not null,
+    primary key (id)
+);
+
+create table chat_messages (
+    id integer,
+    created_at timestamp not null,
+    session_id bigint,
+    content TEXT not null,
+    role varchar(255) not null check (role in ('USER','ASSISTANT')),
+    primary key (id)
+);
+
+insert into admin_users (id, created_at, password_hash, username)
+values (1, 1735776000000, '{noop}secret', 'admin');
+
+insert into database_connections (id, port, schema_ready, created_at, schema_updated_at, updated_at, database_name,
+                                  db_type, host, name, password, schema_json, username)
+values (1, 5432, 1, 1735776300000, 1735776360000, 1735776360000, 'shop', 'POSTGRESQL',
+        'db.internal', 'Shop', 'pw', '{"tables":[{"name":"orders","columns":[]}]}', 'reader');
+
+insert into chat_sessions (id, created_at, database_connection_id, last_question_at, metabase_card_id,
+                           system_prompt_database_id, system_prompt, title)
+values (1, 1735866000000, 1, 1735866060000, null, 1, 'You write SQL for the shop database.', 'Orders');
+
+insert into chat_messages (id, created_at, session_id, content, role)
+values (1, 1735866030000, 1, 'How many orders were placed yesterday?', 'USER');
+insert into chat_messages (id, created_at, session_id, content, role)
+values (2, 1735866060000, 1, 'select count(*) from orders', 'ASSISTANT');
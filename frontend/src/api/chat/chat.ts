@@ -1,13 +1,21 @@
 import { apiClient } from '../../hook/apiClient'
-import type { ChatResponse, ChatSession } from '../../types'
+import type { ChatResponse, ChatSession, MessagePage, SessionPage } from '../../types'
 
 export const ChatApi = {
-  ask: async (payload: { dbId: number; message: string; sessionId?: number }) => {
+  ask: async (payload: {
+    dbId: number
+    message: string
+    sessionId?: number
+    regenerate?: boolean
+    sinceMessageId?: number
+  }) => {
     const res = await apiClient.post<ChatResponse>('/chat/ask', payload)
     return res.data
   },
-  history: async (sessionId: number) => {
-    const res = await apiClient.get<ChatResponse>(`/chat/history/${sessionId}`)
+  history: async (sessionId: number, sinceMessageId?: number) => {
+    const res = await apiClient.get<ChatResponse>(`/chat/history/${sessionId}`, {
+      params: sinceMessageId !== undefined ? { sinceMessageId } : undefined,
+    })
     return res.data
   },
   latest: async (dbId: number) => {
@@ -18,6 +26,14 @@ export const ChatApi = {
     const res = await apiClient.get<ChatSession[]>(`/chat/sessions`, { params: { dbId } })
     return res.data
   },
+  sessionPage: async (dbId: number, before?: number, size?: number) => {
+    const res = await apiClient.get<SessionPage>(`/chat/sessions/page`, { params: { dbId, before, size } })
+    return res.data
+  },
+  historyPage: async (sessionId: number, before?: number, size?: number) => {
+    const res = await apiClient.get<MessagePage>(`/chat/history/${sessionId}/page`, { params: { before, size } })
+    return res.data
+  },
   createSession: async (payload: { dbId: number; title: string }) => {
     const res = await apiClient.post<ChatSession>('/chat/session', payload)
     return res.data
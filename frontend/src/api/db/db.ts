@@ -25,4 +25,8 @@ export const DbApi = {
     const res = await apiClient.put<DbSummary>(`/db/refresh/${id}`)
     return res.data
   },
+  setSpeculative: async (id: number, enabled: boolean) => {
+    const res = await apiClient.put<DbSummary>(`/db/${id}/speculative`, { enabled })
+    return res.data
+  },
 }
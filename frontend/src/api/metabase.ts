@@ -1,13 +1,23 @@
 import { apiClient } from '../hook/apiClient'
-import type { MetabaseQuestionResponse, MetabaseStatus } from '../types'
+import type { MetabaseJob, MetabaseStatus } from '../types'
 
 export const MetabaseApi = {
   status: async () => {
     const res = await apiClient.get<MetabaseStatus>('/metabase/status')
     return res.data
   },
-  sendQuery: async (payload: { sessionId: number; query: string; title?: string; description?: string }) => {
-    const res = await apiClient.post<MetabaseQuestionResponse>('/metabase/card', payload)
+  sendQuery: async (payload: {
+    sessionId: number
+    query: string
+    title?: string
+    description?: string
+    idempotencyKey?: string
+  }) => {
+    const res = await apiClient.post<MetabaseJob>('/metabase/card', payload)
+    return res.data
+  },
+  job: async (jobId: number) => {
+    const res = await apiClient.get<MetabaseJob>(`/metabase/card/jobs/${jobId}`)
     return res.data
   },
 }
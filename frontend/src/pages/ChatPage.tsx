@@ -77,6 +77,18 @@ const emptyDbForm: DbConnectionRequest = {
   password: "",
 };
 
+const METABASE_JOB_POLL_MS = 1000;
+const METABASE_JOB_TIMEOUT_MS = 60000;
+
+const lastMessageId = (messages: ChatMessage[]) => {
+  for (let i = messages.length - 1; i >= 0; i -= 1) {
+    if (messages[i].id !== undefined) {
+      return messages[i].id;
+    }
+  }
+  return undefined;
+};
+
 type Props = {
   user?: string;
 };
@@ -87,6 +99,7 @@ export function ChatPage({ user }: Props) {
   const [databases, setDatabases] = useState<DbSummary[]>([]);
   const [selectedDb, setSelectedDb] = useState<number | undefined>();
   const [sessions, setSessions] = useState<ChatSession[]>([]);
+  const [sessionsCursor, setSessionsCursor] = useState<number | undefined>();
   const [sessionId, setSessionId] = useState<number | undefined>();
   const [messages, setMessages] = useState<ChatMessage[]>([]);
   const [input, setInput] = useState("");
@@ -94,6 +107,7 @@ export function ChatPage({ user }: Props) {
   const [aiTyping, setAiTyping] = useState(false);
   const [metabaseCardId, setMetabaseCardId] = useState<number | undefined>();
   const [metabaseCardUrl, setMetabaseCardUrl] = useState<string | undefined>();
+  const [reusedQuestion, setReusedQuestion] = useState<string | undefined>();
 
   const { isOpen, onToggle, onClose } = useDisclosure();
   const [dbForm, setDbForm] = useState<DbConnectionRequest>(emptyDbForm);
@@ -177,14 +191,17 @@ export function ChatPage({ user }: Props) {
 
   const loadSessions = async (dbId: number) => {
     try {
-      const res = await ChatApi.sessions(dbId);
-      setSessions(res);
+      const res = await ChatApi.sessionPage(dbId);
+      setSessions(res.sessions);
+      setSessionsCursor(res.nextCursor ?? undefined);
       setSessionId(undefined);
       setMetabaseCardId(undefined);
       setMetabaseCardUrl(undefined);
       setMessages([]);
+      setReusedQuestion(undefined);
     } catch (err: unknown) {
       setSessions([]);
+      setSessionsCursor(undefined);
       setSessionId(undefined);
       setMetabaseCardId(undefined);
       setMetabaseCardUrl(undefined);
@@ -199,6 +216,7 @@ export function ChatPage({ user }: Props) {
 
   const loadHistory = async (session: number) => {
     initialLoadRef.current = true;
+    setReusedQuestion(undefined);
     try {
       const res = await ChatApi.history(session);
       setSessionId(res.sessionId);
@@ -228,12 +246,28 @@ export function ChatPage({ user }: Props) {
     }
   };
 
+  const loadMoreSessions = async () => {
+    if (!selectedDb || sessionsCursor === undefined) return;
+    try {
+      const res = await ChatApi.sessionPage(selectedDb, sessionsCursor);
+      setSessions((prev) => [...prev, ...res.sessions]);
+      setSessionsCursor(res.nextCursor ?? undefined);
+    } catch (err: unknown) {
+      toast({
+        title: "세션 목록을 불러오지 못했습니다",
+        description: extractErrorMessage(err),
+        status: "error",
+      });
+    }
+  };
+
   const refreshSessions = async (dbId: number) => {
     try {
-      const res = await ChatApi.sessions(dbId);
-      setSessions(res);
+      const res = await ChatApi.sessionPage(dbId);
+      setSessions(res.sessions);
+      setSessionsCursor(res.nextCursor ?? undefined);
       if (sessionId) {
-        const current = res.find((s) => s.id === sessionId);
+        const current = res.sessions.find((s) => s.id === sessionId);
         setMetabaseCardId(current?.metabaseCardId ?? undefined);
         setMetabaseCardUrl(current?.metabaseCardUrl ?? undefined);
       }
@@ -272,14 +306,24 @@ export function ChatPage({ user }: Props) {
     setMessages([...messages, optimisticUser]);
     setInput("");
     const isNewSession = !sessionId;
+    const sinceMessageId = sessionId ? lastMessageId(previousMessages) : undefined;
     try {
       const res = await ChatApi.ask({
         dbId: selectedDb,
         message: input,
         sessionId,
+        sinceMessageId,
       });
-      setMessages(res.history);
+      // Only new messages come back when a cursor was sent for the same session.
+      setMessages(
+        sinceMessageId !== undefined && res.sessionId === sessionId
+          ? [...previousMessages, ...res.history]
+          : res.history,
+      );
       setSessionId(res.sessionId);
+      setReusedQuestion(
+        res.cachedAnswer ? (res.similarQuestion ?? undefined) : undefined,
+      );
       setMetabaseCardId(res.metabaseCardId ?? undefined);
       setMetabaseCardUrl(res.metabaseCardUrl ?? undefined);
       if (res.metabaseCardId && res.metabaseCardUrl) {
@@ -305,6 +349,42 @@ export function ChatPage({ user }: Props) {
     }
   };
 
+  const handleRegenerate = async () => {
+    if (sending || !selectedDb || !sessionId) return;
+    const lastQuestion = [...messages]
+      .reverse()
+      .find((msg) => msg.role === "USER");
+    if (!lastQuestion) return;
+    setSending(true);
+    setAiTyping(true);
+    const previousMessages = messages;
+    const sinceMessageId = lastMessageId(previousMessages);
+    try {
+      const res = await ChatApi.ask({
+        dbId: selectedDb,
+        message: lastQuestion.content,
+        sessionId,
+        regenerate: true,
+        sinceMessageId,
+      });
+      setMessages(
+        sinceMessageId !== undefined && res.sessionId === sessionId
+          ? [...previousMessages, ...res.history]
+          : res.history,
+      );
+      setReusedQuestion(undefined);
+    } catch (err: unknown) {
+      toast({
+        title: "답변 재생성 실패",
+        description: extractErrorMessage(err),
+        status: "error",
+      });
+    } finally {
+      setSending(false);
+      setAiTyping(false);
+    }
+  };
+
   const handleExecute = async (sql: string) => {
     if (!selectedDb) {
       toast({ title: "DB를 먼저 선택하세요.", status: "warning" });
@@ -405,18 +485,33 @@ export function ChatPage({ user }: Props) {
     }
     setMetabaseSending(true);
     try {
-      const res = await MetabaseApi.sendQuery({
+      let job = await MetabaseApi.sendQuery({
         sessionId,
         query: sql,
         title: title && title.trim() ? title.trim() : undefined,
+        idempotencyKey: crypto.randomUUID(),
       });
-      setMetabaseResult({ id: res.id, url: res.url });
-      setMetabaseCardId(res.id);
-      setMetabaseCardUrl(res.url);
+      const deadline = Date.now() + METABASE_JOB_TIMEOUT_MS;
+      while (job.status === "PENDING" && Date.now() < deadline) {
+        await new Promise((resolve) => setTimeout(resolve, METABASE_JOB_POLL_MS));
+        job = await MetabaseApi.job(job.jobId);
+      }
+      if (job.status !== "DONE" || job.cardId == null || !job.url) {
+        throw new Error(
+          job.status === "PENDING"
+            ? "Metabase 응답이 지연되고 있습니다. 잠시 후 세션 목록에서 확인하세요."
+            : job.error || "Metabase 카드 생성에 실패했습니다.",
+        );
+      }
+      const cardId = job.cardId;
+      const cardUrl = job.url;
+      setMetabaseResult({ id: cardId, url: cardUrl });
+      setMetabaseCardId(cardId);
+      setMetabaseCardUrl(cardUrl);
       setSessions((prev) =>
         prev.map((s) =>
           s.id === sessionId
-            ? { ...s, metabaseCardId: res.id, metabaseCardUrl: res.url }
+            ? { ...s, metabaseCardId: cardId, metabaseCardUrl: cardUrl }
             : s,
         ),
       );
@@ -657,6 +752,27 @@ export function ChatPage({ user }: Props) {
     }
   };
 
+  const handleSpeculativeToggle = async () => {
+    const current = databases.find((db) => db.id === selectedDb);
+    if (!current) {
+      return;
+    }
+    try {
+      const res = await DbApi.setSpeculative(current.id, !current.speculativeExecution);
+      setDatabases((prev) => prev.map((db) => (db.id === res.id ? res : db)));
+      toast({
+        title: res.speculativeExecution ? "쿼리 미리 실행 켜짐" : "쿼리 미리 실행 꺼짐",
+        status: "success",
+      });
+    } catch (err: unknown) {
+      toast({
+        title: "설정 변경 실패",
+        description: extractErrorMessage(err),
+        status: "error",
+      });
+    }
+  };
+
   const createNewSession = () => {
     if (!selectedDb) {
       onToggle();
@@ -769,6 +885,7 @@ export function ChatPage({ user }: Props) {
                       await loadSessions(id);
                     } else {
                       setSessions([]);
+                      setSessionsCursor(undefined);
                       setMessages([]);
                     }
                   }}
@@ -807,6 +924,16 @@ export function ChatPage({ user }: Props) {
                     </option>
                   ))}
                 </Select>
+                {sessionsCursor !== undefined && (
+                  <Button
+                    size="xs"
+                    variant="link"
+                    mt={2}
+                    onClick={loadMoreSessions}
+                  >
+                    이전 세션 더 불러오기
+                  </Button>
+                )}
               </FormControl>
             </GridItem>
             <GridItem alignSelf={{ base: "stretch", md: "end" }}>
@@ -844,6 +971,11 @@ export function ChatPage({ user }: Props) {
                         >
                           DB 정보 갱신
                         </MenuItem>
+                        <MenuItem onClick={handleSpeculativeToggle}>
+                          {databases.find((db) => db.id === selectedDb)?.speculativeExecution
+                            ? "쿼리 미리 실행 끄기"
+                            : "쿼리 미리 실행 켜기"}
+                        </MenuItem>
                         <MenuItem icon={<FiPlus />} onClick={onToggle}>
                           새 DB 추가
                         </MenuItem>
@@ -1034,6 +1166,23 @@ export function ChatPage({ user }: Props) {
                 </Box>
               )}
             </Stack>
+            {reusedQuestion !== undefined && (
+              <HStack justify="space-between" color="gray.400" fontSize="sm">
+                <Text>
+                  비슷한 질문{reusedQuestion ? ` "${reusedQuestion}"` : ""}에
+                  사용된 답변을 재사용했습니다.
+                </Text>
+                <Button
+                  size="xs"
+                  variant="outline"
+                  leftIcon={<FiRefreshCw />}
+                  onClick={handleRegenerate}
+                  isLoading={sending}
+                >
+                  새로 생성
+                </Button>
+              </HStack>
+            )}
             <Divider />
             <Textarea
               value={input}
@@ -33,6 +33,7 @@ export type DbSummary = {
   port: number
   databaseName: string
   schemaReady: boolean
+  speculativeExecution: boolean
 }
 
 export type ColumnOverview = {
@@ -59,9 +60,14 @@ export type DbTestResponse = {
   success: boolean
   message: string
   schema?: SchemaOverview
+  tableCount?: number
+  columnCount?: number
+  readableTableCount?: number
+  elapsedMs?: number
 }
 
 export type ChatMessage = {
+  id?: number
   role: 'USER' | 'ASSISTANT'
   content: string
   createdAt: string
@@ -73,16 +79,25 @@ export type ChatResponse = {
   history: ChatMessage[]
   metabaseCardId?: number
   metabaseCardUrl?: string
+  cachedAnswer?: boolean
+  similarQuestion?: string | null
 }
 
 export type MetabaseStatus = {
   available: boolean
 }
 
-export type MetabaseQuestionResponse = {
-  id: number
-  name: string
-  url: string
+export type MetabaseJobStatus = 'PENDING' | 'DONE' | 'FAILED' | 'SUPERSEDED'
+
+export type MetabaseJob = {
+  jobId: number
+  sessionId: number
+  status: MetabaseJobStatus
+  attempts: number
+  cardId?: number | null
+  cardName?: string | null
+  url?: string | null
+  error?: string | null
 }
 
 export type ExecuteResponse = {
@@ -98,3 +113,13 @@ export type ChatSession = {
   metabaseCardId?: number
   metabaseCardUrl?: string
 }
+
+export type SessionPage = {
+  sessions: ChatSession[]
+  nextCursor?: number | null
+}
+
+export type MessagePage = {
+  messages: ChatMessage[]
+  nextCursor?: number | null
+}